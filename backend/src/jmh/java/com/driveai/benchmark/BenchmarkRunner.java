@@ -0,0 +1,145 @@
+package com.driveai.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the JMH benchmarks with the GC profiler, writes JSON results and, when
+ * {@code -Dbenchmark.baseline=<results.json>} is given, fails if any benchmark got
+ * slower or allocates more per operation than the baseline by more than
+ * {@code -Dbenchmark.maxRegressionPercent} (default 10). All other arguments are
+ * passed to JMH unchanged, e.g. a benchmark regex or {@code -p payloadBytes=1024}.
+ */
+public final class BenchmarkRunner {
+    
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    
+    // Allocation differences below this are noise (a few boxed values), whatever the percentage
+    private static final double MIN_ALLOCATION_DELTA_BYTES = 64;
+    
+    private BenchmarkRunner() {}
+    
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+        
+        Path resultFile = Path.of(System.getProperty("benchmark.resultFile", "target/jmh/results.json"));
+        Files.createDirectories(resultFile.toAbsolutePath().getParent());
+        
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.toString())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+        System.out.println("Results written to " + resultFile);
+        
+        String baseline = System.getProperty("benchmark.baseline", "");
+        if (baseline.isBlank()) {
+            return;
+        }
+        
+        double maxRegressionPercent = Double.parseDouble(System.getProperty("benchmark.maxRegressionPercent", "10"));
+        List<String> regressions = compare(results, readBaseline(Path.of(baseline)), maxRegressionPercent);
+        if (regressions.isEmpty()) {
+            System.out.printf("No regressions over %.0f%% against %s%n", maxRegressionPercent, baseline);
+            return;
+        }
+        
+        System.out.printf("%d regression(s) over %.0f%% against %s:%n", regressions.size(), maxRegressionPercent, baseline);
+        regressions.forEach(regression -> System.out.println("  " + regression));
+        System.exit(1);
+    }
+    
+    static List<String> compare(Collection<RunResult> results, Map<String, JsonNode> baseline, double maxRegressionPercent) {
+        double tolerance = 1 + maxRegressionPercent / 100;
+        List<String> regressions = new ArrayList<>();
+        
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            String key = key(params.getBenchmark(), params.getMode().shortLabel(), paramsOf(params));
+            JsonNode previous = baseline.get(key);
+            if (previous == null) {
+                System.out.println("No baseline for " + key);
+                continue;
+            }
+            
+            Result<?> primary = result.getPrimaryResult();
+            double previousScore = previous.path("primaryMetric").path("score").asDouble();
+            double score = primary.getScore();
+            // Throughput is the only mode where a higher score is better
+            boolean slower = "thrpt".equals(params.getMode().shortLabel())
+                    ? score * tolerance < previousScore
+                    : score > previousScore * tolerance;
+            if (slower) {
+                regressions.add(String.format("%s: %.3f -> %.3f %s", key, previousScore, score, primary.getScoreUnit()));
+            }
+            
+            Result<?> allocation = result.getSecondaryResults().get(ALLOCATION_METRIC);
+            JsonNode previousAllocation = previous.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score");
+            if (allocation != null && previousAllocation.isNumber()) {
+                double bytes = allocation.getScore();
+                double previousBytes = previousAllocation.asDouble();
+                if (bytes > previousBytes * tolerance && bytes - previousBytes > MIN_ALLOCATION_DELTA_BYTES) {
+                    regressions.add(String.format("%s: allocation %.0f -> %.0f B/op", key, previousBytes, bytes));
+                }
+            }
+        }
+        
+        return regressions;
+    }
+    
+    static Map<String, JsonNode> readBaseline(Path file) throws IOException {
+        Map<String, JsonNode> baseline = new HashMap<>();
+        for (JsonNode entry : new ObjectMapper().readTree(file.toFile())) {
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = entry.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), field.getValue().asText());
+            }
+            baseline.put(key(entry.path("benchmark").asText(), entry.path("mode").asText(), params), entry);
+        }
+        return baseline;
+    }
+    
+    private static Map<String, String> paramsOf(BenchmarkParams params) {
+        Map<String, String> values = new TreeMap<>();
+        for (String name : params.getParamsKeys()) {
+            values.put(name, params.getParam(name));
+        }
+        return values;
+    }
+    
+    private static String key(String benchmark, String mode, Map<String, String> params) {
+        return benchmark + " [" + mode + "]" + (params.isEmpty() ? "" : " " + params);
+    }
+}
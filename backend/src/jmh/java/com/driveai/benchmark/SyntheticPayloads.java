@@ -0,0 +1,176 @@
+package com.driveai.benchmark;
+
+import com.driveai.model.ChatMessage;
+import com.driveai.model.DriveFile;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.docs.v1.model.Body;
+import com.google.api.services.docs.v1.model.Document;
+import com.google.api.services.docs.v1.model.Paragraph;
+import com.google.api.services.docs.v1.model.ParagraphElement;
+import com.google.api.services.docs.v1.model.StructuralElement;
+import com.google.api.services.docs.v1.model.TextRun;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic stand-ins for the Google and chat payloads the benchmarks run over.
+ * Sizes are approximate UTF-8 byte counts of the text the payload carries.
+ */
+public final class SyntheticPayloads {
+    
+    private static final String[] WORDS = {
+            "quarterly", "revenue", "forecast", "meeting", "notes", "customer", "contract", "renewal",
+            "pipeline", "budget", "invoice", "proposal", "deadline", "review", "summary", "action",
+            "owner", "status", "milestone", "risk", "launch", "hiring", "report", "draft"
+    };
+    
+    private SyntheticPayloads() {}
+    
+    /** A Docs document whose paragraphs add up to roughly {@code bytes} of text. */
+    public static Document document(int bytes, long seed) {
+        Random random = new Random(seed);
+        List<StructuralElement> content = new ArrayList<>();
+        int written = 0;
+        while (written < bytes) {
+            // Two or three text runs per paragraph, as styled Docs text usually is
+            List<ParagraphElement> runs = new ArrayList<>();
+            int runCount = 2 + random.nextInt(2);
+            for (int i = 0; i < runCount; i++) {
+                String run = sentence(random, 6 + random.nextInt(10));
+                runs.add(new ParagraphElement().setTextRun(new TextRun().setContent(run)));
+                written += run.length();
+            }
+            content.add(new StructuralElement().setParagraph(new Paragraph().setElements(runs)));
+        }
+        return new Document().setDocumentId("benchmark-doc").setBody(new Body().setContent(content));
+    }
+    
+    /** A one-sheet spreadsheet whose values endpoint is answered from memory. */
+    public static Spreadsheet spreadsheet(String sheetTitle) {
+        return new Spreadsheet()
+                .setSpreadsheetId("benchmark-sheet")
+                .setSheets(List.of(new Sheet().setProperties(new SheetProperties().setTitle(sheetTitle))));
+    }
+    
+    /**
+     * A Sheets client whose transport answers every request with the same ValueRange
+     * JSON of roughly {@code bytes}, so the benchmark includes response parsing.
+     */
+    public static Sheets sheetsClient(int bytes, int columns, long seed) {
+        byte[] body = valueRangeJson(bytes, columns, seed);
+        HttpTransport transport = new MockHttpTransport() {
+            @Override
+            public LowLevelHttpRequest buildRequest(String method, String url) {
+                return new MockLowLevelHttpRequest(url) {
+                    @Override
+                    public LowLevelHttpResponse execute() {
+                        return new MockLowLevelHttpResponse()
+                                .setContentType(Json.MEDIA_TYPE)
+                                .setContent(new ByteArrayInputStream(body));
+                    }
+                };
+            }
+        };
+        return new Sheets.Builder(transport, GsonFactory.getDefaultInstance(), null)
+                .setApplicationName("benchmark")
+                .build();
+    }
+    
+    static byte[] valueRangeJson(int bytes, int columns, long seed) {
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder(bytes + 256);
+        json.append("{\"range\":\"Sheet1!A1:Z\",\"majorDimension\":\"ROWS\",\"values\":[");
+        boolean firstRow = true;
+        while (json.length() < bytes) {
+            json.append(firstRow ? "[" : ",[");
+            firstRow = false;
+            for (int c = 0; c < columns; c++) {
+                if (c > 0) {
+                    json.append(',');
+                }
+                // Mix of text and numeric-looking cells; Sheets returns both as strings
+                if (random.nextInt(3) == 0) {
+                    json.append('"').append(random.nextInt(100_000)).append('.').append(random.nextInt(100)).append('"');
+                } else {
+                    json.append('"').append(WORDS[random.nextInt(WORDS.length)]).append(' ')
+                            .append(WORDS[random.nextInt(WORDS.length)]).append('"');
+                }
+            }
+            json.append(']');
+        }
+        json.append("]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    public static List<ChatMessage> conversation(int turns, int messageBytes, long seed) {
+        Random random = new Random(seed);
+        List<ChatMessage> messages = new ArrayList<>(turns);
+        for (int i = 0; i < turns; i++) {
+            ChatMessage.MessageRole role = i % 2 == 0 ? ChatMessage.MessageRole.USER : ChatMessage.MessageRole.ASSISTANT;
+            messages.add(new ChatMessage(null, role, text(random, messageBytes)));
+        }
+        return messages;
+    }
+    
+    public static List<DriveFile> driveFiles(int count) {
+        List<DriveFile> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            files.add(new DriveFile("file-" + i, null, "Document " + i + ".gdoc",
+                    "application/vnd.google-apps.document"));
+        }
+        return files;
+    }
+    
+    public static List<File> driveApiFiles(int count, long seed) {
+        Random random = new Random(seed);
+        long now = System.currentTimeMillis();
+        List<File> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            files.add(new File()
+                    .setId("file-" + i)
+                    .setName(WORDS[random.nextInt(WORDS.length)] + " " + i)
+                    .setMimeType(i % 5 == 0 ? "application/vnd.google-apps.folder" : "application/vnd.google-apps.document")
+                    .setSize((long) random.nextInt(10_000_000))
+                    .setModifiedTime(new DateTime(now - random.nextInt(1_000_000_000)))
+                    .setWebViewLink("https://docs.google.com/document/d/file-" + i + "/edit")
+                    .setParents(List.of("root")));
+        }
+        return files;
+    }
+    
+    public static String text(Random random, int bytes) {
+        StringBuilder text = new StringBuilder(bytes + 32);
+        while (text.length() < bytes) {
+            text.append(sentence(random, 8 + random.nextInt(12)));
+        }
+        return text.toString();
+    }
+    
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.append(". ").toString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.driveai.service;
+
+import com.driveai.benchmark.SyntheticPayloads;
+import com.driveai.dto.DriveFileDto;
+import com.google.api.services.drive.model.File;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drive API file to DTO conversion for one listing page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DriveDtoBenchmark {
+    
+    @Param({"100", "1000"})
+    private int pageSize;
+    
+    private GoogleDriveService driveService;
+    private List<File> page;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        driveService = new GoogleDriveService();
+        page = SyntheticPayloads.driveApiFiles(pageSize, 42L);
+    }
+    
+    @Benchmark
+    public void convertToDto(Blackhole blackhole) {
+        for (File file : page) {
+            DriveFileDto dto = driveService.convertToDto(file);
+            blackhole.consume(dto);
+        }
+    }
+}
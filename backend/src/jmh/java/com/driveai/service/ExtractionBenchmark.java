@@ -0,0 +1,72 @@
+package com.driveai.service;
+
+import com.driveai.benchmark.SyntheticPayloads;
+import com.google.api.services.docs.v1.model.Document;
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text extraction from Docs and Sheets payloads between 1KB and 50MB. The Sheets
+ * case goes through a real client over an in-memory transport, so JSON parsing
+ * of the values response is part of the measured cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ExtractionBenchmark {
+    
+    @Param({"1024", "102400", "1048576", "10485760", "52428800"})
+    private int payloadBytes;
+    
+    private GoogleDocsService docsService;
+    private GoogleSheetsService sheetsService;
+    
+    private Document document;
+    private Sheets sheetsClient;
+    private Spreadsheet spreadsheet;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        docsService = new GoogleDocsService();
+        sheetsService = new GoogleSheetsService();
+        // Values reads are observed in production too, so keep that cost in the measurement
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(sheetsService, "googleApiMetrics", new GoogleApiMetrics(observationRegistry));
+        
+        document = SyntheticPayloads.document(payloadBytes, 42L);
+        sheetsClient = SyntheticPayloads.sheetsClient(payloadBytes, 12, 42L);
+        spreadsheet = SyntheticPayloads.spreadsheet("Sheet1");
+    }
+    
+    @Benchmark
+    public String extractTextFromDocument() {
+        return docsService.extractTextFromDocument(document);
+    }
+    
+    @Benchmark
+    public String extractTextFromSpreadsheet() {
+        return sheetsService.extractTextFromSpreadsheet(sheetsClient, spreadsheet);
+    }
+}
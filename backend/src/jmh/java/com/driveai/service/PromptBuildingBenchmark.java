@@ -0,0 +1,82 @@
+package com.driveai.service;
+
+import com.driveai.benchmark.SyntheticPayloads;
+import com.driveai.model.ChatMessage;
+import com.driveai.model.DriveFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request prompt assembly in OpenAiService: the chat message list and the
+ * document analysis/summary prompts, scaled by history length and context size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PromptBuildingBenchmark {
+    
+    @Param({"10", "100", "1000"})
+    private int historySize;
+    
+    @Param({"1024", "102400", "1048576"})
+    private int contextBytes;
+    
+    private OpenAiService openAiService;
+    
+    private List<ChatMessage> history;
+    private String context;
+    private DriveFile file;
+    private List<DriveFile> files;
+    private Map<String, String> summariesByFileId;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        openAiService = new OpenAiService();
+        
+        Random random = new Random(42L);
+        history = SyntheticPayloads.conversation(historySize, 400, 42L);
+        context = SyntheticPayloads.text(random, contextBytes);
+        file = SyntheticPayloads.driveFiles(1).get(0);
+        
+        // historySize doubles as the number of files in a multi-document summary
+        files = SyntheticPayloads.driveFiles(historySize);
+        summariesByFileId = new HashMap<>();
+        for (DriveFile f : files) {
+            summariesByFileId.put(f.getId(), SyntheticPayloads.text(random, 600));
+        }
+    }
+    
+    @Benchmark
+    public Object buildMessageList() {
+        return openAiService.buildMessageList(history, context);
+    }
+    
+    @Benchmark
+    public String buildDocumentAnalysisPrompt() {
+        return openAiService.buildDocumentAnalysisPrompt(file, context);
+    }
+    
+    @Benchmark
+    public String buildDocumentSummaryPrompt() {
+        return openAiService.buildDocumentSummaryPrompt(files, summariesByFileId);
+    }
+}
@@ -0,0 +1,101 @@
+package com.driveai.loadtest.driver;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the backend's JVM from /actuator/prometheus once a second during the measured
+ * run and keeps the peaks: live platform threads (virtual threads are not counted), heap
+ * used, and memory committed across heap and non-heap. Comparing runs at different
+ * {@code --users} shows how the backend's footprint grows with concurrency.
+ */
+public class BackendMetrics {
+    
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final URI prometheusUri;
+    private ScheduledExecutorService sampler;
+    
+    private volatile double peakThreads;
+    private volatile double peakHeapUsedBytes;
+    private volatile double peakCommittedBytes;
+    private volatile int samples;
+    
+    public BackendMetrics(String managementUrl) {
+        this.prometheusUri = URI.create(managementUrl + "/actuator/prometheus");
+    }
+    
+    public void start() {
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "backend-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+    }
+    
+    public void stop() {
+        sampler.shutdownNow();
+    }
+    
+    public void writeTo(ObjectNode report) {
+        report.putObject("backend")
+                .put("samples", samples)
+                .put("peakLiveThreads", (long) peakThreads)
+                .put("peakHeapUsedMb", peakHeapUsedBytes / (1024 * 1024))
+                .put("peakCommittedMb", peakCommittedBytes / (1024 * 1024));
+        System.out.printf("Backend peaks over %d samples: %d live threads, %.0f MB heap used, %.0f MB committed%n",
+                samples, (long) peakThreads, peakHeapUsedBytes / (1024 * 1024), peakCommittedBytes / (1024 * 1024));
+    }
+    
+    private void sample() {
+        String body;
+        try {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(prometheusUri).timeout(Duration.ofSeconds(5)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return;
+            }
+            body = response.body();
+        } catch (IOException e) {
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        
+        double threads = 0;
+        double heapUsed = 0;
+        double committed = 0;
+        for (String line : body.split("\n")) {
+            if (line.startsWith("jvm_threads_live_threads")) {
+                threads += value(line);
+            } else if (line.startsWith("jvm_memory_used_bytes") && line.contains("area=\"heap\"")) {
+                heapUsed += value(line);
+            } else if (line.startsWith("jvm_memory_committed_bytes")) {
+                committed += value(line);
+            }
+        }
+        peakThreads = Math.max(peakThreads, threads);
+        peakHeapUsedBytes = Math.max(peakHeapUsedBytes, heapUsed);
+        peakCommittedBytes = Math.max(peakCommittedBytes, committed);
+        samples++;
+    }
+    
+    private static double value(String line) {
+        try {
+            return Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
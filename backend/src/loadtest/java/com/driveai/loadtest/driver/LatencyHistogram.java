@@ -0,0 +1,74 @@
+package com.driveai.loadtest.driver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram in microseconds. Buckets are exact below 256us and
+ * log-linear above (128 sub-buckets per power of two), so percentiles are within
+ * 0.8% of the recorded value while memory stays fixed however long the run.
+ */
+public class LatencyHistogram {
+    
+    private static final int LINEAR_BUCKETS = 256;
+    private static final int SUB_BUCKETS = 128;
+    private static final int MAX_SHIFT = 40;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR_BUCKETS + MAX_SHIFT * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    
+    public void record(long micros) {
+        long value = Math.max(micros, 0);
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+    
+    public long getCount() {
+        return count.get();
+    }
+    
+    public long getMaxMicros() {
+        return max.get();
+    }
+    
+    /** Value at the given percentile (0-100), in microseconds. */
+    public long percentileMicros(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(valueAt(i), max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    static int index(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        // Keep the top 8 bits: value >>> shift lands in [128, 256)
+        int shift = Math.min(highestBit - 7, MAX_SHIFT);
+        long top = Math.min(value >>> shift, 2L * SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (top - SUB_BUCKETS);
+    }
+    
+    static long valueAt(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int offset = index - LINEAR_BUCKETS;
+        int shift = offset / SUB_BUCKETS + 1;
+        long top = offset % SUB_BUCKETS + SUB_BUCKETS;
+        // Middle of the bucket
+        return (top << shift) + (1L << shift) / 2;
+    }
+}
@@ -0,0 +1,261 @@
+package com.driveai.loadtest.driver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load driver for /api/drive/* and /api/chat/*: logs in {@code --users}
+ * virtual users, then each runs a weighted mix of operations back to back for
+ * {@code --duration-seconds}. Reports throughput and p50/p99/p99.9 per operation, and the
+ * backend's peak thread count and memory.
+ *
+ * Options ({@code --name=value}): app-url, management-url, users, duration-seconds,
+ * warmup-seconds, think-time-ms, drive-files, mix (e.g. {@code drive.list=30,chat.message=10}),
+ * report-file.
+ */
+public class LoadDriver {
+    
+    private static final String DEFAULT_MIX =
+            "drive.list=25,drive.get=20,drive.content=10,drive.search=10,chat.message=15,chat.sessions=10,chat.messages=10";
+    
+    private static final String[] SEARCH_TERMS = {"budget", "contract", "forecast", "meeting", "report"};
+    
+    private final Map<String, String> options;
+    private final String appUrl;
+    private final int driveFiles;
+    private final long thinkTimeMillis;
+    private final List<String> operations = new ArrayList<>();
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+    
+    private final Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+    private final Map<String, Map<Integer, AtomicLong>> errors = new LinkedHashMap<>();
+    
+    private final BackendMetrics backendMetrics;
+    
+    private volatile boolean recording;
+    
+    public LoadDriver(Map<String, String> options) {
+        this.options = options;
+        this.appUrl = options.getOrDefault("app-url", "http://localhost:8080");
+        this.driveFiles = Integer.parseInt(options.getOrDefault("drive-files", "500"));
+        this.thinkTimeMillis = Long.parseLong(options.getOrDefault("think-time-ms", "0"));
+        this.backendMetrics = new BackendMetrics(options.getOrDefault("management-url", "http://localhost:8081"));
+        
+        int total = 0;
+        for (String entry : options.getOrDefault("mix", DEFAULT_MIX).split(",")) {
+            String[] parts = entry.trim().split("=");
+            int weight = Integer.parseInt(parts[1]);
+            if (weight <= 0) {
+                continue;
+            }
+            total += weight;
+            operations.add(parts[0]);
+            cumulativeWeights.add(total);
+            histograms.put(parts[0], new LatencyHistogram());
+            errors.put(parts[0], new ConcurrentHashMap<>());
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        new LoadDriver(options).run();
+    }
+    
+    public void run() throws Exception {
+        int userCount = Integer.parseInt(options.getOrDefault("users", "20"));
+        long warmupSeconds = Long.parseLong(options.getOrDefault("warmup-seconds", "10"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration-seconds", "60"));
+        
+        System.out.printf("Logging in %d virtual users against %s%n", userCount, appUrl);
+        ExecutorService pool = Executors.newFixedThreadPool(userCount);
+        List<Future<VirtualUser>> logins = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            VirtualUser user = new VirtualUser("loadtest-" + i, appUrl);
+            logins.add(pool.submit(() -> {
+                user.login();
+                return user;
+            }));
+        }
+        List<VirtualUser> users = new ArrayList<>();
+        for (Future<VirtualUser> login : logins) {
+            users.add(login.get());
+        }
+        
+        System.out.printf("Warming up for %ds, then measuring for %ds%n", warmupSeconds, durationSeconds);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        
+        List<Future<?>> workers = new ArrayList<>();
+        for (VirtualUser user : users) {
+            workers.add(pool.submit(() -> runUser(user, end)));
+        }
+        while (System.nanoTime() < measureFrom) {
+            Thread.sleep(50);
+        }
+        recording = true;
+        backendMetrics.start();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        backendMetrics.stop();
+        pool.shutdown();
+        
+        report(durationSeconds, userCount);
+    }
+    
+    private void runUser(VirtualUser user, long endNanos) {
+        while (System.nanoTime() < endNanos) {
+            String operation = pickOperation();
+            long started = System.nanoTime();
+            int status;
+            try {
+                status = execute(user, operation).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long micros = (System.nanoTime() - started) / 1_000;
+            
+            if (recording && System.nanoTime() <= endNanos) {
+                histograms.get(operation).record(micros);
+                if (status < 200 || status >= 400) {
+                    errors.get(operation).computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+                }
+            }
+            
+            if (thinkTimeMillis > 0) {
+                try {
+                    Thread.sleep(thinkTimeMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    private HttpResponse<String> execute(VirtualUser user, String operation) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case "drive.list":
+                return user.send("GET", "/api/drive/files?maxResults=20", null);
+            case "drive.get":
+                return user.send("GET", "/api/drive/files/standin-file-" + random.nextInt(driveFiles), null);
+            case "drive.content":
+                // Stand-in files with index % 5 of 0 or 1 are Docs and Sheets, which have extractable text
+                int index = random.nextInt(Math.max(driveFiles / 5, 1)) * 5 + random.nextInt(2);
+                return user.send("GET", "/api/drive/files/standin-file-" + index + "/content", null);
+            case "drive.search":
+                String term = SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)];
+                return user.send("GET", "/api/drive/search?maxResults=20&q=" + URLEncoder.encode(term, StandardCharsets.UTF_8), null);
+            case "chat.message":
+                String body = String.format("{\"message\":\"Summarize my %s documents\",\"sessionId\":%d}",
+                        SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)], user.getSessionId());
+                return user.send("POST", "/api/chat/message", body);
+            case "chat.sessions":
+                return user.send("GET", "/api/chat/sessions?limit=20", null);
+            case "chat.messages":
+                return user.send("GET", "/api/chat/sessions/" + user.getSessionId() + "/messages?limit=50", null);
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+    
+    private String pickOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights.get(cumulativeWeights.size() - 1));
+        for (int i = 0; i < operations.size(); i++) {
+            if (roll < cumulativeWeights.get(i)) {
+                return operations.get(i);
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+    
+    private void report(long durationSeconds, int userCount) throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode report = mapper.createObjectNode()
+                .put("appUrl", appUrl)
+                .put("users", userCount)
+                .put("durationSeconds", durationSeconds);
+        ArrayNode rows = report.putArray("operations");
+        
+        System.out.printf("%n%-15s %9s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            long errorCount = errors.get(entry.getKey()).values().stream().mapToLong(AtomicLong::get).sum();
+            printRow(entry.getKey(), histogram, errorCount, durationSeconds);
+            
+            ObjectNode row = rows.addObject()
+                    .put("operation", entry.getKey())
+                    .put("requests", histogram.getCount())
+                    .put("errors", errorCount)
+                    .put("throughputPerSecond", (double) histogram.getCount() / durationSeconds)
+                    .put("p50Ms", histogram.percentileMicros(50) / 1000.0)
+                    .put("p99Ms", histogram.percentileMicros(99) / 1000.0)
+                    .put("p999Ms", histogram.percentileMicros(99.9) / 1000.0)
+                    .put("maxMs", histogram.getMaxMicros() / 1000.0);
+            ObjectNode byStatus = row.putObject("errorsByStatus");
+            errors.get(entry.getKey()).forEach((status, count) -> byStatus.put(String.valueOf(status), count.get()));
+        }
+        
+        long totalRequests = histograms.values().stream().mapToLong(LatencyHistogram::getCount).sum();
+        long totalErrors = errors.values().stream()
+                .flatMap(byStatus -> byStatus.values().stream())
+                .mapToLong(AtomicLong::get)
+                .sum();
+        report.put("totalRequests", totalRequests)
+                .put("totalErrors", totalErrors)
+                .put("throughputPerSecond", (double) totalRequests / durationSeconds);
+        System.out.printf("%-15s %9d %8d %9.1f%n", "total", totalRequests, totalErrors, (double) totalRequests / durationSeconds);
+        backendMetrics.writeTo(report);
+        
+        Path reportFile = Path.of(options.getOrDefault("report-file", "target/loadtest/report.json"));
+        if (reportFile.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        }
+        mapper.writeValue(reportFile.toFile(), report);
+        System.out.println("\nReport written to " + reportFile);
+    }
+    
+    private void printRow(String operation, LatencyHistogram histogram, long errorCount, long durationSeconds) {
+        System.out.printf("%-15s %9d %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                operation,
+                histogram.getCount(),
+                errorCount,
+                (double) histogram.getCount() / durationSeconds,
+                histogram.percentileMicros(50) / 1000.0,
+                histogram.percentileMicros(99) / 1000.0,
+                histogram.percentileMicros(99.9) / 1000.0,
+                histogram.getMaxMicros() / 1000.0);
+    }
+}
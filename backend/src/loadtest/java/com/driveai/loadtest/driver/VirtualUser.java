@@ -0,0 +1,94 @@
+package com.driveai.loadtest.driver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * One logged-in user of the backend with its own cookie jar and chat session.
+ * Logs in through the real OAuth2 login flow, which the stand-in answers.
+ */
+public class VirtualUser {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final String name;
+    private final String appUrl;
+    private final HttpClient client;
+    
+    private long sessionId;
+    
+    public VirtualUser(String name, String appUrl) {
+        this.name = name;
+        this.appUrl = appUrl;
+        this.client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+    
+    public void login() throws IOException, InterruptedException {
+        // Spring redirects to the stand-in's authorize endpoint...
+        String authorize = redirectLocation(get(appUrl + "/oauth2/authorization/google"), "authorization request");
+        // ...which sends us straight back with a code; login_hint fixes which user we become
+        String callback = redirectLocation(get(authorize + "&login_hint=" + URLEncoder.encode(name, StandardCharsets.UTF_8)),
+                "stand-in authorize");
+        String landing = redirectLocation(get(callback), "login callback");
+        if (landing.contains("error")) {
+            throw new IOException("Login failed for " + name + ": redirected to " + landing);
+        }
+        
+        // The backend creates the users row on first /api/auth/user
+        JsonNode user = MAPPER.readTree(send("GET", "/api/auth/user", null).body());
+        if (!user.path("authenticated").asBoolean()) {
+            throw new IOException("Login failed for " + name + ": " + user);
+        }
+        
+        HttpResponse<String> session = send("POST", "/api/chat/sessions?title=" + URLEncoder.encode("Load test " + name, StandardCharsets.UTF_8), null);
+        sessionId = MAPPER.readTree(session.body()).path("id").asLong();
+    }
+    
+    public HttpResponse<String> send(String method, String path, String jsonBody) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(appUrl + path))
+                .timeout(Duration.ofSeconds(120))
+                .header("Accept", "application/json");
+        if (jsonBody != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(jsonBody));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getSessionId() {
+        return sessionId;
+    }
+    
+    private HttpResponse<String> get(String url) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+    
+    private String redirectLocation(HttpResponse<String> response, String step) throws IOException {
+        if (response.statusCode() / 100 != 3) {
+            throw new IOException(step + " for " + name + " returned " + response.statusCode() + " instead of a redirect");
+        }
+        String location = response.headers().firstValue("Location")
+                .orElseThrow(() -> new IOException(step + " for " + name + " has no Location header"));
+        return location.startsWith("/") ? appUrl + location : location;
+    }
+}
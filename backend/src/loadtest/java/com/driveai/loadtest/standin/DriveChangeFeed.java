@@ -0,0 +1,213 @@
+package com.driveai.loadtest.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Drive change log and push channels: changes.getStartPageToken, changes.list,
+ * changes.watch and channels.stop. Changes are generated at {@code drive.changes-per-minute}
+ * or on demand with {@code POST /drive/v3/standin/changes?fileId=...} (a test hook, not a
+ * Drive API), and each one is POSTed to every open channel like Drive's webhook calls.
+ */
+public class DriveChangeFeed {
+    
+    static final String TRIGGER_PATH = "/drive/v3/standin/changes";
+    
+    // Oldest changes are dropped past this; a page token older than that reads from the oldest kept
+    private static final int MAX_CHANGES = 100_000;
+    
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final NavigableMap<Long, ObjectNode> changes = new ConcurrentSkipListMap<>();
+    private final Map<String, ObjectNode> channels = new ConcurrentHashMap<>();
+    private final AtomicLong nextChange = new AtomicLong(1);
+    private final AtomicLong messageNumbers = new AtomicLong();
+    
+    private final Function<String, ObjectNode> fileMetadata;
+    private final int fileCount;
+    private final double changesPerMinute;
+    private final double removedRate;
+    
+    public DriveChangeFeed(StandInConfig config, Function<String, ObjectNode> fileMetadata) {
+        this.fileMetadata = fileMetadata;
+        this.fileCount = config.getInt("drive.files", 500);
+        this.changesPerMinute = config.getDouble("drive.changes-per-minute", 0);
+        this.removedRate = config.getDouble("drive.changes.removed-rate", 0.05);
+    }
+    
+    /** Starts generating changes, if a rate is configured. */
+    public void start() {
+        if (changesPerMinute <= 0) {
+            return;
+        }
+        long periodMicros = (long) (60_000_000 / changesPerMinute);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "standin-drive-changes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            String fileId = SyntheticResponses.FILE_PREFIX + ThreadLocalRandom.current().nextInt(fileCount);
+            change(fileId, ThreadLocalRandom.current().nextDouble() < removedRate);
+        }, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+    }
+    
+    public boolean handles(String path) {
+        return path.startsWith("/drive/v3/changes") || path.startsWith("/drive/v3/channels") || path.startsWith(TRIGGER_PATH);
+    }
+    
+    public StandInResponse respond(StandInRequest request) throws IOException {
+        String path = request.getPath();
+        if (path.equals(TRIGGER_PATH)) {
+            String fileId = request.getQueryParam("fileId");
+            if (fileId == null || fileId.isBlank()) {
+                fileId = SyntheticResponses.FILE_PREFIX + ThreadLocalRandom.current().nextInt(fileCount);
+            }
+            long position = change(fileId, "true".equals(request.getQueryParam("removed")));
+            return json(mapper.createObjectNode().put("fileId", fileId).put("change", position));
+        }
+        if (path.equals("/drive/v3/changes/startPageToken")) {
+            return json(mapper.createObjectNode().put("startPageToken", String.valueOf(nextChange.get())));
+        }
+        if (path.equals("/drive/v3/changes/watch")) {
+            return watch(request);
+        }
+        if (path.equals("/drive/v3/channels/stop")) {
+            JsonNode channel = mapper.readTree(request.getBody());
+            channels.remove(channel.path("id").asText());
+            return new StandInResponse(204, null, new byte[0]);
+        }
+        if (path.equals("/drive/v3/changes")) {
+            return list(request);
+        }
+        return StandInResponse.json(404, "{\"error\":{\"code\":404,\"message\":\"No stand-in for " + path + "\"}}");
+    }
+    
+    private StandInResponse watch(StandInRequest request) throws IOException {
+        JsonNode requested = mapper.readTree(request.getBody());
+        long expiration = requested.path("expiration").asLong(0);
+        // Like Drive, cap channels at a week
+        long maxExpiration = Instant.now().plus(Duration.ofDays(7)).toEpochMilli();
+        ObjectNode channel = mapper.createObjectNode()
+                .put("kind", "api#channel")
+                .put("id", requested.path("id").asText())
+                .put("resourceId", "standin-changes-" + UUID.randomUUID())
+                .put("resourceUri", "https://www.googleapis.com/drive/v3/changes?alt=json")
+                .put("token", requested.path("token").asText(""))
+                .put("address", requested.path("address").asText())
+                .put("expiration", expiration > 0 ? Math.min(expiration, maxExpiration) : maxExpiration);
+        channels.put(channel.path("id").asText(), channel);
+        
+        notify(channel, "sync");
+        return json(channel);
+    }
+    
+    // Synchronized with change(), so a list never skips a change that is still being added
+    private synchronized StandInResponse list(StandInRequest request) throws IOException {
+        long from = parseLong(request.getQueryParam("pageToken"), nextChange.get());
+        int pageSize = (int) parseLong(request.getQueryParam("pageSize"), 100);
+        
+        ObjectNode page = mapper.createObjectNode().put("kind", "drive#changeList");
+        ArrayNode items = page.putArray("changes");
+        long next = from;
+        for (Map.Entry<Long, ObjectNode> entry : changes.tailMap(from, true).entrySet()) {
+            if (items.size() >= pageSize) {
+                break;
+            }
+            items.add(entry.getValue());
+            next = entry.getKey() + 1;
+        }
+        if (items.size() >= pageSize && changes.ceilingKey(next) != null) {
+            page.put("nextPageToken", String.valueOf(next));
+        } else {
+            page.put("newStartPageToken", String.valueOf(Math.max(next, nextChange.get())));
+        }
+        return json(page);
+    }
+    
+    private synchronized long change(String fileId, boolean removed) {
+        ObjectNode change = mapper.createObjectNode()
+                .put("kind", "drive#change")
+                .put("changeType", "file")
+                .put("fileId", fileId)
+                .put("removed", removed)
+                .put("time", Instant.now().toString());
+        if (!removed) {
+            change.set("file", fileMetadata.apply(fileId)
+                    .put("modifiedTime", Instant.now().toString())
+                    .put("trashed", false));
+        }
+        
+        long position = nextChange.getAndIncrement();
+        changes.put(position, change);
+        while (changes.size() > MAX_CHANGES) {
+            changes.pollFirstEntry();
+        }
+        
+        for (ObjectNode channel : channels.values()) {
+            if (channel.path("expiration").asLong() < System.currentTimeMillis()) {
+                channels.remove(channel.path("id").asText());
+            } else {
+                notify(channel, "change");
+            }
+        }
+        return position;
+    }
+    
+    // Fire-and-forget, like Drive; failed deliveries are only reported
+    private void notify(ObjectNode channel, String state) {
+        HttpRequest notification = HttpRequest.newBuilder(URI.create(channel.path("address").asText()))
+                .timeout(Duration.ofSeconds(10))
+                .header("X-Goog-Channel-ID", channel.path("id").asText())
+                .header("X-Goog-Channel-Token", channel.path("token").asText())
+                .header("X-Goog-Channel-Expiration", Instant.ofEpochMilli(channel.path("expiration").asLong()).toString())
+                .header("X-Goog-Resource-ID", channel.path("resourceId").asText())
+                .header("X-Goog-Resource-URI", channel.path("resourceUri").asText())
+                .header("X-Goog-Resource-State", state)
+                .header("X-Goog-Message-Number", String.valueOf(messageNumbers.incrementAndGet()))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        client.sendAsync(notification, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        System.err.println("Stand-in notification to " + channel.path("address").asText() + " failed: " + error);
+                    } else if (response.statusCode() >= 300) {
+                        System.err.println("Stand-in notification on channel " + channel.path("id").asText()
+                                + " got " + response.statusCode());
+                    }
+                });
+    }
+    
+    private StandInResponse json(ObjectNode node) throws IOException {
+        return StandInResponse.json(200, mapper.writeValueAsString(node));
+    }
+    
+    private static long parseLong(String value, long defaultValue) {
+        try {
+            return value != null ? Long.parseLong(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.driveai.loadtest.standin;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Response delay distribution for one stand-in API, parsed from
+ * {@code none}, {@code fixed:<ms>}, {@code uniform:<min>:<max>} or {@code lognormal:<median>:<sigma>}.
+ */
+public abstract class LatencyModel {
+    
+    public abstract long sampleMillis();
+    
+    public static LatencyModel parse(String spec) {
+        String[] parts = spec.split(":");
+        try {
+            switch (parts[0]) {
+                case "none":
+                    return fixed(0);
+                case "fixed":
+                    return fixed(Long.parseLong(parts[1]));
+                case "uniform":
+                    return uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                case "lognormal":
+                    return logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default:
+                    throw new IllegalArgumentException("Unknown latency model: " + spec);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency spec: " + spec, e);
+        }
+    }
+    
+    static LatencyModel fixed(long millis) {
+        return new LatencyModel() {
+            @Override
+            public long sampleMillis() {
+                return millis;
+            }
+        };
+    }
+    
+    static LatencyModel uniform(long minMillis, long maxMillis) {
+        return new LatencyModel() {
+            @Override
+            public long sampleMillis() {
+                return ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+            }
+        };
+    }
+    
+    /**
+     * Long right tail like real API latencies: sigma 0.5 puts p99 at about 3.2x the median.
+     */
+    static LatencyModel logNormal(double medianMillis, double sigma) {
+        double mu = Math.log(medianMillis);
+        return new LatencyModel() {
+            @Override
+            public long sampleMillis() {
+                return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.driveai.loadtest.standin;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which requests get a 429: a token bucket refilled at {@code perSecond}
+ * (disabled at 0) plus a random {@code errorRate} share of the rest.
+ */
+public class RateLimiter {
+    
+    private final double perSecond;
+    private final int burst;
+    private final double errorRate;
+    
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    
+    public RateLimiter(double perSecond, int burst, double errorRate) {
+        this.perSecond = perSecond;
+        this.burst = Math.max(burst, 1);
+        this.errorRate = errorRate;
+        this.tokens = this.burst;
+    }
+    
+    public boolean tryAcquire() {
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            return false;
+        }
+        if (perSecond <= 0) {
+            return true;
+        }
+        
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * perSecond);
+            lastRefillNanos = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
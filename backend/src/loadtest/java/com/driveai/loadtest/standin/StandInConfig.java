@@ -0,0 +1,71 @@
+package com.driveai.loadtest.standin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Stand-in settings: bundled standin.properties, then an optional file given as the
+ * first argument, then {@code -Dstandin.*} system properties.
+ */
+public final class StandInConfig {
+    
+    private static final String SYSTEM_PREFIX = "standin.";
+    
+    private final Properties properties;
+    
+    private StandInConfig(Properties properties) {
+        this.properties = properties;
+    }
+    
+    public static StandInConfig load(String[] args) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream defaults = StandInConfig.class.getResourceAsStream("/standin.properties")) {
+            if (defaults != null) {
+                properties.load(defaults);
+            }
+        }
+        
+        if (args.length > 0) {
+            try (Reader overrides = Files.newBufferedReader(Path.of(args[0]))) {
+                properties.load(overrides);
+            }
+        }
+        
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(SYSTEM_PREFIX)) {
+                properties.setProperty(name.substring(SYSTEM_PREFIX.length()), System.getProperty(name));
+            }
+        }
+        
+        return new StandInConfig(properties);
+    }
+    
+    public String get(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+    
+    public int getInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+    
+    public double getDouble(String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value.trim());
+    }
+    
+    public LatencyModel latency(String api) {
+        return LatencyModel.parse(get("latency." + api, get("latency.default", "none")));
+    }
+    
+    public RateLimiter rateLimiter(String api) {
+        return new RateLimiter(
+                getDouble("ratelimit." + api + ".per-second", 0),
+                getInt("ratelimit." + api + ".burst", 1),
+                getDouble("ratelimit." + api + ".error-rate", 0));
+    }
+}
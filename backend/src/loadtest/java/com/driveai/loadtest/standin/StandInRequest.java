@@ -0,0 +1,104 @@
+package com.driveai.loadtest.standin;
+
+import com.sun.net.httpserver.Headers;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An incoming stand-in request, already classified by which upstream API it emulates.
+ */
+public final class StandInRequest {
+    
+    private final String api;
+    private final String method;
+    private final String path;
+    private final String rawPath;
+    private final String rawQuery;
+    private final Map<String, String> query;
+    private final Headers headers;
+    private final byte[] body;
+    
+    public StandInRequest(String api, String method, String path, String rawPath, String rawQuery,
+                          Headers headers, byte[] body) {
+        this.api = api;
+        this.method = method;
+        this.path = path;
+        this.rawPath = rawPath;
+        this.rawQuery = rawQuery;
+        this.query = parseForm(rawQuery);
+        this.headers = headers;
+        this.body = body;
+    }
+    
+    /**
+     * Maps a path to the API it belongs to, or null. Google clients keep their
+     * service paths (drive/v3/, v1/documents, v4/spreadsheets) under a shared root URL.
+     */
+    public static String apiFor(String path) {
+        if (path.startsWith("/o/oauth2/") || path.equals("/token") || path.startsWith("/oauth2/")) {
+            return "oauth";
+        } else if (path.startsWith("/drive/v3/")) {
+            return "drive";
+        } else if (path.startsWith("/v1/documents")) {
+            return "docs";
+        } else if (path.startsWith("/v4/spreadsheets")) {
+            return "sheets";
+        } else if (path.startsWith("/v1/chat/completions")) {
+            return "openai";
+        }
+        return null;
+    }
+    
+    static Map<String, String> parseForm(String encoded) {
+        Map<String, String> values = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return values;
+        }
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            values.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+    
+    public String getApi() {
+        return api;
+    }
+    
+    public String getMethod() {
+        return method;
+    }
+    
+    public String getPath() {
+        return path;
+    }
+    
+    public String getRawPath() {
+        return rawPath;
+    }
+    
+    public String getRawQuery() {
+        return rawQuery;
+    }
+    
+    public String getQueryParam(String name) {
+        return query.get(name);
+    }
+    
+    public String getHeader(String name) {
+        return headers.getFirst(name);
+    }
+    
+    public byte[] getBody() {
+        return body;
+    }
+    
+    public String getBodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,53 @@
+package com.driveai.loadtest.standin;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A complete (non-streamed) response produced by the stand-in.
+ */
+public final class StandInResponse {
+    
+    public static final String JSON = "application/json; charset=UTF-8";
+    
+    private final int status;
+    private final String contentType;
+    private final byte[] body;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    
+    public StandInResponse(int status, String contentType, byte[] body) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+    }
+    
+    public static StandInResponse json(int status, String body) {
+        return new StandInResponse(status, JSON, body.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static StandInResponse redirect(String location) {
+        return new StandInResponse(302, null, new byte[0]).header("Location", location);
+    }
+    
+    public StandInResponse header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+    
+    public int getStatus() {
+        return status;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public byte[] getBody() {
+        return body;
+    }
+    
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+}
@@ -0,0 +1,227 @@
+package com.driveai.loadtest.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP stand-in for Google OAuth, Drive, Docs, Sheets and OpenAI chat completions.
+ * Run the backend with the {@code loadtest} profile so every client points here.
+ */
+public class StandInServer implements HttpHandler {
+    
+    private static final List<String> APIS = List.of("oauth", "drive", "docs", "sheets", "openai");
+    
+    private final StandInConfig config;
+    private final String mode;
+    private final SyntheticResponses synthetic;
+    private final TrafficLog trafficLog;
+    private final HttpClient upstreamClient;
+    
+    private final Map<String, LatencyModel> latencies = new ConcurrentHashMap<>();
+    private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> served = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> throttled = new ConcurrentHashMap<>();
+    
+    public StandInServer(StandInConfig config) throws IOException {
+        this.config = config;
+        this.mode = config.get("mode", "synthetic");
+        this.synthetic = new SyntheticResponses(config);
+        
+        Path trafficFile = Path.of(config.get("traffic-file", "target/loadtest/traffic.jsonl"));
+        if ("record".equals(mode)) {
+            this.trafficLog = TrafficLog.forRecording(trafficFile);
+        } else if ("replay".equals(mode)) {
+            this.trafficLog = TrafficLog.forReplay(trafficFile);
+        } else {
+            this.trafficLog = null;
+        }
+        this.upstreamClient = "record".equals(mode)
+                ? HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build()
+                : null;
+        
+        for (String api : APIS) {
+            latencies.put(api, config.latency(api));
+            rateLimiters.put(api, config.rateLimiter(api));
+            served.put(api, new AtomicLong());
+            throttled.put(api, new AtomicLong());
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        StandInConfig config = StandInConfig.load(args);
+        StandInServer standIn = new StandInServer(config);
+        
+        int port = config.getInt("port", 9090);
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/", standIn);
+        // Latency is simulated by sleeping, so every in-flight request needs its own thread
+        server.setExecutor(Executors.newFixedThreadPool(config.getInt("threads", 256)));
+        server.start();
+        standIn.synthetic.startChangeFeed();
+        
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(0);
+            standIn.printSummary();
+        }));
+        System.out.printf("Stand-in listening on http://localhost:%d (mode=%s)%n", port, standIn.mode);
+    }
+    
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String api = StandInRequest.apiFor(path);
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            if (api == null) {
+                send(exchange, StandInResponse.json(404, "{\"error\":{\"code\":404,\"message\":\"Unknown stand-in path\"}}"));
+                return;
+            }
+            
+            StandInRequest request = new StandInRequest(api, exchange.getRequestMethod(), path,
+                    exchange.getRequestURI().getRawPath(), exchange.getRequestURI().getRawQuery(),
+                    exchange.getRequestHeaders(), body);
+            served.get(api).incrementAndGet();
+            
+            // OAuth is always emulated: the browser-style redirect dance can't be proxied
+            if ("record".equals(mode) && !"oauth".equals(api)) {
+                send(exchange, proxyAndRecord(request));
+                return;
+            }
+            
+            if (!rateLimiters.get(api).tryAcquire()) {
+                throttled.get(api).incrementAndGet();
+                send(exchange, synthetic.rateLimited(api)
+                        .header("Retry-After", String.valueOf(config.getInt("ratelimit.retry-after-seconds", 1))));
+                return;
+            }
+            
+            JsonNode recorded = trafficLog != null && !"oauth".equals(api) ? trafficLog.find(request) : null;
+            long delay = recorded != null && "recorded".equals(config.get("replay.latency", "model"))
+                    ? recorded.path("latencyMs").asLong()
+                    : latencies.get(api).sampleMillis();
+            sleep(delay);
+            
+            if (recorded != null) {
+                send(exchange, trafficLog.toResponse(recorded));
+            } else if ("openai".equals(api) && synthetic.isStreamingRequest(request)) {
+                stream(exchange, request);
+            } else {
+                send(exchange, synthetic.respond(request));
+            }
+        } catch (Exception e) {
+            System.err.println("Stand-in error: " + e);
+            try {
+                send(exchange, StandInResponse.json(500, "{\"error\":{\"code\":500,\"message\":\"Stand-in failure\"}}"));
+            } catch (IOException ignored) {
+                // Headers were already sent (e.g. mid-stream); closing the exchange is all that's left
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private void stream(HttpExchange exchange, StandInRequest request) throws IOException {
+        List<String> chunks = synthetic.completionChunks(request, synthetic.completionText(request),
+                config.getInt("openai.stream-chunk-words", 5));
+        long chunkDelay = config.getInt("openai.stream-chunk-delay-ms", 15);
+        
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (String chunk : chunks) {
+                out.write(("data: " + chunk + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                sleep(chunkDelay);
+            }
+        }
+    }
+    
+    private StandInResponse proxyAndRecord(StandInRequest request) throws IOException, InterruptedException {
+        String target = config.get("upstream." + request.getApi(), "") + request.getRawPath()
+                + (request.getRawQuery() != null ? "?" + request.getRawQuery() : "");
+        HttpRequest.Builder upstream = HttpRequest.newBuilder(URI.create(target))
+                .timeout(Duration.ofSeconds(120))
+                .method(request.getMethod(), request.getBody().length > 0
+                        ? HttpRequest.BodyPublishers.ofByteArray(request.getBody())
+                        : HttpRequest.BodyPublishers.noBody());
+        copyHeader(request, upstream, "Content-Type");
+        copyHeader(request, upstream, "Accept");
+        
+        String googleToken = config.get("record.google-bearer-token", "");
+        if (!"openai".equals(request.getApi()) && !googleToken.isEmpty()) {
+            upstream.header("Authorization", "Bearer " + googleToken);
+        } else {
+            copyHeader(request, upstream, "Authorization");
+        }
+        
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response = upstreamClient.send(upstream.build(), HttpResponse.BodyHandlers.ofByteArray());
+        long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        StandInResponse captured = new StandInResponse(response.statusCode(),
+                response.headers().firstValue("Content-Type").orElse(StandInResponse.JSON), response.body());
+        trafficLog.record(request, captured, latencyMillis);
+        return captured;
+    }
+    
+    private void copyHeader(StandInRequest request, HttpRequest.Builder upstream, String name) {
+        String value = request.getHeader(name);
+        if (value != null) {
+            upstream.header(name, value);
+        }
+    }
+    
+    private void send(HttpExchange exchange, StandInResponse response) throws IOException {
+        if (response.getContentType() != null) {
+            exchange.getResponseHeaders().set("Content-Type", response.getContentType());
+        }
+        response.getHeaders().forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        
+        byte[] body = response.getBody();
+        exchange.sendResponseHeaders(response.getStatus(), body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+    
+    private void printSummary() {
+        Map<String, String> summary = new TreeMap<>();
+        for (String api : APIS) {
+            summary.put(api, served.get(api).get() + " requests, " + throttled.get(api).get() + " throttled");
+        }
+        System.out.println("Stand-in summary: " + summary);
+    }
+    
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.driveai.loadtest.standin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generated Google OAuth, Drive, Docs, Sheets and OpenAI chat responses. Content is
+ * deterministic per file id and cached, so the stand-in stays cheap under load.
+ */
+public class SyntheticResponses {
+    
+    static final String FILE_PREFIX = "standin-file-";
+    
+    private static final String[] MIME_TYPES = {
+            "application/vnd.google-apps.document",
+            "application/vnd.google-apps.spreadsheet",
+            "application/pdf",
+            "text/plain",
+            "application/vnd.google-apps.folder"
+    };
+    
+    private static final String[] WORDS = {
+            "quarterly", "revenue", "forecast", "meeting", "notes", "customer", "contract", "renewal",
+            "pipeline", "budget", "invoice", "proposal", "deadline", "review", "summary", "action",
+            "owner", "status", "milestone", "risk", "launch", "hiring", "report", "draft"
+    };
+    
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicLong anonymousUsers = new AtomicLong();
+    private final AtomicLong completionIds = new AtomicLong();
+    private final Map<String, byte[]> documents = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> sheetValues = new ConcurrentHashMap<>();
+    private final DriveChangeFeed changeFeed;
+    
+    private final int fileCount;
+    private final int docBytes;
+    private final int sheetRows;
+    private final int sheetColumns;
+    private final int completionWords;
+    
+    public SyntheticResponses(StandInConfig config) {
+        this.fileCount = config.getInt("drive.files", 500);
+        this.docBytes = config.getInt("doc.bytes", 20_000);
+        this.sheetRows = config.getInt("sheet.rows", 500);
+        this.sheetColumns = config.getInt("sheet.columns", 12);
+        this.completionWords = config.getInt("openai.completion-words", 150);
+        this.changeFeed = new DriveChangeFeed(config, this::fileMetadata);
+    }
+    
+    public void startChangeFeed() {
+        changeFeed.start();
+    }
+    
+    public StandInResponse respond(StandInRequest request) throws IOException {
+        switch (request.getApi()) {
+            case "oauth":
+                return oauth(request);
+            case "drive":
+                return drive(request);
+            case "docs":
+                return docs(request);
+            case "sheets":
+                return sheets(request);
+            case "openai":
+                return StandInResponse.json(200, mapper.writeValueAsString(completion(request, completionText(request))));
+            default:
+                return notFound(request);
+        }
+    }
+    
+    public StandInResponse rateLimited(String api) {
+        if ("openai".equals(api)) {
+            return StandInResponse.json(429,
+                    "{\"error\":{\"message\":\"Rate limit reached (stand-in)\",\"type\":\"requests\",\"code\":\"rate_limit_exceeded\"}}");
+        }
+        return StandInResponse.json(429,
+                "{\"error\":{\"code\":429,\"message\":\"Rate Limit Exceeded (stand-in)\",\"status\":\"RESOURCE_EXHAUSTED\"}}");
+    }
+    
+    // OAuth: authorize redirects straight back, the code doubles as the user id
+    
+    private StandInResponse oauth(StandInRequest request) throws IOException {
+        String path = request.getPath();
+        if (path.startsWith("/o/oauth2/")) {
+            String user = request.getQueryParam("login_hint");
+            if (user == null || user.isBlank()) {
+                user = "user-" + anonymousUsers.incrementAndGet();
+            }
+            String state = request.getQueryParam("state");
+            return StandInResponse.redirect(request.getQueryParam("redirect_uri")
+                    + "?code=" + URLEncoder.encode(user, StandardCharsets.UTF_8)
+                    + "&state=" + URLEncoder.encode(state != null ? state : "", StandardCharsets.UTF_8));
+        }
+        
+        if (path.equals("/token")) {
+            Map<String, String> form = StandInRequest.parseForm(request.getBodyAsString());
+            String user = form.containsKey("code")
+                    ? form.get("code")
+                    : form.getOrDefault("refresh_token", "refresh-anonymous").replaceFirst("^refresh-", "");
+            ObjectNode token = mapper.createObjectNode()
+                    .put("access_token", "standin-" + user)
+                    .put("token_type", "Bearer")
+                    .put("expires_in", 3599)
+                    .put("refresh_token", "refresh-" + user)
+                    .put("scope", "profile email");
+            return StandInResponse.json(200, mapper.writeValueAsString(token));
+        }
+        
+        String authorization = request.getHeader("Authorization");
+        String user = authorization != null && authorization.startsWith("Bearer standin-")
+                ? authorization.substring("Bearer standin-".length())
+                : "anonymous";
+        ObjectNode info = mapper.createObjectNode()
+                .put("id", "standin-" + user)
+                .put("email", user + "@loadtest.local")
+                .put("name", "Load Test " + user)
+                .put("verified_email", true);
+        return StandInResponse.json(200, mapper.writeValueAsString(info));
+    }
+    
+    // Drive v3: files.list, files.get, alt=media downloads, and the change feed
+    
+    private StandInResponse drive(StandInRequest request) throws IOException {
+        String path = request.getPath();
+        if (changeFeed.handles(path)) {
+            return changeFeed.respond(request);
+        }
+        if (path.equals("/drive/v3/files")) {
+            int pageSize = parseInt(request.getQueryParam("pageSize"), 100);
+            int offset = ThreadLocalRandom.current().nextInt(Math.max(fileCount - pageSize, 1));
+            ArrayNode files = mapper.createArrayNode();
+            for (int i = offset; i < Math.min(offset + pageSize, fileCount); i++) {
+                files.add(fileMetadata(FILE_PREFIX + i));
+            }
+            ObjectNode list = mapper.createObjectNode();
+            list.set("files", files);
+            return StandInResponse.json(200, mapper.writeValueAsString(list));
+        }
+        
+        if (path.startsWith("/drive/v3/files/")) {
+            String fileId = path.substring("/drive/v3/files/".length());
+            if ("media".equals(request.getQueryParam("alt"))) {
+                return new StandInResponse(200, "text/plain; charset=UTF-8", documentText(fileId).getBytes(StandardCharsets.UTF_8));
+            }
+            return StandInResponse.json(200, mapper.writeValueAsString(fileMetadata(fileId)));
+        }
+        
+        return notFound(request);
+    }
+    
+    private ObjectNode fileMetadata(String fileId) {
+        int index = fileIndex(fileId);
+        String mimeType = MIME_TYPES[Math.floorMod(index, MIME_TYPES.length)];
+        ObjectNode file = mapper.createObjectNode()
+                .put("id", fileId)
+                .put("name", WORDS[Math.floorMod(index, WORDS.length)] + " " + index)
+                .put("mimeType", mimeType)
+                .put("modifiedTime", Instant.now().minusSeconds(Math.floorMod(index * 7919L, 10_000_000L)).toString())
+                .put("webViewLink", "https://docs.google.com/document/d/" + fileId + "/edit");
+        if (!mimeType.endsWith("folder")) {
+            file.put("size", String.valueOf(docBytes));
+        }
+        file.putArray("parents").add("root");
+        return file;
+    }
+    
+    // Docs v1: documents.get
+    
+    private StandInResponse docs(StandInRequest request) {
+        String documentId = request.getPath().substring("/v1/documents/".length());
+        byte[] body = documents.computeIfAbsent(documentId, this::documentJson);
+        return new StandInResponse(200, StandInResponse.JSON, body);
+    }
+    
+    private byte[] documentJson(String documentId) {
+        Random random = new Random(documentId.hashCode());
+        ObjectNode document = mapper.createObjectNode().put("documentId", documentId).put("title", "Document " + documentId);
+        ArrayNode content = document.putObject("body").putArray("content");
+        int written = 0;
+        while (written < docBytes) {
+            String text = sentence(random, 12 + random.nextInt(20)) + "\n";
+            content.addObject().putObject("paragraph").putArray("elements")
+                    .addObject().putObject("textRun").put("content", text);
+            written += text.length();
+        }
+        return toBytes(document);
+    }
+    
+    // Sheets v4: spreadsheets.get and spreadsheets.values.get
+    
+    private StandInResponse sheets(StandInRequest request) throws IOException {
+        String rest = request.getPath().substring("/v4/spreadsheets/".length());
+        int valuesAt = rest.indexOf("/values/");
+        if (valuesAt < 0) {
+            ObjectNode spreadsheet = mapper.createObjectNode().put("spreadsheetId", rest);
+            spreadsheet.putArray("sheets").addObject().putObject("properties").put("title", "Sheet1").put("sheetId", 0);
+            return StandInResponse.json(200, mapper.writeValueAsString(spreadsheet));
+        }
+        
+        String spreadsheetId = rest.substring(0, valuesAt);
+        byte[] body = sheetValues.computeIfAbsent(spreadsheetId, this::valueRangeJson);
+        return new StandInResponse(200, StandInResponse.JSON, body);
+    }
+    
+    private byte[] valueRangeJson(String spreadsheetId) {
+        Random random = new Random(spreadsheetId.hashCode());
+        ObjectNode range = mapper.createObjectNode().put("range", "Sheet1!A1:Z" + sheetRows).put("majorDimension", "ROWS");
+        ArrayNode values = range.putArray("values");
+        for (int r = 0; r < sheetRows; r++) {
+            ArrayNode row = values.addArray();
+            for (int c = 0; c < sheetColumns; c++) {
+                row.add(random.nextInt(3) == 0
+                        ? String.valueOf(random.nextInt(100_000))
+                        : WORDS[random.nextInt(WORDS.length)]);
+            }
+        }
+        return toBytes(range);
+    }
+    
+    // OpenAI chat completions
+    
+    public ObjectNode completion(StandInRequest request, String content) throws IOException {
+        ObjectNode completion = mapper.createObjectNode()
+                .put("id", "chatcmpl-standin-" + completionIds.incrementAndGet())
+                .put("object", "chat.completion")
+                .put("created", Instant.now().getEpochSecond())
+                .put("model", requestedModel(request));
+        ObjectNode choice = completion.putArray("choices").addObject().put("index", 0).put("finish_reason", "stop");
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        
+        int promptTokens = request.getBody().length / 4;
+        int completionTokens = content.length() / 4;
+        completion.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+        return completion;
+    }
+    
+    /** SSE "data:" payloads for a streamed completion, ending with [DONE]. */
+    public List<String> completionChunks(StandInRequest request, String content, int wordsPerChunk) throws IOException {
+        String id = "chatcmpl-standin-" + completionIds.incrementAndGet();
+        String model = requestedModel(request);
+        long created = Instant.now().getEpochSecond();
+        String[] words = content.split(" ");
+        
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < words.length; i += wordsPerChunk) {
+            String piece = String.join(" ", Arrays.copyOfRange(words, i, Math.min(i + wordsPerChunk, words.length)));
+            chunks.add(mapper.writeValueAsString(chunk(id, model, created, i == 0 ? piece : " " + piece, null)));
+        }
+        chunks.add(mapper.writeValueAsString(chunk(id, model, created, null, "stop")));
+        chunks.add("[DONE]");
+        return chunks;
+    }
+    
+    private ObjectNode chunk(String id, String model, long created, String content, String finishReason) {
+        ObjectNode chunk = mapper.createObjectNode()
+                .put("id", id)
+                .put("object", "chat.completion.chunk")
+                .put("created", created)
+                .put("model", model);
+        ObjectNode choice = chunk.putArray("choices").addObject().put("index", 0);
+        ObjectNode delta = choice.putObject("delta");
+        if (content != null) {
+            delta.put("content", content);
+        }
+        choice.put("finish_reason", finishReason);
+        return chunk;
+    }
+    
+    public boolean isStreamingRequest(StandInRequest request) {
+        try {
+            return mapper.readTree(request.getBody()).path("stream").asBoolean(false);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    public String completionText(StandInRequest request) {
+        return sentence(new Random(request.getBody().length), completionWords).trim();
+    }
+    
+    private String requestedModel(StandInRequest request) {
+        try {
+            return mapper.readTree(request.getBody()).path("model").asText("gpt-4-turbo");
+        } catch (IOException e) {
+            return "gpt-4-turbo";
+        }
+    }
+    
+    // Helpers
+    
+    private String documentText(String fileId) {
+        Random random = new Random(fileId.hashCode());
+        StringBuilder text = new StringBuilder(docBytes + 64);
+        while (text.length() < docBytes) {
+            text.append(sentence(random, 12 + random.nextInt(20))).append('\n');
+        }
+        return text.toString();
+    }
+    
+    private StandInResponse notFound(StandInRequest request) {
+        return StandInResponse.json(404,
+                "{\"error\":{\"code\":404,\"message\":\"No stand-in for " + request.getMethod() + " " + request.getPath() + "\"}}");
+    }
+    
+    private byte[] toBytes(ObjectNode node) {
+        try {
+            return mapper.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize stand-in payload", e);
+        }
+    }
+    
+    private static int fileIndex(String fileId) {
+        if (fileId.startsWith(FILE_PREFIX)) {
+            try {
+                return Integer.parseInt(fileId.substring(FILE_PREFIX.length()));
+            } catch (NumberFormatException e) {
+                // Fall through to the hash
+            }
+        }
+        return Math.abs(fileId.hashCode() % 100_000);
+    }
+    
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+    
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.append(". ").toString();
+    }
+}
@@ -0,0 +1,113 @@
+package com.driveai.loadtest.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Captured upstream exchanges, one JSON object per line. In record mode exchanges
+ * are appended; in replay mode they are served back in capture order per request,
+ * cycling when a request is seen more often than it was recorded.
+ */
+public class TrafficLog {
+    
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path file;
+    
+    private BufferedWriter writer;
+    private final Map<String, List<JsonNode>> exchanges = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new HashMap<>();
+    
+    private TrafficLog(Path file) {
+        this.file = file;
+    }
+    
+    public static TrafficLog forRecording(Path file) throws IOException {
+        TrafficLog log = new TrafficLog(file);
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        log.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return log;
+    }
+    
+    public static TrafficLog forReplay(Path file) throws IOException {
+        TrafficLog log = new TrafficLog(file);
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode exchange = log.mapper.readTree(line);
+            String api = exchange.path("api").asText();
+            String method = exchange.path("method").asText();
+            String path = exchange.path("path").asText();
+            String query = exchange.path("query").asText("");
+            log.exchanges.computeIfAbsent(exactKey(api, method, path, query), k -> new ArrayList<>()).add(exchange);
+            log.exchanges.computeIfAbsent(pathKey(api, method, path), k -> new ArrayList<>()).add(exchange);
+        }
+        log.exchanges.keySet().forEach(key -> log.cursors.put(key, new AtomicInteger()));
+        return log;
+    }
+    
+    public synchronized void record(StandInRequest request, StandInResponse response, long latencyMillis) throws IOException {
+        ObjectNode exchange = mapper.createObjectNode()
+                .put("api", request.getApi())
+                .put("method", request.getMethod())
+                .put("path", request.getPath())
+                .put("query", request.getRawQuery() != null ? request.getRawQuery() : "")
+                .put("status", response.getStatus())
+                .put("contentType", response.getContentType())
+                .put("latencyMs", latencyMillis)
+                .put("body", new String(response.getBody(), StandardCharsets.UTF_8));
+        writer.write(mapper.writeValueAsString(exchange));
+        writer.newLine();
+        writer.flush();
+    }
+    
+    /** The next recorded exchange for this request: exact query match first, then any query on the same path. */
+    public JsonNode find(StandInRequest request) {
+        String query = request.getRawQuery() != null ? request.getRawQuery() : "";
+        JsonNode exchange = next(exactKey(request.getApi(), request.getMethod(), request.getPath(), query));
+        return exchange != null ? exchange : next(pathKey(request.getApi(), request.getMethod(), request.getPath()));
+    }
+    
+    public StandInResponse toResponse(JsonNode exchange) {
+        return new StandInResponse(
+                exchange.path("status").asInt(200),
+                exchange.path("contentType").asText(StandInResponse.JSON),
+                exchange.path("body").asText("").getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    private JsonNode next(String key) {
+        List<JsonNode> candidates = exchanges.get(key);
+        if (candidates == null) {
+            return null;
+        }
+        return candidates.get(Math.floorMod(cursors.get(key).getAndIncrement(), candidates.size()));
+    }
+    
+    private static String exactKey(String api, String method, String path, String query) {
+        return api + " " + method + " " + path + "?" + query;
+    }
+    
+    private static String pathKey(String api, String method, String path) {
+        return api + " " + method + " " + path;
+    }
+}
@@ -2,13 +2,37 @@ package com.driveai;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Arrays;
 
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class DriveAiAgentApplication {
 
+    // Enough for every startup step of this application; later steps are dropped
+    private static final int STARTUP_STEPS = 8192;
+
     public static void main(String[] args) {
-        SpringApplication.run(DriveAiAgentApplication.class, args);
+        SpringApplication application = new SpringApplication(DriveAiAgentApplication.class);
+        // Recorded for StartupReport and /actuator/startup; buffering costs time itself, so
+        // only the faststart profile, which is the one being measured, pays for it
+        if (isProfileActive("faststart", args)) {
+            application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        }
+        application.run(args);
+    }
+
+    // The application's environment does not exist yet, so the profiles are read from the
+    // same sources it will use: arguments, system properties and environment variables
+    private static boolean isProfileActive(String profile, String[] args) {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        return Arrays.asList(environment.getActiveProfiles()).contains(profile);
     }
 }
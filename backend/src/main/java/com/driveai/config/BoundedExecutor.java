@@ -0,0 +1,76 @@
+package com.driveai.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An executor that runs at most a fixed number of tasks at a time, built by
+ * {@link BoundedExecutors}. Tasks beyond the queue capacity are rejected.
+ */
+public final class BoundedExecutor implements Executor {
+    
+    private final Executor executor;
+    private final Runnable shutdown;
+    
+    // Virtual threads only: one permit per running task, and tasks started but not finished
+    private final Semaphore permits;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final int capacity;
+    
+    private BoundedExecutor(Executor executor, Runnable shutdown, Semaphore permits, int capacity) {
+        this.executor = executor;
+        this.shutdown = shutdown;
+        this.permits = permits;
+        this.capacity = capacity;
+    }
+    
+    /** Wraps a fixed-size pool, which bounds concurrency and queueing itself. */
+    static BoundedExecutor pooled(Executor pool, Runnable shutdown) {
+        return new BoundedExecutor(pool, shutdown, null, Integer.MAX_VALUE);
+    }
+    
+    /** Starts each task on its own thread, where it waits for one of {@code concurrency} permits. */
+    static BoundedExecutor perTask(Executor threadPerTask, Runnable shutdown, int concurrency, int queueCapacity) {
+        int capacity = (int) Math.min((long) concurrency + queueCapacity, Integer.MAX_VALUE);
+        return new BoundedExecutor(threadPerTask, shutdown, new Semaphore(concurrency), capacity);
+    }
+    
+    @Override
+    public void execute(Runnable task) {
+        if (permits == null) {
+            executor.execute(task);
+            return;
+        }
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            throw new RejectedExecutionException("Executor is at capacity (" + capacity + " tasks)");
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    // Shutting down
+                    pending.decrementAndGet();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                    pending.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+    
+    public void shutdown() {
+        shutdown.run();
+    }
+}
@@ -0,0 +1,54 @@
+package com.driveai.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the executors that services run blocking work on: Google and OpenAI calls and the
+ * background sweeps. Each runs a limited number of tasks at a time.
+ * <p>
+ * On platform threads (the default) each executor is a fixed pool with a queue. With
+ * {@code spring.threads.virtual.enabled} (Java 21, see the {@code java21} Maven profile)
+ * every task starts on its own virtual thread and waits there for a permit, so a task
+ * blocked on I/O or waiting its turn holds no platform thread. Both get the context
+ * propagating task decorator from the Spring Boot builders.
+ */
+@Component
+public class BoundedExecutors {
+    
+    @Autowired
+    private ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder;
+    
+    @Autowired
+    private SimpleAsyncTaskExecutorBuilder simpleAsyncTaskExecutorBuilder;
+    
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    
+    public BoundedExecutor create(String threadNamePrefix, int concurrency) {
+        return create(threadNamePrefix, concurrency, Integer.MAX_VALUE);
+    }
+    
+    public BoundedExecutor create(String threadNamePrefix, int concurrency, int queueCapacity) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = simpleAsyncTaskExecutorBuilder
+                    .threadNamePrefix(threadNamePrefix)
+                    .virtualThreads(true)
+                    .build();
+            return BoundedExecutor.perTask(executor, executor::close, concurrency, queueCapacity);
+        }
+        ThreadPoolTaskExecutor executor = threadPoolTaskExecutorBuilder
+                .corePoolSize(concurrency)
+                .maxPoolSize(concurrency)
+                .queueCapacity(queueCapacity)
+                .threadNamePrefix(threadNamePrefix)
+                .build();
+        executor.initialize();
+        return BoundedExecutor.pooled(executor, executor::shutdown);
+    }
+}
@@ -0,0 +1,54 @@
+package com.driveai.config;
+
+import com.theokanning.openai.service.OpenAiService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the Google HTTP transport and the OpenAI client, which are lazy so they stay out
+ * of startup, and loads the Google client classes, on a background thread once the
+ * application is ready. Readiness does not wait for them, and usually neither does the
+ * first request that needs one.
+ */
+@Component
+public class ClientWarmup {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClientWarmup.class);
+    
+    @Autowired
+    private ObjectProvider<GoogleClientFactory> googleClientFactory;
+    
+    @Autowired
+    private ObjectProvider<OpenAiService> openAiClient;
+    
+    @Value("${startup.warm-clients:true}")
+    private boolean enabled;
+    
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            // Throwaway clients without a credential: they load the client classes and the transport
+            GoogleClientFactory factory = googleClientFactory.getObject();
+            factory.drive(null);
+            factory.docs(null);
+            factory.sheets(null);
+            openAiClient.getObject();
+            logger.info("External clients created in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            // The first request that needs the client tries again
+            logger.warn("Failed to create external clients: {}", e.getMessage());
+        }
+    }
+}
@@ -9,15 +9,13 @@ import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.services.drive.Drive;
 import com.google.api.services.drive.DriveScopes;
-import com.google.api.services.docs.v1.Docs;
 import com.google.api.services.docs.v1.DocsScopes;
-import com.google.api.services.sheets.v4.Sheets;
 import com.google.api.services.sheets.v4.SheetsScopes;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -26,7 +24,9 @@ import java.security.GeneralSecurityException;
 import java.util.Arrays;
 import java.util.List;
 
+// Every client here is created on first use (see ClientWarmup), not during startup
 @Configuration
+@Lazy
 public class GoogleApiConfig {
     
     @Value("${google.client-id}")
@@ -35,6 +35,10 @@ public class GoogleApiConfig {
     @Value("${google.client-secret}")
     private String clientSecret;
     
+    // Overrides the googleapis.com endpoints, e.g. to point at local stand-ins
+    @Value("${google.api-root-url:}")
+    private String apiRootUrl;
+    
     private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
     private static final String APPLICATION_NAME = "Drive AI Agent";
     
@@ -79,24 +83,9 @@ public class GoogleApiConfig {
                 .build();
     }
     
+    // Drive, Docs and Sheets clients are built per user, around that user's credential
     @Bean
-    public Drive driveService(NetHttpTransport httpTransport) {
-        return new Drive.Builder(httpTransport, JSON_FACTORY, null)
-                .setApplicationName(APPLICATION_NAME)
-                .build();
-    }
-    
-    @Bean
-    public Docs docsService(NetHttpTransport httpTransport) {
-        return new Docs.Builder(httpTransport, JSON_FACTORY, null)
-                .setApplicationName(APPLICATION_NAME)
-                .build();
-    }
-    
-    @Bean
-    public Sheets sheetsService(NetHttpTransport httpTransport) {
-        return new Sheets.Builder(httpTransport, JSON_FACTORY, null)
-                .setApplicationName(APPLICATION_NAME)
-                .build();
+    public GoogleClientFactory googleClientFactory(NetHttpTransport httpTransport) {
+        return new GoogleClientFactory(httpTransport, JSON_FACTORY, APPLICATION_NAME, apiRootUrl);
     }
 }
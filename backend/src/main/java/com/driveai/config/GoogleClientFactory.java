@@ -0,0 +1,56 @@
+package com.driveai.config;
+
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.services.docs.v1.Docs;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.sheets.v4.Sheets;
+
+/**
+ * Builds Drive, Docs and Sheets clients around one user's credential. A client's request
+ * initializer is fixed when it is built, so every user gets clients of their own (see
+ * GoogleCredentialService) and no client is ever shared between users. All of them share
+ * the one HTTP transport.
+ */
+public class GoogleClientFactory {
+    
+    private final NetHttpTransport httpTransport;
+    private final JsonFactory jsonFactory;
+    private final String applicationName;
+    private final String rootUrl;
+    
+    GoogleClientFactory(NetHttpTransport httpTransport, JsonFactory jsonFactory, String applicationName, String rootUrl) {
+        this.httpTransport = httpTransport;
+        this.jsonFactory = jsonFactory;
+        this.applicationName = applicationName;
+        this.rootUrl = rootUrl;
+    }
+    
+    public Drive drive(HttpRequestInitializer credential) {
+        Drive.Builder builder = new Drive.Builder(httpTransport, jsonFactory, credential)
+                .setApplicationName(applicationName);
+        if (!rootUrl.isBlank()) {
+            builder.setRootUrl(rootUrl);
+        }
+        return builder.build();
+    }
+    
+    public Docs docs(HttpRequestInitializer credential) {
+        Docs.Builder builder = new Docs.Builder(httpTransport, jsonFactory, credential)
+                .setApplicationName(applicationName);
+        if (!rootUrl.isBlank()) {
+            builder.setRootUrl(rootUrl);
+        }
+        return builder.build();
+    }
+    
+    public Sheets sheets(HttpRequestInitializer credential) {
+        Sheets.Builder builder = new Sheets.Builder(httpTransport, jsonFactory, credential)
+                .setApplicationName(applicationName);
+        if (!rootUrl.isBlank()) {
+            builder.setRootUrl(rootUrl);
+        }
+        return builder.build();
+    }
+}
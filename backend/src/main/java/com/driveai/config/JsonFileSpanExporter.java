@@ -0,0 +1,79 @@
+package com.driveai.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Appends finished spans to a file, one JSON object per line, for runs without an OTLP
+ * collector. A trace can be pulled back out with e.g. {@code jq 'select(.traceId == "...")'}.
+ */
+public class JsonFileSpanExporter implements SpanExporter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JsonFileSpanExporter.class);
+    
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BufferedWriter writer;
+    
+    public JsonFileSpanExporter(Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+    
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        try {
+            for (SpanData span : spans) {
+                ObjectNode line = mapper.createObjectNode()
+                        .put("traceId", span.getTraceId())
+                        .put("spanId", span.getSpanId())
+                        .put("parentSpanId", span.getParentSpanId())
+                        .put("name", span.getName())
+                        .put("kind", span.getKind().name())
+                        .put("startEpochNanos", span.getStartEpochNanos())
+                        .put("durationMicros", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000)
+                        .put("status", span.getStatus().getStatusCode().name());
+                ObjectNode attributes = line.putObject("attributes");
+                span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+                
+                writer.write(mapper.writeValueAsString(line));
+                writer.newLine();
+            }
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            logger.warn("Failed to write {} spans: {}", spans.size(), e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+    
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+    
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        try {
+            writer.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.driveai.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theokanning.openai.client.OpenAiApi;
 import com.theokanning.openai.service.OpenAiService;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import retrofit2.Retrofit;
 
 import java.time.Duration;
 
@@ -22,9 +27,19 @@ public class OpenAiConfig {
     @Value("${openai.temperature:0.7}")
     private Double temperature;
     
+    @Value("${openai.base-url:https://api.openai.com/}")
+    private String baseUrl;
+    
+    // Created on first use (see ClientWarmup), not during startup
     @Bean
+    @Lazy
     public OpenAiService openAiService() {
-        return new OpenAiService(apiKey, Duration.ofSeconds(60));
+        ObjectMapper mapper = OpenAiService.defaultObjectMapper();
+        OkHttpClient client = OpenAiService.defaultClient(apiKey, Duration.ofSeconds(60));
+        Retrofit retrofit = OpenAiService.defaultRetrofit(client, mapper).newBuilder()
+                .baseUrl(baseUrl)
+                .build();
+        return new OpenAiService(retrofit.create(OpenAiApi.class), client.dispatcher().executorService());
     }
     
     public String getModel() {
@@ -0,0 +1,81 @@
+package com.driveai.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections opened inside a read-only transaction started by an application method
+ * declared {@code @Transactional(readOnly = true)} (see {@link ReplicaReadAspect}) to a
+ * healthy replica (round-robin) and everything else, including Spring Data's inherited
+ * read-only methods called on their own, to the primary. Must be wrapped in a
+ * LazyConnectionDataSourceProxy so the lookup happens after the transaction is marked read-only.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+    
+    public static final String PRIMARY_KEY = "primary";
+    
+    private final List<String> replicaKeys;
+    private final Set<String> unhealthyReplicas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    
+    private static final ThreadLocal<Boolean> replicaReadsAllowed = ThreadLocal.withInitial(() -> false);
+    
+    public ReadReplicaRoutingDataSource(List<String> replicaKeys) {
+        this.replicaKeys = List.copyOf(replicaKeys);
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || !replicaReadsAllowed.get()) {
+            return PRIMARY_KEY;
+        }
+        
+        int size = replicaKeys.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            String key = replicaKeys.get((start + i) % size);
+            if (!unhealthyReplicas.contains(key)) {
+                return key;
+            }
+        }
+        
+        // Every replica is lagging or down; reads fall back to the primary
+        return PRIMARY_KEY;
+    }
+    
+    /** Sets whether this thread's read-only transactions may use a replica; returns the previous setting. */
+    static boolean setReplicaReadsAllowed(boolean allowed) {
+        boolean previous = replicaReadsAllowed.get();
+        replicaReadsAllowed.set(allowed);
+        return previous;
+    }
+    
+    public List<String> getReplicaKeys() {
+        return replicaKeys;
+    }
+    
+    public void markHealthy(String replicaKey) {
+        if (unhealthyReplicas.remove(replicaKey)) {
+            logger.info("Replica {} is back in rotation", replicaKey);
+        }
+    }
+    
+    public void markUnhealthy(String replicaKey, String reason) {
+        if (unhealthyReplicas.add(replicaKey)) {
+            logger.warn("Replica {} removed from rotation: {}", replicaKey, reason);
+        }
+    }
+    
+    public boolean isHealthy(String replicaKey) {
+        return !unhealthyReplicas.contains(replicaKey);
+    }
+}
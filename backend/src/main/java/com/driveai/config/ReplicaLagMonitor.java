@@ -0,0 +1,68 @@
+package com.driveai.config;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Periodically measures replay lag on each replica and takes replicas out of
+ * rotation when they fall too far behind or stop answering.
+ */
+public class ReplicaLagMonitor {
+    
+    // On a non-replica (e.g. a local stand-in) in_recovery is false. Lag is zero when the replica
+    // has replayed everything it received, which says nothing if it has stopped receiving, so
+    // whether its WAL receiver is streaming is checked too
+    private static final String LAG_QUERY =
+            "SELECT pg_is_in_recovery() AS in_recovery, " +
+            "EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') AS streaming, " +
+            "CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END AS lag";
+    
+    private final ReadReplicaRoutingDataSource routingDataSource;
+    private final Map<String, DataSource> replicas;
+    private final double maxLagSeconds;
+    
+    public ReplicaLagMonitor(ReadReplicaRoutingDataSource routingDataSource,
+                             Map<String, DataSource> replicas,
+                             double maxLagSeconds) {
+        this.routingDataSource = routingDataSource;
+        this.replicas = replicas;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+    
+    @Scheduled(fixedDelayString = "${db-replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            String key = replica.getKey();
+            try (Connection connection = replica.getValue().getConnection();
+                 Statement statement = connection.createStatement()) {
+                
+                statement.setQueryTimeout(2);
+                try (ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                    rs.next();
+                    double lag = rs.getDouble("lag");
+                    boolean lagUnknown = rs.wasNull();
+                    if (!rs.getBoolean("in_recovery")) {
+                        routingDataSource.markHealthy(key);
+                    } else if (!rs.getBoolean("streaming")) {
+                        routingDataSource.markUnhealthy(key, "WAL receiver not streaming");
+                    } else if (lagUnknown) {
+                        routingDataSource.markUnhealthy(key, "nothing replayed yet");
+                    } else if (lag <= maxLagSeconds) {
+                        routingDataSource.markHealthy(key);
+                    } else {
+                        routingDataSource.markUnhealthy(key, String.format("replication lag %.1fs", lag));
+                    }
+                }
+                
+            } catch (Exception e) {
+                routingDataSource.markUnhealthy(key, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.driveai.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Marks the calls that may read from a replica: methods of this application declared
+ * {@code @Transactional(readOnly = true)}. Spring Data's inherited repository methods are
+ * read-only transactions too, but they are also what workers use to load a row another
+ * thread just wrote, so on their own they stay on the primary.
+ */
+@Aspect
+public class ReplicaReadAspect {
+    
+    @Around("@annotation(transactional) && within(com.driveai..*)")
+    public Object allowReplica(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        if (!transactional.readOnly()) {
+            return joinPoint.proceed();
+        }
+        boolean previous = ReadReplicaRoutingDataSource.setReplicaReadsAllowed(true);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadReplicaRoutingDataSource.setReplicaReadsAllowed(previous);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.driveai.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured DataSource with a primary/replica router when
+ * {@code db-replicas.enabled=true}. Read-only transactions of methods declared
+ * {@code @Transactional(readOnly = true)} go to replicas, everything else stays on the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "db-replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+    
+    @Value("${db-replicas.urls}")
+    private List<String> replicaUrls;
+    
+    @Value("${db-replicas.username:${spring.datasource.username}}")
+    private String replicaUsername;
+    
+    @Value("${db-replicas.password:${spring.datasource.password}}")
+    private String replicaPassword;
+    
+    @Value("${db-replicas.max-pool-size:10}")
+    private int replicaMaxPoolSize;
+    
+    @Value("${db-replicas.max-lag-seconds:10}")
+    private double maxLagSeconds;
+    
+    private final Map<String, DataSource> replicas = new LinkedHashMap<>();
+    
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        
+        List<String> replicaKeys = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String key = "replica-" + (i + 1);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(key);
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setUsername(replicaUsername);
+            replica.setPassword(replicaPassword);
+            replica.setDriverClassName(properties.getDriverClassName());
+            replica.setMaximumPoolSize(replicaMaxPoolSize);
+            replica.setReadOnly(true);
+            replicas.put(key, replica);
+            replicaKeys.add(key);
+        }
+        
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(ReadReplicaRoutingDataSource.PRIMARY_KEY, primary);
+        
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(replicaKeys);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        return routing;
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource routingDataSource) {
+        // Defers the routing decision until the first statement, after the transaction's read-only flag is set
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+    
+    @Bean
+    public ReplicaReadAspect replicaReadAspect() {
+        return new ReplicaReadAspect();
+    }
+    
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReadReplicaRoutingDataSource routingDataSource) {
+        return new ReplicaLagMonitor(routingDataSource, replicas, maxLagSeconds);
+    }
+}
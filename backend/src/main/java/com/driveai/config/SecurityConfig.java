@@ -1,11 +1,19 @@
 package com.driveai.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.web.DefaultOAuth2AuthorizationRequestResolver;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizationRequestRedirectFilter;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizationRequestResolver;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -17,20 +25,31 @@ import java.util.List;
 @EnableWebSecurity
 public class SecurityConfig {
     
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+    
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, ClientRegistrationRepository clientRegistrationRepository) throws Exception {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
+            // Sessions are kept in the JDBC store (see SessionConfig), not in this JVM
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/api/auth/**", "/login/**", "/oauth2/**", "/error").permitAll()
                 .requestMatchers("/api/public/**").permitAll()
+                // Drive push notifications; authenticated by their channel token
+                .requestMatchers("/api/drive/notifications").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers(new AndRequestMatcher(new AntPathRequestMatcher("/actuator/prometheus"), onManagementPort()))
+                    .permitAll()
                 .anyRequest().authenticated()
             )
             .oauth2Login(oauth2 -> oauth2
                 .loginPage("/login")
+                .authorizationEndpoint(authorization -> authorization
+                    .authorizationRequestResolver(offlineAccessResolver(clientRegistrationRepository))
+                )
                 .defaultSuccessUrl("/", true)
                 .failureUrl("/login?error=true")
             )
@@ -44,6 +63,20 @@ public class SecurityConfig {
         return http.build();
     }
     
+    // Metrics are only open to the scraper on the management port; on the public port they need a login
+    private RequestMatcher onManagementPort() {
+        return request -> request.getLocalPort() == managementPort;
+    }
+    
+    // Asks Google for a refresh token, so GoogleCredentialService can renew access tokens in the background
+    private OAuth2AuthorizationRequestResolver offlineAccessResolver(ClientRegistrationRepository clientRegistrationRepository) {
+        DefaultOAuth2AuthorizationRequestResolver resolver = new DefaultOAuth2AuthorizationRequestResolver(
+                clientRegistrationRepository, OAuth2AuthorizationRequestRedirectFilter.DEFAULT_AUTHORIZATION_REQUEST_BASE_URI);
+        resolver.setAuthorizationRequestCustomizer(request -> request
+                .additionalParameters(parameters -> parameters.put("access_type", "offline")));
+        return resolver;
+    }
+    
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -0,0 +1,57 @@
+package com.driveai.config;
+
+import com.driveai.model.CompressedTextConverter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.security.jackson2.SecurityJackson2Modules;
+
+/**
+ * Serialization of HTTP session attributes in the JDBC session store. Instead of Java
+ * serialization, attributes (the security context, a pending OAuth2 authorization request,
+ * the saved request) are written as JSON through Spring Security's Jackson modules, which
+ * only accept allow-listed types, and compressed with the same format as stored file content.
+ * <p>
+ * Spring Session reads all attribute rows with the session but deserializes each one on
+ * first access, so a request that never touches an attribute never decodes it.
+ */
+@Configuration
+public class SessionConfig implements BeanClassLoaderAware {
+    
+    private ClassLoader classLoader;
+    
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+    
+    // Picked up by name by Spring Session's JDBC configuration
+    @Bean("springSessionConversionService")
+    public ConversionService springSessionConversionService() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModules(SecurityJackson2Modules.getModules(classLoader));
+        CompressedTextConverter compression = new CompressedTextConverter();
+        
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, attribute -> {
+            try {
+                return compression.convertToDatabaseColumn(objectMapper.writeValueAsString(attribute));
+            } catch (JsonProcessingException e) {
+                throw new SerializationFailedException("Failed to serialize session attribute", e);
+            }
+        });
+        conversionService.addConverter(byte[].class, Object.class, bytes -> {
+            try {
+                return objectMapper.readValue(compression.convertToEntityAttribute(bytes), Object.class);
+            } catch (JsonProcessingException e) {
+                throw new SerializationFailedException("Failed to deserialize session attribute", e);
+            }
+        });
+        return conversionService;
+    }
+}
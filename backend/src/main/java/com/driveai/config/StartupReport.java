@@ -0,0 +1,85 @@
+package com.driveai.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Logs where startup time went once the application is ready: the startup phases, the
+ * phases of the context refresh, and the slowest bean creations. The same steps are
+ * available in full from {@code /actuator/startup} when that endpoint is exposed. Steps are
+ * only recorded with the faststart profile; otherwise nothing is logged.
+ */
+@Component
+public class StartupReport {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StartupReport.class);
+    
+    private static final String REFRESH_STEP = "spring.context.refresh";
+    private static final String BEAN_STEP = "spring.beans.instantiate";
+    
+    @Value("${startup.report.slowest-beans:15}")
+    private int slowestBeans;
+    
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        List<StartupTimeline.TimelineEvent> events = startup.getBufferedTimeline().getEvents();
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Ready in %d ms, %d ms after JVM start",
+                event.getTimeTaken().toMillis(), ManagementFactory.getRuntimeMXBean().getUptime()));
+        
+        Long refreshId = null;
+        for (StartupTimeline.TimelineEvent step : events) {
+            if (step.getStartupStep().getParentId() == null) {
+                appendStep(report, "  ", step);
+                if (REFRESH_STEP.equals(step.getStartupStep().getName())) {
+                    refreshId = step.getStartupStep().getId();
+                }
+            }
+        }
+        for (StartupTimeline.TimelineEvent step : events) {
+            if (refreshId != null && refreshId.equals(step.getStartupStep().getParentId())
+                    && !BEAN_STEP.equals(step.getStartupStep().getName())) {
+                appendStep(report, "    " + REFRESH_STEP + " > ", step);
+            }
+        }
+        
+        // Durations include the beans each one pulled in
+        report.append(String.format("%n  slowest beans:"));
+        events.stream()
+                .filter(step -> BEAN_STEP.equals(step.getStartupStep().getName()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(slowestBeans)
+                .forEach(step -> report.append(String.format("%n    %-60s %6d ms",
+                        tag(step.getStartupStep(), "beanName"), step.getDuration().toMillis())));
+        
+        logger.info("Startup report: {}", report);
+    }
+    
+    private static void appendStep(StringBuilder report, String prefix, StartupTimeline.TimelineEvent step) {
+        report.append(String.format("%n%s%-60s %6d ms", prefix, step.getStartupStep().getName(), step.getDuration().toMillis()));
+    }
+    
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
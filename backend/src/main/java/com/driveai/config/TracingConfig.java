@@ -0,0 +1,52 @@
+package com.driveai.config;
+
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Span export and context propagation. Spans go to an OTLP/HTTP collector
+ * ({@code tracing.exporter=otlp}, the default), to a JSON-lines file ({@code file}) or
+ * nowhere ({@code none}); which requests are sampled is set by
+ * {@code management.tracing.sampling.probability}.
+ */
+@Configuration
+public class TracingConfig {
+    
+    @Value("${tracing.otlp.endpoint:http://localhost:4318/v1/traces}")
+    private String otlpEndpoint;
+    
+    @Value("${tracing.file.path:logs/traces.jsonl}")
+    private String filePath;
+    
+    /**
+     * Carries the current observation (and so the trace) into tasks run on the
+     * auto-configured executor, i.e. every {@code @Async} method.
+     */
+    @Bean
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        return new ContextPropagatingTaskDecorator();
+    }
+    
+    // Replaces Spring Boot's own OTLP exporter so that export can be switched off by property
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "otlp", matchIfMissing = true)
+    public OtlpHttpSpanExporter otlpHttpSpanExporter() {
+        return OtlpHttpSpanExporter.builder()
+                .setEndpoint(otlpEndpoint)
+                .build();
+    }
+    
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "file")
+    public JsonFileSpanExporter jsonFileSpanExporter() throws IOException {
+        return new JsonFileSpanExporter(Path.of(filePath));
+    }
+}
@@ -0,0 +1,54 @@
+package com.driveai.config;
+
+import com.driveai.model.User;
+import com.driveai.repository.UserRepository;
+import com.driveai.service.GoogleCredentialService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the tokens from a Google sign-in on the user's row, where GoogleCredentialService
+ * refreshes them in the background and every instance can read them. Nothing loads authorized
+ * clients back through Spring Security; Google calls go through GoogleCredentialService.
+ */
+@Component
+public class UserTokenAuthorizedClientService implements OAuth2AuthorizedClientService {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private GoogleCredentialService googleCredentialService;
+    
+    @Override
+    public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId, String principalName) {
+        return null;
+    }
+    
+    @Override
+    public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        if (!(principal.getPrincipal() instanceof OAuth2User oauthUser)) {
+            return;
+        }
+        String googleId = oauthUser.getAttribute("id");
+        User user = userRepository.findByGoogleId(googleId)
+                .orElseGet(() -> userRepository.save(
+                        new User(googleId, oauthUser.getAttribute("email"), oauthUser.getAttribute("name"))));
+        
+        OAuth2RefreshToken refreshToken = authorizedClient.getRefreshToken();
+        googleCredentialService.saveTokens(user.getId(),
+                authorizedClient.getAccessToken().getTokenValue(),
+                refreshToken != null ? refreshToken.getTokenValue() : null,
+                authorizedClient.getAccessToken().getExpiresAt());
+    }
+    
+    @Override
+    public void removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        // Tokens stay with the user for background work
+    }
+}
@@ -1,26 +1,53 @@
 package com.driveai.controller;
 
+import com.driveai.dto.ChatMessageDto;
 import com.driveai.dto.ChatRequest;
 import com.driveai.dto.ChatResponse;
+import com.driveai.dto.ChatSessionSummaryDto;
+import com.driveai.dto.ChatTurnStatsDto;
+import com.driveai.dto.PinnedFilesRequest;
+import com.driveai.dto.TurnMetadata;
 import com.driveai.model.ChatMessage;
 import com.driveai.model.ChatSession;
 import com.driveai.model.User;
 import com.driveai.repository.ChatMessageRepository;
 import com.driveai.repository.ChatSessionRepository;
-import com.driveai.repository.UserRepository;
+import com.driveai.service.ChatArchiveService;
+import com.driveai.service.ChatContextService;
+import com.driveai.service.ChatTurnStatsService;
+import com.driveai.service.CurrentUserService;
 import com.driveai.service.OpenAiService;
+import com.driveai.service.PinnedContextService;
+import com.driveai.service.TurnSessionStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.Valid;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/chat")
@@ -29,6 +56,12 @@ public class AiAgentController {
     
     private static final Logger logger = LoggerFactory.getLogger(AiAgentController.class);
     
+    private static final int MAX_SESSION_PAGE_SIZE = 200;
+    
+    private static final int MAX_MESSAGE_PAGE_SIZE = 200;
+    
+    private static final int MAX_STATS_DAYS = 366;
+    
     @Autowired
     private OpenAiService openAiService;
     
@@ -39,39 +72,101 @@ public class AiAgentController {
     private ChatMessageRepository chatMessageRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
+    
+    @Autowired
+    private ChatArchiveService chatArchiveService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ObservationRegistry observationRegistry;
+    
+    @Autowired
+    private ChatTurnStatsService chatTurnStatsService;
+    
+    @Autowired
+    private ChatContextService chatContextService;
+    
+    @Autowired
+    private PinnedContextService pinnedContextService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     @PostMapping("/message")
     public ResponseEntity<?> sendMessage(
             @AuthenticationPrincipal OAuth2User principal,
             @RequestBody ChatRequest request) {
         
+        Timer.Sample turn = Timer.start(meterRegistry);
+        long turnStart = System.nanoTime();
+        String outcome = "success";
         try {
-            User user = getCurrentUser(principal);
+            // Open-in-view gives the request a single Session, so this sees every query of the turn
+            TurnSessionStats sessionStats = new TurnSessionStats();
+            entityManager.unwrap(Session.class).addEventListeners(sessionStats);
+            TurnMetadata turnMetadata = new TurnMetadata();
+            
+            User user = timeStage("resolve_user", () -> getCurrentUser(principal));
             if (user == null) {
+                outcome = "unauthenticated";
                 return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
             }
             
             // Get or create chat session
-            ChatSession session = getOrCreateSession(user, request.getSessionId());
+            ChatSession session = timeStage("load_session", () -> getOrCreateSession(user, request.getSessionId()));
+            
+            // The session's pinned files, usually a stored block, then the other referenced
+            // Drive files, loaded concurrently within the turn's context budget
+            long retrievalStart = System.nanoTime();
+            ChatContextService.FileContext pinnedContext = timeStage("pinned_context",
+                    () -> pinnedContextService.getContext(user, session.getId()));
+            List<String> fileIds = request.getFileIds() != null ? List.of(request.getFileIds()) : List.of();
+            List<String> turnFileIds = fileIds.stream().filter(id -> !pinnedContext.getFileIds().contains(id)).toList();
+            ChatContextService.FileContext fileContext = timeStage("assemble_context",
+                    () -> chatContextService.assemble(user, turnFileIds));
+            List<String> fileReferences = new ArrayList<>(pinnedContext.getFileIds());
+            fileReferences.addAll(fileContext.getFileIds());
             
-            // Save user message
+            // Save user message, with the files its context was built from
             ChatMessage userMessage = new ChatMessage(session, ChatMessage.MessageRole.USER, request.getMessage());
-            userMessage = chatMessageRepository.save(userMessage);
+            if (!fileReferences.isEmpty()) {
+                userMessage.setFileReferences(objectMapper.writeValueAsString(fileReferences));
+            }
+            timeStage("save_user_message", () -> chatMessageRepository.save(userMessage));
             
             // Get conversation history
-            List<ChatMessage> conversationHistory = chatMessageRepository.findBySessionOrderByCreatedAtAsc(session);
+            List<ChatMessage> conversationHistory = timeStage("load_history",
+                    () -> chatMessageRepository.findBySessionOrderByCreatedAtAsc(session));
+            turnMetadata.setRetrievalMs(millisSince(retrievalStart));
             
             // Generate AI response
-            String aiResponse = openAiService.generateResponse(conversationHistory, request.getContext());
+            String context = joinContext(request.getContext(), fileContext.getText());
+            long llmStart = System.nanoTime();
+            String aiResponse = timeStage("generate",
+                    () -> openAiService.generateResponse(conversationHistory, pinnedContext.getText(), context, turnMetadata));
+            turnMetadata.setLlmMs(millisSince(llmStart));
             
-            // Save AI response
-            ChatMessage aiMessage = new ChatMessage(session, ChatMessage.MessageRole.ASSISTANT, aiResponse);
-            aiMessage = chatMessageRepository.save(aiMessage);
+            // Save AI response with the turn's cost and timings so far
+            turnMetadata.setDbMs(sessionStats.getJdbcMillis());
+            turnMetadata.setCacheHits(sessionStats.getCacheHits());
+            turnMetadata.setCacheMisses(sessionStats.getCacheMisses());
+            turnMetadata.setTotalMs(millisSince(turnStart));
+            ChatMessage reply = new ChatMessage(session, ChatMessage.MessageRole.ASSISTANT, aiResponse);
+            reply.setMetadata(objectMapper.writeValueAsString(turnMetadata));
+            ChatMessage aiMessage = timeStage("save_reply", () -> chatMessageRepository.save(reply));
+            recordTurnStats(user, aiMessage, turnMetadata);
             
             // Update session timestamp
-            session.setUpdatedAt(LocalDateTime.now());
-            chatSessionRepository.save(session);
+            timeStage("touch_session", () -> {
+                session.setUpdatedAt(LocalDateTime.now());
+                return chatSessionRepository.save(session);
+            });
             
             ChatResponse response = new ChatResponse(
                 aiMessage.getId(),
@@ -79,30 +174,94 @@ public class AiAgentController {
                 "assistant",
                 aiMessage.getCreatedAt()
             );
+            response.setMetadata(turnMetadata);
+            response.setFileReferences(fileReferences);
             
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            outcome = "invalid";
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
+            outcome = "error";
             logger.error("Error processing chat message: {}", e.getMessage());
             return ResponseEntity.status(500).body(Map.of("error", "Failed to process message: " + e.getMessage()));
+        } finally {
+            turn.stop(meterRegistry.timer("driveai.chat.turn", "outcome", outcome));
         }
     }
     
-    @GetMapping("/sessions")
-    public ResponseEntity<?> getChatSessions(@AuthenticationPrincipal OAuth2User principal) {
+    /**
+     * Chat turn counts, token usage, cache hits and latency percentiles for the current
+     * user, per day and for the whole range (default: the last 30 days).
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> getTurnStats(
+            @AuthenticationPrincipal OAuth2User principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
         try {
             User user = getCurrentUser(principal);
             if (user == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
             }
             
-            List<ChatSession> sessions = chatSessionRepository.findByUserOrderByUpdatedAtDesc(user);
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(29);
+            if (start.isAfter(end) || start.plusDays(MAX_STATS_DAYS).isBefore(end)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Date range must be at most " + MAX_STATS_DAYS + " days"));
+            }
             
+            ChatTurnStatsDto stats = chatTurnStatsService.getStats(user.getId(), start, end);
             return ResponseEntity.ok(Map.of(
-                "sessions", sessions,
-                "count", sessions.size()
+                "from", start,
+                "to", end,
+                "stats", stats
             ));
             
+        } catch (Exception e) {
+            logger.error("Error getting chat turn stats: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to get chat turn stats"));
+        }
+    }
+    
+    @GetMapping("/sessions")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getChatSessions(
+            @AuthenticationPrincipal OAuth2User principal,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeUpdatedAt,
+            @RequestParam(required = false) Long beforeId) {
+        try {
+            User user = getCurrentUser(principal);
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+            }
+            
+            int pageSize = Math.max(1, Math.min(limit, MAX_SESSION_PAGE_SIZE));
+            List<ChatSessionSummaryDto> sessions;
+            if (beforeUpdatedAt != null && beforeId != null) {
+                sessions = chatSessionRepository.findSessionSummariesBefore(user, beforeUpdatedAt, beforeId, Limit.of(pageSize));
+            } else {
+                sessions = chatSessionRepository.findSessionSummaries(user, Limit.of(pageSize));
+            }
+            
+            // A full page means there may be more; hand back the keyset of the last row
+            Map<String, Object> nextCursor = null;
+            if (sessions.size() == pageSize) {
+                ChatSessionSummaryDto last = sessions.get(sessions.size() - 1);
+                nextCursor = Map.of(
+                    "beforeUpdatedAt", last.getUpdatedAt(),
+                    "beforeId", last.getId()
+                );
+            }
+            
+            Map<String, Object> body = new HashMap<>();
+            body.put("sessions", sessions);
+            body.put("count", sessions.size());
+            body.put("nextCursor", nextCursor);
+            return ResponseEntity.ok(body);
+            
         } catch (Exception e) {
             logger.error("Error getting chat sessions: {}", e.getMessage());
             return ResponseEntity.status(500).body(Map.of("error", "Failed to get chat sessions"));
@@ -110,9 +269,15 @@ public class AiAgentController {
     }
     
     @GetMapping("/sessions/{sessionId}/messages")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getSessionMessages(
             @AuthenticationPrincipal OAuth2User principal,
-            @PathVariable Long sessionId) {
+            @PathVariable Long sessionId,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeCreatedAt,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreatedAt,
+            @RequestParam(required = false) Long afterId) {
         
         try {
             User user = getCurrentUser(principal);
@@ -121,16 +286,57 @@ public class AiAgentController {
             }
             
             Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
-            if (sessionOpt.isEmpty() || !sessionOpt.get().getUser().equals(user)) {
+            if (sessionOpt.isEmpty() || !sessionOpt.get().getUser().getId().equals(user.getId())) {
                 return ResponseEntity.status(404).body(Map.of("error", "Session not found"));
             }
+            ChatSession session = sessionOpt.get();
+            
+            int pageSize = Math.max(1, Math.min(limit, MAX_MESSAGE_PAGE_SIZE));
+            List<ChatMessageDto> messages;
+            boolean forward = afterCreatedAt != null && afterId != null;
+            boolean pagedBack = beforeCreatedAt != null && beforeId != null;
+            Optional<List<ChatMessageDto>> restored = session.isArchived()
+                    ? rehydrate(session)
+                    : Optional.empty();
+            if (restored.isPresent()) {
+                // First open after archiving: serve the tail from the restored copy, a replica may not have it yet
+                List<ChatMessageDto> all = restored.get();
+                messages = new ArrayList<>(all.subList(Math.max(0, all.size() - pageSize), all.size()));
+                forward = false;
+                pagedBack = false;
+            } else if (forward) {
+                messages = chatMessageRepository.findMessagesAfter(session, afterCreatedAt, afterId, Limit.of(pageSize));
+            } else {
+                // Tail-first: newest window (or the window before the cursor), then flip to chronological order
+                if (pagedBack) {
+                    messages = chatMessageRepository.findMessagesBefore(session, beforeCreatedAt, beforeId, Limit.of(pageSize));
+                } else {
+                    messages = chatMessageRepository.findLatestMessages(session, Limit.of(pageSize));
+                }
+                Collections.reverse(messages);
+            }
             
-            List<ChatMessage> messages = chatMessageRepository.findBySessionOrderByCreatedAtAsc(sessionOpt.get());
+            // Cursors always point at the window edges in chronological order
+            boolean full = messages.size() == pageSize;
+            Map<String, Object> olderCursor = null;
+            Map<String, Object> newerCursor = null;
+            if (!messages.isEmpty()) {
+                ChatMessageDto first = messages.get(0);
+                ChatMessageDto last = messages.get(messages.size() - 1);
+                if (forward || full) {
+                    olderCursor = Map.of("beforeCreatedAt", first.getCreatedAt(), "beforeId", first.getId());
+                }
+                if (forward ? full : pagedBack) {
+                    newerCursor = Map.of("afterCreatedAt", last.getCreatedAt(), "afterId", last.getId());
+                }
+            }
             
-            return ResponseEntity.ok(Map.of(
-                "messages", messages,
-                "count", messages.size()
-            ));
+            Map<String, Object> body = new HashMap<>();
+            body.put("messages", messages);
+            body.put("count", messages.size());
+            body.put("olderCursor", olderCursor);
+            body.put("newerCursor", newerCursor);
+            return ResponseEntity.ok(body);
             
         } catch (Exception e) {
             logger.error("Error getting session messages: {}", e.getMessage());
@@ -153,7 +359,14 @@ public class AiAgentController {
             ChatSession session = new ChatSession(user, sessionTitle);
             session = chatSessionRepository.save(session);
             
-            return ResponseEntity.ok(session);
+            return ResponseEntity.ok(new ChatSessionSummaryDto(
+                session.getId(),
+                session.getTitle(),
+                session.getCreatedAt(),
+                session.getUpdatedAt(),
+                0L,
+                null
+            ));
             
         } catch (Exception e) {
             logger.error("Error creating chat session: {}", e.getMessage());
@@ -173,7 +386,7 @@ public class AiAgentController {
             }
             
             Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
-            if (sessionOpt.isEmpty() || !sessionOpt.get().getUser().equals(user)) {
+            if (sessionOpt.isEmpty() || !sessionOpt.get().getUser().getId().equals(user.getId())) {
                 return ResponseEntity.status(404).body(Map.of("error", "Session not found"));
             }
             
@@ -187,19 +400,122 @@ public class AiAgentController {
         }
     }
     
-    private User getCurrentUser(OAuth2User principal) {
-        if (principal == null) {
-            return null;
+    @GetMapping("/sessions/{sessionId}/pins")
+    public ResponseEntity<?> getPinnedFiles(
+            @AuthenticationPrincipal OAuth2User principal,
+            @PathVariable Long sessionId) {
+        
+        try {
+            User user = getCurrentUser(principal);
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+            }
+            
+            Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
+            if (sessionOpt.isEmpty() || !sessionOpt.get().getUser().getId().equals(user.getId())) {
+                return ResponseEntity.status(404).body(Map.of("error", "Session not found"));
+            }
+            
+            return ResponseEntity.ok(Map.of("fileIds", pinnedContextService.getPins(sessionId)));
+            
+        } catch (Exception e) {
+            logger.error("Error getting pinned files: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to get pinned files"));
         }
+    }
+    
+    /**
+     * Replaces the files pinned to a session. Their context is built on the next turn and
+     * reused by later turns until one of the files changes. Ids of files the user does not
+     * have are dropped; the response lists the files pinned.
+     */
+    @PutMapping("/sessions/{sessionId}/pins")
+    public ResponseEntity<?> setPinnedFiles(
+            @AuthenticationPrincipal OAuth2User principal,
+            @PathVariable Long sessionId,
+            @Valid @RequestBody PinnedFilesRequest request) {
         
-        String googleId = principal.getAttribute("id");
-        return userRepository.findByGoogleId(googleId).orElse(null);
+        try {
+            User user = getCurrentUser(principal);
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+            }
+            
+            Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
+            if (sessionOpt.isEmpty() || !sessionOpt.get().getUser().getId().equals(user.getId())) {
+                return ResponseEntity.status(404).body(Map.of("error", "Session not found"));
+            }
+            
+            List<String> pinned = pinnedContextService.setPins(user, sessionId, request.getFileIds());
+            return ResponseEntity.ok(Map.of("fileIds", pinned));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error setting pinned files: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to set pinned files"));
+        }
+    }
+    
+    /**
+     * Runs one stage of a chat turn as a {@code driveai.chat.turn.stage} observation, so the p99
+     * of {@code driveai.chat.turn} can be broken down into its parts and a slow turn's trace
+     * shows which stage (and which query or API call beneath it) took the time.
+     */
+    private <T> T timeStage(String stage, Supplier<T> work) {
+        return Observation.createNotStarted("driveai.chat.turn.stage", observationRegistry)
+                .contextualName("chat " + stage)
+                .lowCardinalityKeyValue("stage", stage)
+                .observe(work);
+    }
+    
+    // Accounting must never fail the turn itself
+    private void recordTurnStats(User user, ChatMessage aiMessage, TurnMetadata turnMetadata) {
+        try {
+            LocalDate day = aiMessage.getCreatedAt() != null ? aiMessage.getCreatedAt().toLocalDate() : LocalDate.now();
+            chatTurnStatsService.record(user.getId(), day, turnMetadata);
+        } catch (Exception e) {
+            logger.warn("Failed to record chat turn stats for message {}: {}", aiMessage.getId(), e.getMessage());
+        }
+    }
+    
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+    
+    // Context typed by the user first, then the referenced files
+    private static String joinContext(String requestContext, String fileContext) {
+        if (fileContext.isEmpty()) {
+            return requestContext;
+        }
+        if (requestContext == null || requestContext.isBlank()) {
+            return fileContext;
+        }
+        return requestContext + "\n\n" + fileContext;
+    }
+    
+    private User getCurrentUser(OAuth2User principal) {
+        return currentUserService.getCurrentUser(principal);
+    }
+    
+    /**
+     * Restores an archived session's messages. The restore clears archived_at in its own
+     * transaction, so the copy loaded by this request is cleared too; otherwise saving it
+     * later would write the old value back.
+     */
+    private Optional<List<ChatMessageDto>> rehydrate(ChatSession session) {
+        Optional<List<ChatMessageDto>> restored = chatArchiveService.rehydrate(session.getId());
+        session.setArchivedAt(null);
+        return restored;
     }
     
     private ChatSession getOrCreateSession(User user, Long sessionId) {
         if (sessionId != null) {
             Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
-            if (sessionOpt.isPresent() && sessionOpt.get().getUser().equals(user)) {
+            if (sessionOpt.isPresent() && sessionOpt.get().getUser().getId().equals(user.getId())) {
+                if (sessionOpt.get().isArchived()) {
+                    rehydrate(sessionOpt.get());
+                }
                 return sessionOpt.get();
             }
         }
@@ -2,6 +2,7 @@ package com.driveai.controller;
 
 import com.driveai.model.User;
 import com.driveai.repository.UserRepository;
+import com.driveai.service.CurrentUserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +24,9 @@ public class AuthController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CurrentUserService currentUserService;
+    
     @GetMapping("/user")
     public ResponseEntity<Map<String, Object>> getCurrentUser(@AuthenticationPrincipal OAuth2User principal) {
         if (principal == null) {
@@ -46,6 +50,7 @@ public class AuthController {
                 user.setEmail(email);
                 user.setName(name);
                 userRepository.save(user);
+                currentUserService.evict(googleId);
             }
             
             Map<String, Object> userInfo = Map.of(
@@ -0,0 +1,119 @@
+package com.driveai.controller;
+
+import com.driveai.dto.BulkGenerationJob;
+import com.driveai.dto.BulkGenerationRequest;
+import com.driveai.dto.DocumentGenerationRequest;
+import com.driveai.dto.GeneratedDocumentDto;
+import com.driveai.model.DocumentTemplate;
+import com.driveai.model.User;
+import com.driveai.service.CurrentUserService;
+import com.driveai.service.DocumentGenerationService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/templates")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class DocumentTemplateController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DocumentTemplateController.class);
+    
+    @Autowired
+    private DocumentGenerationService documentGenerationService;
+    
+    @Autowired
+    private CurrentUserService currentUserService;
+    
+    @PostMapping("/{templateId}/documents")
+    public ResponseEntity<?> generateDocument(
+            @AuthenticationPrincipal OAuth2User principal,
+            @PathVariable Long templateId,
+            @Valid @RequestBody DocumentGenerationRequest request) {
+        
+        try {
+            User user = getCurrentUser(principal);
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+            }
+            
+            Optional<DocumentTemplate> template = documentGenerationService.getTemplate(user, templateId);
+            if (template.isEmpty()) {
+                return ResponseEntity.status(404).body(Map.of("error", "Template not found"));
+            }
+            
+            GeneratedDocumentDto document = documentGenerationService.generate(
+                    user, template.get(), request.getTitle(), request.getVariables());
+            return ResponseEntity.ok(document);
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            logger.error("Error generating document from template {}: {}", templateId, e.getMessage());
+            return ResponseEntity.status(502).body(Map.of("error", "Failed to create document: " + e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(503).body(Map.of("error", "Request interrupted"));
+        } catch (Exception e) {
+            logger.error("Unexpected error: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Internal server error"));
+        }
+    }
+    
+    @PostMapping("/{templateId}/bulk-jobs")
+    public ResponseEntity<?> startBulkJob(
+            @AuthenticationPrincipal OAuth2User principal,
+            @PathVariable Long templateId,
+            @Valid @RequestBody BulkGenerationRequest request) {
+        
+        try {
+            User user = getCurrentUser(principal);
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+            }
+            
+            Optional<DocumentTemplate> template = documentGenerationService.getTemplate(user, templateId);
+            if (template.isEmpty()) {
+                return ResponseEntity.status(404).body(Map.of("error", "Template not found"));
+            }
+            
+            BulkGenerationJob job = documentGenerationService.startBulkJob(
+                    user, template.get(), request.getTitleTemplate(), request.getRows());
+            return ResponseEntity.accepted().body(job);
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Unexpected error: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Internal server error"));
+        }
+    }
+    
+    @GetMapping("/bulk-jobs/{jobId}")
+    public ResponseEntity<?> getBulkJob(
+            @AuthenticationPrincipal OAuth2User principal,
+            @PathVariable String jobId) {
+        
+        User user = getCurrentUser(principal);
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+        }
+        
+        return documentGenerationService.getJob(user, jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Job not found")));
+    }
+    
+    private User getCurrentUser(OAuth2User principal) {
+        return currentUserService.getCurrentUser(principal);
+    }
+}
@@ -1,9 +1,15 @@
 package com.driveai.controller;
 
 import com.driveai.dto.DriveFileDto;
+import com.driveai.dto.MultiFileSummaryDto;
+import com.driveai.dto.MultiFileSummaryRequest;
 import com.driveai.model.User;
-import com.driveai.repository.UserRepository;
+import com.driveai.service.AnalysisQueueService;
+import com.driveai.service.CurrentUserService;
+import com.driveai.service.DriveWatchService;
 import com.driveai.service.GoogleDriveService;
+import com.driveai.service.MultiFileSummaryService;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,7 +35,16 @@ public class DriveController {
     private GoogleDriveService googleDriveService;
     
     @Autowired
-    private UserRepository userRepository;
+    private MultiFileSummaryService multiFileSummaryService;
+    
+    @Autowired
+    private AnalysisQueueService analysisQueueService;
+    
+    @Autowired
+    private DriveWatchService driveWatchService;
+    
+    @Autowired
+    private CurrentUserService currentUserService;
     
     @GetMapping("/files")
     public ResponseEntity<?> listFiles(
@@ -178,12 +193,133 @@ public class DriveController {
         }
     }
     
-    private User getCurrentUser(OAuth2User principal) {
-        if (principal == null) {
-            return null;
+    @PostMapping("/summary")
+    public ResponseEntity<?> summarizeFiles(
+            @AuthenticationPrincipal OAuth2User principal,
+            @Valid @RequestBody MultiFileSummaryRequest request) {
+        
+        try {
+            User user = getCurrentUser(principal);
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+            }
+            
+            MultiFileSummaryDto summary = multiFileSummaryService.summarize(user, request.getFileIds());
+            if (summary == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Files not found"));
+            }
+            if (summary.getSummary() == null) {
+                return ResponseEntity.status(422).body(Map.of("error", "No content could be extracted from these files"));
+            }
+            
+            return ResponseEntity.ok(summary);
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            logger.error("Error summarizing files: {}", e.getMessage());
+            return ResponseEntity.status(502).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Unexpected error: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Internal server error"));
+        }
+    }
+    
+    @PostMapping("/analysis")
+    public ResponseEntity<?> queueAnalysis(@AuthenticationPrincipal OAuth2User principal) {
+        try {
+            User user = getCurrentUser(principal);
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+            }
+            
+            int queued = analysisQueueService.enqueueFilesNeedingAnalysis(user);
+            return ResponseEntity.accepted().body(Map.of(
+                "queued", queued,
+                "jobs", analysisQueueService.getStatusCounts(user)
+            ));
+            
+        } catch (Exception e) {
+            logger.error("Unexpected error: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Internal server error"));
+        }
+    }
+    
+    @GetMapping("/analysis")
+    public ResponseEntity<?> getAnalysisStatus(@AuthenticationPrincipal OAuth2User principal) {
+        User user = getCurrentUser(principal);
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
         }
         
-        String googleId = principal.getAttribute("id");
-        return userRepository.findByGoogleId(googleId).orElse(null);
+        return ResponseEntity.ok(Map.of("jobs", analysisQueueService.getStatusCounts(user)));
+    }
+    
+    @PostMapping("/watch")
+    public ResponseEntity<?> watchChanges(@AuthenticationPrincipal OAuth2User principal) {
+        try {
+            User user = getCurrentUser(principal);
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+            }
+            if (!driveWatchService.isEnabled()) {
+                return ResponseEntity.status(409).body(Map.of("error", "Drive push notifications are not configured"));
+            }
+            
+            return ResponseEntity.ok(driveWatchService.watch(user));
+            
+        } catch (IOException e) {
+            logger.error("Error watching Drive changes: {}", e.getMessage());
+            return ResponseEntity.status(502).body(Map.of("error", "Failed to watch Drive changes: " + e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Unexpected error: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Internal server error"));
+        }
+    }
+    
+    @GetMapping("/watch")
+    public ResponseEntity<?> getWatch(@AuthenticationPrincipal OAuth2User principal) {
+        User user = getCurrentUser(principal);
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+        }
+        
+        return driveWatchService.getChannel(user)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Not watching Drive changes")));
+    }
+    
+    @DeleteMapping("/watch")
+    public ResponseEntity<?> unwatchChanges(@AuthenticationPrincipal OAuth2User principal) {
+        User user = getCurrentUser(principal);
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+        }
+        
+        if (!driveWatchService.unwatch(user)) {
+            return ResponseEntity.status(404).body(Map.of("error", "Not watching Drive changes"));
+        }
+        return ResponseEntity.ok(Map.of("message", "Stopped watching Drive changes"));
+    }
+    
+    /**
+     * Drive push-notification webhook; unauthenticated, the channel token identifies the
+     * sender. Answers at once and applies the changes in the background.
+     */
+    @PostMapping("/notifications")
+    public ResponseEntity<Void> receiveNotification(
+            @RequestHeader("X-Goog-Channel-ID") String channelId,
+            @RequestHeader(value = "X-Goog-Channel-Token", required = false) String token,
+            @RequestHeader("X-Goog-Resource-State") String resourceState) {
+        
+        // Anything but a 5xx tells Drive not to retry
+        if (!driveWatchService.handleNotification(channelId, token, resourceState)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().build();
+    }
+    
+    private User getCurrentUser(OAuth2User principal) {
+        return currentUserService.getCurrentUser(principal);
     }
 }
@@ -0,0 +1,167 @@
+package com.driveai.controller;
+
+import com.driveai.dto.GeneratedDocumentDto;
+import com.driveai.dto.MailMergeJobDto;
+import com.driveai.dto.MailMergeRequest;
+import com.driveai.model.DocumentTemplate;
+import com.driveai.model.MailMergeJob;
+import com.driveai.model.User;
+import com.driveai.service.CurrentUserService;
+import com.driveai.service.DocumentGenerationService;
+import com.driveai.service.MailMergeService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/mail-merge")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class MailMergeController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MailMergeController.class);
+    
+    private static final int MAX_ROWS_PAGE = 1000;
+    
+    @Autowired
+    private MailMergeService mailMergeService;
+    
+    @Autowired
+    private DocumentGenerationService documentGenerationService;
+    
+    @Autowired
+    private CurrentUserService currentUserService;
+    
+    @PostMapping("/jobs")
+    public ResponseEntity<?> startJob(
+            @AuthenticationPrincipal OAuth2User principal,
+            @Valid @RequestBody MailMergeRequest request) {
+        
+        try {
+            User user = getCurrentUser(principal);
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+            }
+            
+            Optional<DocumentTemplate> template = documentGenerationService.getTemplate(user, request.getTemplateId());
+            if (template.isEmpty()) {
+                return ResponseEntity.status(404).body(Map.of("error", "Template not found"));
+            }
+            
+            MailMergeJob job = mailMergeService.start(user, template.get(), request);
+            return ResponseEntity.accepted().body(MailMergeJobDto.from(job));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            logger.error("Error reading spreadsheet {}: {}", request.getSpreadsheetId(), e.getMessage());
+            return ResponseEntity.status(502).body(Map.of("error", "Failed to read spreadsheet: " + e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Unexpected error: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Internal server error"));
+        }
+    }
+    
+    @GetMapping("/jobs")
+    public ResponseEntity<?> listJobs(@AuthenticationPrincipal OAuth2User principal) {
+        User user = getCurrentUser(principal);
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+        }
+        
+        List<MailMergeJobDto> jobs = mailMergeService.listJobs(user).stream()
+                .map(MailMergeJobDto::from)
+                .toList();
+        return ResponseEntity.ok(jobs);
+    }
+    
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJob(
+            @AuthenticationPrincipal OAuth2User principal,
+            @PathVariable Long jobId) {
+        
+        User user = getCurrentUser(principal);
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+        }
+        
+        return mailMergeService.getJob(user, jobId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(MailMergeJobDto.from(job)))
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Job not found")));
+    }
+    
+    @GetMapping("/jobs/{jobId}/rows")
+    public ResponseEntity<?> getRows(
+            @AuthenticationPrincipal OAuth2User principal,
+            @PathVariable Long jobId,
+            @RequestParam(defaultValue = "0") int after,
+            @RequestParam(defaultValue = "false") boolean failedOnly,
+            @RequestParam(defaultValue = "100") int limit) {
+        
+        User user = getCurrentUser(principal);
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+        }
+        if (mailMergeService.getJob(user, jobId).isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Job not found"));
+        }
+        
+        List<GeneratedDocumentDto> rows = mailMergeService.getRows(jobId, after, failedOnly,
+                Math.max(1, Math.min(limit, MAX_ROWS_PAGE)));
+        return ResponseEntity.ok(Map.of(
+            "rows", rows,
+            "count", rows.size()
+        ));
+    }
+    
+    @PostMapping("/jobs/{jobId}/pause")
+    public ResponseEntity<?> pauseJob(
+            @AuthenticationPrincipal OAuth2User principal,
+            @PathVariable Long jobId) {
+        
+        User user = getCurrentUser(principal);
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+        }
+        if (mailMergeService.getJob(user, jobId).isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Job not found"));
+        }
+        
+        if (!mailMergeService.pause(jobId)) {
+            return ResponseEntity.status(409).body(Map.of("error", "Job is not queued or running"));
+        }
+        return ResponseEntity.ok(Map.of("message", "Job will pause after the current chunk"));
+    }
+    
+    @PostMapping("/jobs/{jobId}/resume")
+    public ResponseEntity<?> resumeJob(
+            @AuthenticationPrincipal OAuth2User principal,
+            @PathVariable Long jobId) {
+        
+        User user = getCurrentUser(principal);
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+        }
+        if (mailMergeService.getJob(user, jobId).isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Job not found"));
+        }
+        
+        if (!mailMergeService.resume(jobId)) {
+            return ResponseEntity.status(409).body(Map.of("error", "Job is already queued or running"));
+        }
+        return ResponseEntity.accepted().body(Map.of("message", "Job resumed"));
+    }
+    
+    private User getCurrentUser(OAuth2User principal) {
+        return currentUserService.getCurrentUser(principal);
+    }
+}
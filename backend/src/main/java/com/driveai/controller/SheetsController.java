@@ -0,0 +1,64 @@
+package com.driveai.controller;
+
+import com.driveai.dto.SheetsWriteRequest;
+import com.driveai.dto.SheetsWriteResult;
+import com.driveai.model.User;
+import com.driveai.service.CurrentUserService;
+import com.driveai.service.SheetsWriteService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sheets")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class SheetsController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SheetsController.class);
+    
+    @Autowired
+    private SheetsWriteService sheetsWriteService;
+    
+    @Autowired
+    private CurrentUserService currentUserService;
+    
+    @PostMapping("/values")
+    public ResponseEntity<?> writeValues(
+            @AuthenticationPrincipal OAuth2User principal,
+            @Valid @RequestBody SheetsWriteRequest request) {
+        
+        try {
+            User user = getCurrentUser(principal);
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+            }
+            
+            SheetsWriteResult result = sheetsWriteService.write(user, request.getWrites());
+            return ResponseEntity.ok(result);
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            logger.error("Error writing sheet values: {}", e.getMessage());
+            return ResponseEntity.status(502).body(Map.of("error", "Failed to write values: " + e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(503).body(Map.of("error", "Request interrupted"));
+        } catch (Exception e) {
+            logger.error("Unexpected error: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Internal server error"));
+        }
+    }
+    
+    private User getCurrentUser(OAuth2User principal) {
+        return currentUserService.getCurrentUser(principal);
+    }
+}
@@ -0,0 +1,103 @@
+package com.driveai.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Progress of a bulk generation job. Workers fill in per-row results concurrently;
+ * the getters give a consistent-enough snapshot for polling.
+ */
+public class BulkGenerationJob {
+    
+    public enum Status { QUEUED, RUNNING, COMPLETED, COMPLETED_WITH_ERRORS }
+    
+    private final String id = UUID.randomUUID().toString();
+    private final Long userId;
+    private final Long templateId;
+    private final int totalRows;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime finishedAt;
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicReferenceArray<GeneratedDocumentDto> results;
+    
+    // Constructors
+    public BulkGenerationJob(Long userId, Long templateId, int totalRows) {
+        this.userId = userId;
+        this.templateId = templateId;
+        this.totalRows = totalRows;
+        this.results = new AtomicReferenceArray<>(totalRows);
+    }
+    
+    public void recordResult(int row, GeneratedDocumentDto result) {
+        results.set(row, result);
+        if (result.getError() == null) {
+            succeeded.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+    }
+    
+    public void finish() {
+        finishedAt = LocalDateTime.now();
+        status = failed.get() > 0 ? Status.COMPLETED_WITH_ERRORS : Status.COMPLETED;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Long getTemplateId() {
+        return templateId;
+    }
+    
+    public int getTotalRows() {
+        return totalRows;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public int getSucceeded() {
+        return succeeded.get();
+    }
+    
+    public int getFailed() {
+        return failed.get();
+    }
+    
+    // Finished rows only, in row order
+    public List<GeneratedDocumentDto> getResults() {
+        List<GeneratedDocumentDto> finished = new ArrayList<>();
+        for (int i = 0; i < totalRows; i++) {
+            GeneratedDocumentDto result = results.get(i);
+            if (result != null) {
+                finished.add(result);
+            }
+        }
+        return finished;
+    }
+}
@@ -0,0 +1,34 @@
+package com.driveai.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+import java.util.Map;
+
+public class BulkGenerationRequest {
+    
+    private String titleTemplate; // e.g. "Offer letter - {{name}}"; defaults to the template name and row number
+    
+    @NotEmpty(message = "At least one row is required")
+    private List<Map<String, Object>> rows;
+    
+    // Constructors
+    public BulkGenerationRequest() {}
+    
+    // Getters and Setters
+    public String getTitleTemplate() {
+        return titleTemplate;
+    }
+    
+    public void setTitleTemplate(String titleTemplate) {
+        this.titleTemplate = titleTemplate;
+    }
+    
+    public List<Map<String, Object>> getRows() {
+        return rows;
+    }
+    
+    public void setRows(List<Map<String, Object>> rows) {
+        this.rows = rows;
+    }
+}
@@ -0,0 +1,87 @@
+package com.driveai.dto;
+
+import com.driveai.model.ChatMessage;
+
+import java.time.LocalDateTime;
+
+public class ChatMessageDto {
+    
+    private Long id;
+    private String role;
+    private String content;
+    private String fileReferences;
+    private String metadata;
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public ChatMessageDto() {}
+    
+    // Used by the JPQL constructor expressions in ChatMessageRepository
+    public ChatMessageDto(Long id, ChatMessage.MessageRole role, String content,
+                          String fileReferences, String metadata, LocalDateTime createdAt) {
+        this.id = id;
+        this.role = role != null ? role.name().toLowerCase() : null;
+        this.content = content;
+        this.fileReferences = fileReferences;
+        this.metadata = metadata;
+        this.createdAt = createdAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+    
+    public void setRole(String role) {
+        this.role = role;
+    }
+    
+    public String getContent() {
+        return content;
+    }
+    
+    public void setContent(String content) {
+        this.content = content;
+    }
+    
+    public String getFileReferences() {
+        return fileReferences;
+    }
+    
+    public void setFileReferences(String fileReferences) {
+        this.fileReferences = fileReferences;
+    }
+    
+    public String getMetadata() {
+        return metadata;
+    }
+    
+    public void setMetadata(String metadata) {
+        this.metadata = metadata;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "ChatMessageDto{" +
+                "id=" + id +
+                ", role='" + role + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -0,0 +1,88 @@
+package com.driveai.dto;
+
+import java.time.LocalDateTime;
+
+public class ChatSessionSummaryDto {
+    
+    public static final int PREVIEW_LENGTH = 120;
+    
+    private Long id;
+    private String title;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private long messageCount;
+    private String lastMessagePreview;
+    
+    // Constructors
+    public ChatSessionSummaryDto() {}
+    
+    // Used by the JPQL constructor expression in ChatSessionRepository
+    public ChatSessionSummaryDto(Long id, String title, LocalDateTime createdAt, LocalDateTime updatedAt,
+                                 Long messageCount, String lastMessagePreview) {
+        this.id = id;
+        this.title = title;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.messageCount = messageCount != null ? messageCount : 0L;
+        this.lastMessagePreview = lastMessagePreview;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public long getMessageCount() {
+        return messageCount;
+    }
+    
+    public void setMessageCount(long messageCount) {
+        this.messageCount = messageCount;
+    }
+    
+    public String getLastMessagePreview() {
+        return lastMessagePreview;
+    }
+    
+    public void setLastMessagePreview(String lastMessagePreview) {
+        this.lastMessagePreview = lastMessagePreview;
+    }
+    
+    @Override
+    public String toString() {
+        return "ChatSessionSummaryDto{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", updatedAt=" + updatedAt +
+                ", messageCount=" + messageCount +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+package com.driveai.dto;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chat turn totals and latency percentiles for one day, or for a whole date range
+ * when {@code day} is null.
+ */
+public class ChatTurnStatsDto {
+    
+    private LocalDate day;
+    private long turns;
+    private long promptTokens;
+    private long completionTokens;
+    private long cacheHits;
+    private long cacheMisses;
+    // metric (total, retrieval, llm, db) -> avg, p50, p95, p99 in milliseconds
+    private Map<String, Map<String, Long>> latencyMs = new LinkedHashMap<>();
+    // Per-day breakdown; only set on the range total
+    private List<ChatTurnStatsDto> days;
+    
+    // Constructors
+    public ChatTurnStatsDto() {}
+    
+    public ChatTurnStatsDto(LocalDate day) {
+        this.day = day;
+    }
+    
+    // Getters and Setters
+    public LocalDate getDay() {
+        return day;
+    }
+    
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+    
+    public long getTurns() {
+        return turns;
+    }
+    
+    public void setTurns(long turns) {
+        this.turns = turns;
+    }
+    
+    public long getPromptTokens() {
+        return promptTokens;
+    }
+    
+    public void setPromptTokens(long promptTokens) {
+        this.promptTokens = promptTokens;
+    }
+    
+    public long getCompletionTokens() {
+        return completionTokens;
+    }
+    
+    public void setCompletionTokens(long completionTokens) {
+        this.completionTokens = completionTokens;
+    }
+    
+    public long getCacheHits() {
+        return cacheHits;
+    }
+    
+    public void setCacheHits(long cacheHits) {
+        this.cacheHits = cacheHits;
+    }
+    
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+    
+    public void setCacheMisses(long cacheMisses) {
+        this.cacheMisses = cacheMisses;
+    }
+    
+    public Map<String, Map<String, Long>> getLatencyMs() {
+        return latencyMs;
+    }
+    
+    public void setLatencyMs(Map<String, Map<String, Long>> latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+    
+    public List<ChatTurnStatsDto> getDays() {
+        return days;
+    }
+    
+    public void setDays(List<ChatTurnStatsDto> days) {
+        this.days = days;
+    }
+}
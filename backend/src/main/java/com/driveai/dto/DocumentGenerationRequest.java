@@ -0,0 +1,34 @@
+package com.driveai.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class DocumentGenerationRequest {
+    
+    @NotBlank(message = "Title is required")
+    private String title;
+    
+    private Map<String, Object> variables = new HashMap<>();
+    
+    // Constructors
+    public DocumentGenerationRequest() {}
+    
+    // Getters and Setters
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public Map<String, Object> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Object> variables) {
+        this.variables = variables;
+    }
+}
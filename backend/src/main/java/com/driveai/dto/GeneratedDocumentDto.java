@@ -0,0 +1,72 @@
+package com.driveai.dto;
+
+/**
+ * A document created from a template; in a bulk job, one row's outcome, with
+ * {@code error} set instead of the document fields when the row failed.
+ */
+public class GeneratedDocumentDto {
+    
+    private Integer row;
+    private String documentId;
+    private String title;
+    private String webViewLink;
+    private String error;
+    
+    // Constructors
+    public GeneratedDocumentDto() {}
+    
+    public GeneratedDocumentDto(String documentId, String title) {
+        this.documentId = documentId;
+        this.title = title;
+        this.webViewLink = "https://docs.google.com/document/d/" + documentId + "/edit";
+    }
+    
+    public static GeneratedDocumentDto failed(int row, String title, String error) {
+        GeneratedDocumentDto failed = new GeneratedDocumentDto();
+        failed.setRow(row);
+        failed.setTitle(title);
+        failed.setError(error);
+        return failed;
+    }
+    
+    // Getters and Setters
+    public Integer getRow() {
+        return row;
+    }
+    
+    public void setRow(Integer row) {
+        this.row = row;
+    }
+    
+    public String getDocumentId() {
+        return documentId;
+    }
+    
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public String getWebViewLink() {
+        return webViewLink;
+    }
+    
+    public void setWebViewLink(String webViewLink) {
+        this.webViewLink = webViewLink;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
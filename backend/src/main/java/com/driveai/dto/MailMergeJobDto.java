@@ -0,0 +1,151 @@
+package com.driveai.dto;
+
+import com.driveai.model.MailMergeJob;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mail-merge job progress; {@code nextRow} is the first sheet row not yet checkpointed.
+ */
+public class MailMergeJobDto {
+    
+    private Long id;
+    private Long templateId;
+    private String spreadsheetId;
+    private String sheetName;
+    private String templateDocumentId;
+    private String status;
+    private int nextRow;
+    private int createdCount;
+    private int failedCount;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+    
+    // Constructors
+    public MailMergeJobDto() {}
+    
+    public static MailMergeJobDto from(MailMergeJob job) {
+        MailMergeJobDto dto = new MailMergeJobDto();
+        dto.setId(job.getId());
+        dto.setTemplateId(job.getTemplateId());
+        dto.setSpreadsheetId(job.getSpreadsheetId());
+        dto.setSheetName(job.getSheetName());
+        dto.setTemplateDocumentId(job.getTemplateDocumentId());
+        dto.setStatus(job.getStatus().name());
+        dto.setNextRow(job.getNextRow());
+        dto.setCreatedCount(job.getCreatedCount());
+        dto.setFailedCount(job.getFailedCount());
+        dto.setLastError(job.getLastError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        return dto;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getTemplateId() {
+        return templateId;
+    }
+    
+    public void setTemplateId(Long templateId) {
+        this.templateId = templateId;
+    }
+    
+    public String getSpreadsheetId() {
+        return spreadsheetId;
+    }
+    
+    public void setSpreadsheetId(String spreadsheetId) {
+        this.spreadsheetId = spreadsheetId;
+    }
+    
+    public String getSheetName() {
+        return sheetName;
+    }
+    
+    public void setSheetName(String sheetName) {
+        this.sheetName = sheetName;
+    }
+    
+    public String getTemplateDocumentId() {
+        return templateDocumentId;
+    }
+    
+    public void setTemplateDocumentId(String templateDocumentId) {
+        this.templateDocumentId = templateDocumentId;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public int getNextRow() {
+        return nextRow;
+    }
+    
+    public void setNextRow(int nextRow) {
+        this.nextRow = nextRow;
+    }
+    
+    public int getCreatedCount() {
+        return createdCount;
+    }
+    
+    public void setCreatedCount(int createdCount) {
+        this.createdCount = createdCount;
+    }
+    
+    public int getFailedCount() {
+        return failedCount;
+    }
+    
+    public void setFailedCount(int failedCount) {
+        this.failedCount = failedCount;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+    
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
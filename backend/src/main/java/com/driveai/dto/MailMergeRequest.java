@@ -0,0 +1,83 @@
+package com.driveai.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Map;
+
+public class MailMergeRequest {
+    
+    @NotNull(message = "Template ID is required")
+    private Long templateId;
+    
+    @NotBlank(message = "Spreadsheet ID is required")
+    private String spreadsheetId;
+    
+    @NotBlank(message = "Sheet name is required")
+    private String sheetName;
+    
+    private String templateDocumentId; // Google Doc with {{placeholders}} to copy per row
+    private String folderId; // Drive folder for the generated Docs
+    private String titleTemplate; // e.g. "Invoice {{number}}"
+    private Map<String, String> columnMapping; // Header -> template variable, where they differ; "" skips a column
+    
+    // Constructors
+    public MailMergeRequest() {}
+    
+    // Getters and Setters
+    public Long getTemplateId() {
+        return templateId;
+    }
+    
+    public void setTemplateId(Long templateId) {
+        this.templateId = templateId;
+    }
+    
+    public String getSpreadsheetId() {
+        return spreadsheetId;
+    }
+    
+    public void setSpreadsheetId(String spreadsheetId) {
+        this.spreadsheetId = spreadsheetId;
+    }
+    
+    public String getSheetName() {
+        return sheetName;
+    }
+    
+    public void setSheetName(String sheetName) {
+        this.sheetName = sheetName;
+    }
+    
+    public String getTemplateDocumentId() {
+        return templateDocumentId;
+    }
+    
+    public void setTemplateDocumentId(String templateDocumentId) {
+        this.templateDocumentId = templateDocumentId;
+    }
+    
+    public String getFolderId() {
+        return folderId;
+    }
+    
+    public void setFolderId(String folderId) {
+        this.folderId = folderId;
+    }
+    
+    public String getTitleTemplate() {
+        return titleTemplate;
+    }
+    
+    public void setTitleTemplate(String titleTemplate) {
+        this.titleTemplate = titleTemplate;
+    }
+    
+    public Map<String, String> getColumnMapping() {
+        return columnMapping;
+    }
+    
+    public void setColumnMapping(Map<String, String> columnMapping) {
+        this.columnMapping = columnMapping;
+    }
+}
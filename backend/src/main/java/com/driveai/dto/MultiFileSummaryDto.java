@@ -0,0 +1,76 @@
+package com.driveai.dto;
+
+/**
+ * A summary over several Drive files, with how it was put together: how many files had
+ * to be analyzed first, how deep the reduction tree was and how much of it came from cache.
+ */
+public class MultiFileSummaryDto {
+    
+    private String summary;
+    private int fileCount;
+    private int summarizedFiles; // Files that contributed a summary; the rest had no extractable content
+    private int analyzedFiles; // Files analyzed for this request because they had no summary yet
+    private int levels; // Group levels below the final summary
+    private int groups;
+    private int cachedGroups;
+    
+    // Constructors
+    public MultiFileSummaryDto() {}
+    
+    // Getters and Setters
+    public String getSummary() {
+        return summary;
+    }
+    
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+    
+    public int getFileCount() {
+        return fileCount;
+    }
+    
+    public void setFileCount(int fileCount) {
+        this.fileCount = fileCount;
+    }
+    
+    public int getSummarizedFiles() {
+        return summarizedFiles;
+    }
+    
+    public void setSummarizedFiles(int summarizedFiles) {
+        this.summarizedFiles = summarizedFiles;
+    }
+    
+    public int getAnalyzedFiles() {
+        return analyzedFiles;
+    }
+    
+    public void setAnalyzedFiles(int analyzedFiles) {
+        this.analyzedFiles = analyzedFiles;
+    }
+    
+    public int getLevels() {
+        return levels;
+    }
+    
+    public void setLevels(int levels) {
+        this.levels = levels;
+    }
+    
+    public int getGroups() {
+        return groups;
+    }
+    
+    public void setGroups(int groups) {
+        this.groups = groups;
+    }
+    
+    public int getCachedGroups() {
+        return cachedGroups;
+    }
+    
+    public void setCachedGroups(int cachedGroups) {
+        this.cachedGroups = cachedGroups;
+    }
+}
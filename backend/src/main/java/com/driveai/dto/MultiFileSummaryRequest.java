@@ -0,0 +1,24 @@
+package com.driveai.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class MultiFileSummaryRequest {
+    
+    @NotEmpty(message = "At least one file id is required")
+    private List<@NotBlank String> fileIds;
+    
+    // Constructors
+    public MultiFileSummaryRequest() {}
+    
+    // Getters and Setters
+    public List<String> getFileIds() {
+        return fileIds;
+    }
+    
+    public void setFileIds(List<String> fileIds) {
+        this.fileIds = fileIds;
+    }
+}
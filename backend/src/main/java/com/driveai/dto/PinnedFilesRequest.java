@@ -0,0 +1,24 @@
+package com.driveai.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class PinnedFilesRequest {
+    
+    @NotNull(message = "fileIds is required")
+    private List<@NotBlank String> fileIds;
+    
+    // Constructors
+    public PinnedFilesRequest() {}
+    
+    // Getters and Setters
+    public List<String> getFileIds() {
+        return fileIds;
+    }
+    
+    public void setFileIds(List<String> fileIds) {
+        this.fileIds = fileIds;
+    }
+}
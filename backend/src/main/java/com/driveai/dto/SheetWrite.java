@@ -0,0 +1,79 @@
+package com.driveai.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Rows for one sheet. APPEND writes below the last row that has a value in the start
+ * column; OVERWRITE writes from {@code startCell} down.
+ */
+public class SheetWrite {
+    
+    @NotBlank(message = "Spreadsheet ID is required")
+    private String spreadsheetId;
+    
+    @NotBlank(message = "Sheet name is required")
+    private String sheetName;
+    
+    private Mode mode = Mode.APPEND;
+    private String startCell = "A1"; // Top-left cell; only its column is used when appending
+    
+    @NotNull(message = "Rows are required")
+    private List<List<Object>> rows;
+    
+    // Constructors
+    public SheetWrite() {}
+    
+    public SheetWrite(String spreadsheetId, String sheetName, List<List<Object>> rows) {
+        this.spreadsheetId = spreadsheetId;
+        this.sheetName = sheetName;
+        this.rows = rows;
+    }
+    
+    // Getters and Setters
+    public String getSpreadsheetId() {
+        return spreadsheetId;
+    }
+    
+    public void setSpreadsheetId(String spreadsheetId) {
+        this.spreadsheetId = spreadsheetId;
+    }
+    
+    public String getSheetName() {
+        return sheetName;
+    }
+    
+    public void setSheetName(String sheetName) {
+        this.sheetName = sheetName;
+    }
+    
+    public Mode getMode() {
+        return mode;
+    }
+    
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+    
+    public String getStartCell() {
+        return startCell;
+    }
+    
+    public void setStartCell(String startCell) {
+        this.startCell = startCell;
+    }
+    
+    public List<List<Object>> getRows() {
+        return rows;
+    }
+    
+    public void setRows(List<List<Object>> rows) {
+        this.rows = rows;
+    }
+    
+    public enum Mode {
+        APPEND, OVERWRITE
+    }
+}
@@ -0,0 +1,24 @@
+package com.driveai.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class SheetsWriteRequest {
+    
+    @NotEmpty(message = "At least one write is required")
+    private List<@Valid SheetWrite> writes;
+    
+    // Constructors
+    public SheetsWriteRequest() {}
+    
+    // Getters and Setters
+    public List<SheetWrite> getWrites() {
+        return writes;
+    }
+    
+    public void setWrites(List<SheetWrite> writes) {
+        this.writes = writes;
+    }
+}
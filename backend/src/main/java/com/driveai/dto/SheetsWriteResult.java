@@ -0,0 +1,52 @@
+package com.driveai.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a Sheets write: how many batchUpdate calls it took and the A1 range
+ * each coalesced block of rows ended up in.
+ */
+public class SheetsWriteResult {
+    
+    private int requests;
+    private long rows;
+    private long updatedCells;
+    private List<String> ranges = new ArrayList<>();
+    
+    // Constructors
+    public SheetsWriteResult() {}
+    
+    // Getters and Setters
+    public int getRequests() {
+        return requests;
+    }
+    
+    public void setRequests(int requests) {
+        this.requests = requests;
+    }
+    
+    public long getRows() {
+        return rows;
+    }
+    
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+    
+    public long getUpdatedCells() {
+        return updatedCells;
+    }
+    
+    public void setUpdatedCells(long updatedCells) {
+        this.updatedCells = updatedCells;
+    }
+    
+    public List<String> getRanges() {
+        return ranges;
+    }
+    
+    public void setRanges(List<String> ranges) {
+        this.ranges = ranges;
+    }
+}
@@ -0,0 +1,95 @@
+package com.driveai.dto;
+
+/**
+ * Cost and latency of one chat turn, stored as the assistant message's metadata and
+ * rolled up per user and day by ChatTurnStatsService. Timings run from the start of
+ * the request up to the reply being stored.
+ */
+public class TurnMetadata {
+    
+    private String model;
+    private Long promptTokens;
+    private Long completionTokens;
+    private long retrievalMs;
+    private long llmMs;
+    private long dbMs;
+    private long totalMs;
+    private int cacheHits;
+    private int cacheMisses;
+    
+    // Constructors
+    public TurnMetadata() {}
+    
+    // Getters and Setters
+    public String getModel() {
+        return model;
+    }
+    
+    public void setModel(String model) {
+        this.model = model;
+    }
+    
+    public Long getPromptTokens() {
+        return promptTokens;
+    }
+    
+    public void setPromptTokens(Long promptTokens) {
+        this.promptTokens = promptTokens;
+    }
+    
+    public Long getCompletionTokens() {
+        return completionTokens;
+    }
+    
+    public void setCompletionTokens(Long completionTokens) {
+        this.completionTokens = completionTokens;
+    }
+    
+    public long getRetrievalMs() {
+        return retrievalMs;
+    }
+    
+    public void setRetrievalMs(long retrievalMs) {
+        this.retrievalMs = retrievalMs;
+    }
+    
+    public long getLlmMs() {
+        return llmMs;
+    }
+    
+    public void setLlmMs(long llmMs) {
+        this.llmMs = llmMs;
+    }
+    
+    public long getDbMs() {
+        return dbMs;
+    }
+    
+    public void setDbMs(long dbMs) {
+        this.dbMs = dbMs;
+    }
+    
+    public long getTotalMs() {
+        return totalMs;
+    }
+    
+    public void setTotalMs(long totalMs) {
+        this.totalMs = totalMs;
+    }
+    
+    public int getCacheHits() {
+        return cacheHits;
+    }
+    
+    public void setCacheHits(int cacheHits) {
+        this.cacheHits = cacheHits;
+    }
+    
+    public int getCacheMisses() {
+        return cacheMisses;
+    }
+    
+    public void setCacheMisses(int cacheMisses) {
+        this.cacheMisses = cacheMisses;
+    }
+}
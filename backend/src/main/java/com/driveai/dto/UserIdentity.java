@@ -0,0 +1,46 @@
+package com.driveai.dto;
+
+import com.driveai.model.User;
+
+public class UserIdentity {
+    
+    private final Long id;
+    private final String googleId;
+    private final String email;
+    private final String name;
+    
+    public UserIdentity(Long id, String googleId, String email, String name) {
+        this.id = id;
+        this.googleId = googleId;
+        this.email = email;
+        this.name = name;
+    }
+    
+    public static UserIdentity from(User user) {
+        return new UserIdentity(user.getId(), user.getGoogleId(), user.getEmail(), user.getName());
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getGoogleId() {
+        return googleId;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public String toString() {
+        return "UserIdentity{" +
+                "id=" + id +
+                ", googleId='" + googleId + '\'' +
+                '}';
+    }
+}
@@ -3,12 +3,15 @@ package com.driveai.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnTransformer;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+    @Index(name = "idx_chat_messages_session_created", columnList = "session_id, created_at, id")
+})
 public class ChatMessage {
     
     @Id
@@ -30,10 +33,12 @@ public class ChatMessage {
     private String content;
     
     @Column(name = "file_references", columnDefinition = "JSONB")
+    @ColumnTransformer(write = "CAST(? AS JSONB)")
     private String fileReferences; // JSON array of Drive file IDs
     
     @Column(columnDefinition = "JSONB")
-    private String metadata; // Additional metadata like tokens used, processing time, etc.
+    @ColumnTransformer(write = "CAST(? AS JSONB)")
+    private String metadata; // Serialized TurnMetadata on assistant messages: model, tokens, timings, cache hits
     
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
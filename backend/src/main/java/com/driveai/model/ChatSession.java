@@ -9,7 +9,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "chat_sessions")
+@Table(name = "chat_sessions", indexes = {
+    @Index(name = "idx_chat_sessions_user_updated", columnList = "user_id, updated_at DESC, id DESC")
+})
 public class ChatSession {
     
     @Id
@@ -31,6 +33,9 @@ public class ChatSession {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt; // Set while the messages live in chat_session_archives
+    
     @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @OrderBy("createdAt ASC")
     private List<ChatMessage> messages = new ArrayList<>();
@@ -84,6 +89,18 @@ public class ChatSession {
         this.updatedAt = updatedAt;
     }
     
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+    
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+    
+    public boolean isArchived() {
+        return archivedAt != null;
+    }
+    
     public List<ChatMessage> getMessages() {
         return messages;
     }
@@ -0,0 +1,102 @@
+package com.driveai.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "chat_session_archives")
+public class ChatSessionArchive {
+    
+    @Id
+    @Column(name = "session_id")
+    private Long sessionId;
+    
+    @Column(name = "message_count", nullable = false)
+    private int messageCount;
+    
+    @Column(name = "last_message_preview", columnDefinition = "TEXT")
+    private String lastMessagePreview;
+    
+    @Column(name = "uncompressed_bytes", nullable = false)
+    private int uncompressedBytes;
+    
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] payload; // gzip-compressed JSON array of the session's messages
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+    
+    // Constructors
+    public ChatSessionArchive() {}
+    
+    public ChatSessionArchive(Long sessionId, int messageCount, String lastMessagePreview,
+                              int uncompressedBytes, byte[] payload) {
+        this.sessionId = sessionId;
+        this.messageCount = messageCount;
+        this.lastMessagePreview = lastMessagePreview;
+        this.uncompressedBytes = uncompressedBytes;
+        this.payload = payload;
+        this.archivedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public int getMessageCount() {
+        return messageCount;
+    }
+    
+    public void setMessageCount(int messageCount) {
+        this.messageCount = messageCount;
+    }
+    
+    public String getLastMessagePreview() {
+        return lastMessagePreview;
+    }
+    
+    public void setLastMessagePreview(String lastMessagePreview) {
+        this.lastMessagePreview = lastMessagePreview;
+    }
+    
+    public int getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+    
+    public void setUncompressedBytes(int uncompressedBytes) {
+        this.uncompressedBytes = uncompressedBytes;
+    }
+    
+    public byte[] getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+    
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+    
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "ChatSessionArchive{" +
+                "sessionId=" + sessionId +
+                ", messageCount=" + messageCount +
+                ", compressedBytes=" + (payload != null ? payload.length : 0) +
+                ", uncompressedBytes=" + uncompressedBytes +
+                ", archivedAt=" + archivedAt +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package com.driveai.model;
+
+import com.github.luben.zstd.Zstd;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stores large text as BYTEA with a one-byte format header:
+ * 0 = raw UTF-8 (small values and rows copied over from the old TEXT columns),
+ * 1 = zstd, followed by the 4-byte uncompressed length.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+    
+    private static final byte FORMAT_RAW = 0;
+    private static final byte FORMAT_ZSTD = 1;
+    
+    private static final int COMPRESSION_LEVEL = 3;
+    private static final int MIN_COMPRESSIBLE_BYTES = 256;
+    
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+        
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= MIN_COMPRESSIBLE_BYTES) {
+            byte[] compressed = Zstd.compress(raw, COMPRESSION_LEVEL);
+            if (compressed.length + 5 < raw.length) {
+                return ByteBuffer.allocate(compressed.length + 5)
+                        .put(FORMAT_ZSTD)
+                        .putInt(raw.length)
+                        .put(compressed)
+                        .array();
+            }
+        }
+        
+        byte[] stored = new byte[raw.length + 1];
+        stored[0] = FORMAT_RAW;
+        System.arraycopy(raw, 0, stored, 1, raw.length);
+        return stored;
+    }
+    
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        if (stored == null || stored.length == 0) {
+            return null;
+        }
+        
+        if (stored[0] == FORMAT_RAW) {
+            return new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+        }
+        if (stored[0] != FORMAT_ZSTD) {
+            throw new IllegalStateException("Unknown compressed text format: " + stored[0]);
+        }
+        
+        int length = ByteBuffer.wrap(stored, 1, 4).getInt();
+        byte[] raw = new byte[length];
+        long result = Zstd.decompressByteArray(raw, 0, length, stored, 5, stored.length - 5);
+        if (Zstd.isError(result)) {
+            throw new IllegalStateException("Failed to decompress text: " + Zstd.getErrorName(result));
+        }
+        return new String(raw, 0, (int) result, StandardCharsets.UTF_8);
+    }
+}
@@ -2,13 +2,19 @@ package com.driveai.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "document_templates")
+@Table(name = "document_templates", indexes = {
+    @Index(name = "idx_document_templates_user_updated", columnList = "user_id, updated_at DESC")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "document-templates")
 public class DocumentTemplate {
     
     @Id
@@ -2,13 +2,22 @@ package com.driveai.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "drive_files")
+@Table(name = "drive_files", indexes = {
+    @Index(name = "idx_drive_files_user_modified", columnList = "user_id, modified_time DESC")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "drive-files")
+// Metadata syncs and content writes save different columns; writing only the changed ones keeps one from undoing the other
+@DynamicUpdate
 public class DriveFile {
     
     @Id
@@ -33,11 +42,12 @@ public class DriveFile {
     @Column(name = "modified_time")
     private LocalDateTime modifiedTime;
     
-    @Column(name = "content_summary", columnDefinition = "TEXT")
-    private String contentSummary;
+    // Text and summary live in drive_file_contents; these keep listings metadata-only
+    @Column(name = "content_length")
+    private Integer contentLength;
     
-    @Column(name = "content_text", columnDefinition = "TEXT")
-    private String contentText;
+    @Column(name = "summary_available", nullable = false)
+    private boolean summaryAvailable;
     
     @Column(name = "last_analyzed")
     private LocalDateTime lastAnalyzed;
@@ -109,20 +119,20 @@ public class DriveFile {
         this.modifiedTime = modifiedTime;
     }
     
-    public String getContentSummary() {
-        return contentSummary;
+    public Integer getContentLength() {
+        return contentLength;
     }
     
-    public void setContentSummary(String contentSummary) {
-        this.contentSummary = contentSummary;
+    public void setContentLength(Integer contentLength) {
+        this.contentLength = contentLength;
     }
     
-    public String getContentText() {
-        return contentText;
+    public boolean isSummaryAvailable() {
+        return summaryAvailable;
     }
     
-    public void setContentText(String contentText) {
-        this.contentText = contentText;
+    public void setSummaryAvailable(boolean summaryAvailable) {
+        this.summaryAvailable = summaryAvailable;
     }
     
     public LocalDateTime getLastAnalyzed() {
@@ -167,7 +177,7 @@ public class DriveFile {
     }
     
     public boolean needsAnalysis() {
-        return contentSummary == null || 
+        return !summaryAvailable || 
                lastAnalyzed == null || 
                LocalDateTime.now().minusDays(1).isAfter(lastAnalyzed);
     }
@@ -0,0 +1,81 @@
+package com.driveai.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Extracted text and AI summary of a Drive file, kept out of drive_files so
+ * listings never read document bodies. Values are zstd-compressed at rest.
+ */
+@Entity
+@Table(name = "drive_file_contents")
+public class DriveFileContent {
+    
+    @Id
+    @Column(name = "file_id")
+    private String fileId;
+    
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "content_text", columnDefinition = "BYTEA")
+    private String contentText;
+    
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "content_summary", columnDefinition = "BYTEA")
+    private String contentSummary;
+    
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public DriveFileContent() {}
+    
+    public DriveFileContent(String fileId) {
+        this.fileId = fileId;
+    }
+    
+    // Getters and Setters
+    public String getFileId() {
+        return fileId;
+    }
+    
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+    
+    public String getContentText() {
+        return contentText;
+    }
+    
+    public void setContentText(String contentText) {
+        this.contentText = contentText;
+    }
+    
+    public String getContentSummary() {
+        return contentSummary;
+    }
+    
+    public void setContentSummary(String contentSummary) {
+        this.contentSummary = contentSummary;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "DriveFileContent{" +
+                "fileId='" + fileId + '\'' +
+                ", textLength=" + (contentText != null ? contentText.length() : 0) +
+                ", hasSummary=" + (contentSummary != null) +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
@@ -0,0 +1,230 @@
+package com.driveai.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnTransformer;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Sheet-to-Docs mail-merge job. Progress is checkpointed in {@code nextRow} and
+ * per-row outcomes in mail_merge_rows; status, counts and the checkpoint are updated
+ * with conditional statements in {@link com.driveai.repository.MailMergeJobRepository}.
+ */
+@Entity
+@Table(name = "mail_merge_jobs")
+public class MailMergeJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "template_id", nullable = false)
+    private Long templateId;
+    
+    @Column(name = "spreadsheet_id", nullable = false)
+    private String spreadsheetId;
+    
+    @Column(name = "sheet_name", nullable = false)
+    private String sheetName;
+    
+    @Column(name = "template_document_id")
+    private String templateDocumentId; // Google Doc copied per row; null renders templateContent instead
+    
+    @Column(name = "folder_id")
+    private String folderId;
+    
+    @Column(name = "title_template", columnDefinition = "TEXT")
+    private String titleTemplate;
+    
+    @Column(name = "column_variables", nullable = false, columnDefinition = "JSONB")
+    @ColumnTransformer(write = "CAST(? AS JSONB)")
+    private String columnVariables; // JSON array: template variable for each sheet column, null to skip it
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.QUEUED;
+    
+    @Column(name = "next_row", nullable = false)
+    private int nextRow = 2;
+    
+    @Column(name = "created_count", nullable = false)
+    private int createdCount;
+    
+    @Column(name = "failed_count", nullable = false)
+    private int failedCount;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    // Constructors
+    public MailMergeJob() {}
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public Long getTemplateId() {
+        return templateId;
+    }
+    
+    public void setTemplateId(Long templateId) {
+        this.templateId = templateId;
+    }
+    
+    public String getSpreadsheetId() {
+        return spreadsheetId;
+    }
+    
+    public void setSpreadsheetId(String spreadsheetId) {
+        this.spreadsheetId = spreadsheetId;
+    }
+    
+    public String getSheetName() {
+        return sheetName;
+    }
+    
+    public void setSheetName(String sheetName) {
+        this.sheetName = sheetName;
+    }
+    
+    public String getTemplateDocumentId() {
+        return templateDocumentId;
+    }
+    
+    public void setTemplateDocumentId(String templateDocumentId) {
+        this.templateDocumentId = templateDocumentId;
+    }
+    
+    public String getFolderId() {
+        return folderId;
+    }
+    
+    public void setFolderId(String folderId) {
+        this.folderId = folderId;
+    }
+    
+    public String getTitleTemplate() {
+        return titleTemplate;
+    }
+    
+    public void setTitleTemplate(String titleTemplate) {
+        this.titleTemplate = titleTemplate;
+    }
+    
+    public String getColumnVariables() {
+        return columnVariables;
+    }
+    
+    public void setColumnVariables(String columnVariables) {
+        this.columnVariables = columnVariables;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public int getNextRow() {
+        return nextRow;
+    }
+    
+    public void setNextRow(int nextRow) {
+        this.nextRow = nextRow;
+    }
+    
+    public int getCreatedCount() {
+        return createdCount;
+    }
+    
+    public void setCreatedCount(int createdCount) {
+        this.createdCount = createdCount;
+    }
+    
+    public int getFailedCount() {
+        return failedCount;
+    }
+    
+    public void setFailedCount(int failedCount) {
+        this.failedCount = failedCount;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+    
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+    
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+    
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public enum Status {
+        // Waiting for a worker; a worker moves the job to RUNNING when it picks it up
+        QUEUED, RUNNING, PAUSED, COMPLETED, FAILED
+    }
+}
@@ -1,14 +1,19 @@
 package com.driveai.repository;
 
+import com.driveai.dto.ChatMessageDto;
 import com.driveai.model.ChatMessage;
 import com.driveai.model.ChatSession;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+// The plans of the hot queries here are checked by HotQueryPlanTest; a new hot query gets a test there
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     
@@ -23,5 +28,39 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     @Query("SELECT COUNT(cm) FROM ChatMessage cm WHERE cm.session = :session")
     long countBySession(@Param("session") ChatSession session);
     
+    // Message window queries, keyset-paginated on (createdAt, id)
+    String DTO_SELECT = "SELECT new com.driveai.dto.ChatMessageDto(" +
+            "cm.id, cm.role, cm.content, cm.fileReferences, cm.metadata, cm.createdAt) " +
+            "FROM ChatMessage cm ";
+    
+    // Newest first; callers reverse the page for display
+    @Query(DTO_SELECT +
+            "WHERE cm.session = :session ORDER BY cm.createdAt DESC, cm.id DESC")
+    List<ChatMessageDto> findLatestMessages(@Param("session") ChatSession session, Limit limit);
+    
+    @Query(DTO_SELECT +
+            "WHERE cm.session = :session AND (cm.createdAt < :createdAt OR (cm.createdAt = :createdAt AND cm.id < :id)) " +
+            "ORDER BY cm.createdAt DESC, cm.id DESC")
+    List<ChatMessageDto> findMessagesBefore(@Param("session") ChatSession session,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Limit limit);
+    
+    @Query(DTO_SELECT +
+            "WHERE cm.session = :session AND (cm.createdAt > :createdAt OR (cm.createdAt = :createdAt AND cm.id > :id)) " +
+            "ORDER BY cm.createdAt ASC, cm.id ASC")
+    List<ChatMessageDto> findMessagesAfter(@Param("session") ChatSession session,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id,
+                                           Limit limit);
+    
+    @Query(DTO_SELECT +
+            "WHERE cm.session.id = :sessionId ORDER BY cm.createdAt ASC, cm.id ASC")
+    List<ChatMessageDto> findAllMessagesForArchive(@Param("sessionId") Long sessionId);
+    
+    @Modifying
+    @Query("DELETE FROM ChatMessage cm WHERE cm.session.id = :sessionId")
+    int deleteAllBySessionId(@Param("sessionId") Long sessionId);
+    
     void deleteBySession(ChatSession session);
 }
@@ -0,0 +1,9 @@
+package com.driveai.repository;
+
+import com.driveai.model.ChatSessionArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChatSessionArchiveRepository extends JpaRepository<ChatSessionArchive, Long> {
+}
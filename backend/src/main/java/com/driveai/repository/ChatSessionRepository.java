@@ -1,14 +1,22 @@
 package com.driveai.repository;
 
+import com.driveai.dto.ChatSessionSummaryDto;
 import com.driveai.model.ChatSession;
 import com.driveai.model.User;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+// The plans of the hot queries here are checked by HotQueryPlanTest; a new hot query gets a test there
 @Repository
 public interface ChatSessionRepository extends JpaRepository<ChatSession, Long> {
     
@@ -20,5 +28,39 @@ public interface ChatSessionRepository extends JpaRepository<ChatSession, Long>
     @Query("SELECT cs FROM ChatSession cs WHERE cs.user = :user AND cs.title LIKE %:title% ORDER BY cs.updatedAt DESC")
     List<ChatSession> findByUserAndTitleContaining(@Param("user") User user, @Param("title") String title);
     
+    // Sidebar listing: one statement, no entity hydration, keyset-paginated on (updatedAt, id)
+    String SUMMARY_SELECT = "SELECT new com.driveai.dto.ChatSessionSummaryDto(" +
+            "cs.id, cs.title, cs.createdAt, cs.updatedAt, " +
+            "(SELECT COUNT(m) FROM ChatMessage m WHERE m.session = cs) + " +
+            "COALESCE((SELECT a.messageCount FROM ChatSessionArchive a WHERE a.sessionId = cs.id), 0), " +
+            "COALESCE((SELECT SUBSTRING(lm.content, 1, " + ChatSessionSummaryDto.PREVIEW_LENGTH + ") FROM ChatMessage lm " +
+            "WHERE lm.session = cs ORDER BY lm.createdAt DESC, lm.id DESC LIMIT 1), " +
+            "(SELECT a.lastMessagePreview FROM ChatSessionArchive a WHERE a.sessionId = cs.id))) " +
+            "FROM ChatSession cs ";
+    
+    @Query(SUMMARY_SELECT +
+            "WHERE cs.user = :user ORDER BY cs.updatedAt DESC, cs.id DESC")
+    List<ChatSessionSummaryDto> findSessionSummaries(@Param("user") User user, Limit limit);
+    
+    @Query(SUMMARY_SELECT +
+            "WHERE cs.user = :user AND (cs.updatedAt < :updatedAt OR (cs.updatedAt = :updatedAt AND cs.id < :id)) " +
+            "ORDER BY cs.updatedAt DESC, cs.id DESC")
+    List<ChatSessionSummaryDto> findSessionSummariesBefore(@Param("user") User user,
+                                                           @Param("updatedAt") LocalDateTime updatedAt,
+                                                           @Param("id") Long id,
+                                                           Limit limit);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT cs FROM ChatSession cs WHERE cs.id = :id")
+    Optional<ChatSession> findByIdForUpdate(@Param("id") Long id);
+    
+    @Query("SELECT cs.id FROM ChatSession cs WHERE cs.archivedAt IS NULL AND cs.updatedAt < :threshold ORDER BY cs.updatedAt ASC")
+    List<Long> findIdleSessionIds(@Param("threshold") LocalDateTime threshold, Limit limit);
+    
+    // Bulk update so @UpdateTimestamp doesn't bump updatedAt
+    @Modifying
+    @Query("UPDATE ChatSession cs SET cs.archivedAt = :archivedAt WHERE cs.id = :id")
+    int updateArchivedAt(@Param("id") Long id, @Param("archivedAt") LocalDateTime archivedAt);
+    
     void deleteByUser(User user);
 }
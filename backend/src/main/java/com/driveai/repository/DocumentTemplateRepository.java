@@ -2,17 +2,22 @@ package com.driveai.repository;
 
 import com.driveai.model.DocumentTemplate;
 import com.driveai.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
+// The plans of the hot queries here are checked by HotQueryPlanTest; a new hot query gets a test there
 @Repository
 public interface DocumentTemplateRepository extends JpaRepository<DocumentTemplate, Long> {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<DocumentTemplate> findByUserOrderByUpdatedAtDesc(User user);
     
     @Query("SELECT dt FROM DocumentTemplate dt WHERE dt.user = :user AND dt.name LIKE %:name% ORDER BY dt.updatedAt DESC")
@@ -0,0 +1,15 @@
+package com.driveai.repository;
+
+import com.driveai.model.DriveFileContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+// The plans of the hot queries here are checked by HotQueryPlanTest; a new hot query gets a test there
+@Repository
+public interface DriveFileContentRepository extends JpaRepository<DriveFileContent, String> {
+    
+    List<DriveFileContent> findByFileIdIn(Collection<String> fileIds);
+}
@@ -6,11 +6,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+// The plans of the hot queries here are checked by HotQueryPlanTest; a new hot query gets a test there
 @Repository
 public interface DriveFileRepository extends JpaRepository<DriveFile, String> {
     
@@ -22,16 +25,16 @@ public interface DriveFileRepository extends JpaRepository<DriveFile, String> {
     @Query("SELECT df FROM DriveFile df WHERE df.user = :user AND df.mimeType = :mimeType ORDER BY df.modifiedTime DESC")
     List<DriveFile> findByUserAndMimeType(@Param("user") User user, @Param("mimeType") String mimeType);
     
-    @Query("SELECT df FROM DriveFile df WHERE df.user = :user AND df.contentSummary IS NOT NULL ORDER BY df.modifiedTime DESC")
+    @Transactional(readOnly = true)
+    @Query("SELECT df FROM DriveFile df WHERE df.user = :user AND df.summaryAvailable = true ORDER BY df.modifiedTime DESC")
     List<DriveFile> findAnalyzedFilesByUser(@Param("user") User user);
     
-    @Query("SELECT df FROM DriveFile df WHERE df.user = :user AND (df.contentSummary IS NULL OR df.lastAnalyzed < :threshold) ORDER BY df.modifiedTime DESC")
+    @Query("SELECT df FROM DriveFile df WHERE df.user = :user AND (df.summaryAvailable = false OR df.lastAnalyzed < :threshold) ORDER BY df.modifiedTime DESC")
     List<DriveFile> findFilesNeedingAnalysis(@Param("user") User user, @Param("threshold") LocalDateTime threshold);
     
-    @Query("SELECT df FROM DriveFile df WHERE df.user = :user AND df.contentText LIKE %:searchTerm% ORDER BY df.modifiedTime DESC")
-    List<DriveFile> searchByContent(@Param("user") User user, @Param("searchTerm") String searchTerm);
-    
     Optional<DriveFile> findByIdAndUser(String id, User user);
     
+    List<DriveFile> findByUserAndIdIn(User user, Collection<String> ids);
+    
     void deleteByUser(User user);
 }
@@ -0,0 +1,77 @@
+package com.driveai.repository;
+
+import com.driveai.model.MailMergeJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * State changes are single conditional UPDATEs, so whichever node or request moves a job
+ * first wins: a job runs on at most one worker, and a paused job stops at its next checkpoint.
+ * A job is QUEUED until a worker {@link #claim claims} it, and the instance holding a queued
+ * or running job keeps its heartbeat fresh, so only jobs of a stopped instance go stale.
+ * The plans of the job listing and stale-job queries are checked by HotQueryPlanTest.
+ */
+@Repository
+public interface MailMergeJobRepository extends JpaRepository<MailMergeJob, Long> {
+    
+    Optional<MailMergeJob> findByIdAndUserId(Long id, Long userId);
+    
+    List<MailMergeJob> findTop50ByUserIdOrderByCreatedAtDesc(Long userId);
+    
+    @Query("SELECT j.id FROM MailMergeJob j WHERE j.status IN (com.driveai.model.MailMergeJob.Status.QUEUED, com.driveai.model.MailMergeJob.Status.RUNNING) " +
+           "AND j.heartbeatAt < :staleBefore")
+    List<Long> findStaleJobIds(@Param("staleBefore") LocalDateTime staleBefore);
+    
+    // Queues a job that is stopped, or whose instance stopped sending heartbeats
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailMergeJob j SET j.status = com.driveai.model.MailMergeJob.Status.QUEUED, j.heartbeatAt = CURRENT_TIMESTAMP, " +
+           "j.lastError = NULL, j.finishedAt = NULL " +
+           "WHERE j.id = :id AND (j.status NOT IN (com.driveai.model.MailMergeJob.Status.QUEUED, com.driveai.model.MailMergeJob.Status.RUNNING) " +
+           "OR j.heartbeatAt < :staleBefore)")
+    int enqueue(@Param("id") Long id, @Param("staleBefore") LocalDateTime staleBefore);
+    
+    // Called by the worker that is about to run the job; only one worker gets it
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailMergeJob j SET j.status = com.driveai.model.MailMergeJob.Status.RUNNING, j.heartbeatAt = CURRENT_TIMESTAMP " +
+           "WHERE j.id = :id AND j.status = com.driveai.model.MailMergeJob.Status.QUEUED")
+    int claim(@Param("id") Long id);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailMergeJob j SET j.heartbeatAt = CURRENT_TIMESTAMP " +
+           "WHERE j.id IN :ids AND j.status IN (com.driveai.model.MailMergeJob.Status.QUEUED, com.driveai.model.MailMergeJob.Status.RUNNING)")
+    int heartbeat(@Param("ids") Collection<Long> ids);
+    
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE mail_merge_jobs SET next_row = :nextRow, status = :status, " +
+           "heartbeat_at = now(), updated_at = now(), " +
+           "created_count = (SELECT count(*) FROM mail_merge_rows r WHERE r.job_id = :id AND r.document_id IS NOT NULL), " +
+           "failed_count = (SELECT count(*) FROM mail_merge_rows r WHERE r.job_id = :id AND r.document_id IS NULL), " +
+           "finished_at = CASE WHEN :status = 'RUNNING' THEN NULL ELSE now() END " +
+           "WHERE id = :id AND status = 'RUNNING'", nativeQuery = true)
+    int checkpoint(@Param("id") Long id, @Param("nextRow") int nextRow, @Param("status") String status);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailMergeJob j SET j.status = com.driveai.model.MailMergeJob.Status.PAUSED " +
+           "WHERE j.id = :id AND j.status IN (com.driveai.model.MailMergeJob.Status.QUEUED, com.driveai.model.MailMergeJob.Status.RUNNING)")
+    int pause(@Param("id") Long id);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailMergeJob j SET j.status = com.driveai.model.MailMergeJob.Status.FAILED, j.lastError = :error, j.finishedAt = CURRENT_TIMESTAMP " +
+           "WHERE j.id = :id AND j.status = com.driveai.model.MailMergeJob.Status.RUNNING")
+    int fail(@Param("id") Long id, @Param("error") String error);
+}
@@ -1,16 +1,21 @@
 package com.driveai.repository;
 
 import com.driveai.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
+// The plans of the hot queries here are checked by HotQueryPlanTest; a new hot query gets a test there
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByGoogleId(String googleId);
     
     Optional<User> findByEmail(String email);
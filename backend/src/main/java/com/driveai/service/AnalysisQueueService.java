@@ -0,0 +1,377 @@
+package com.driveai.service;
+
+import com.driveai.config.BoundedExecutor;
+import com.driveai.config.BoundedExecutors;
+import com.driveai.model.DriveFile;
+import com.driveai.model.User;
+import com.driveai.repository.DriveFileRepository;
+import com.driveai.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Durable queue of document analyses in the analysis_jobs table, drained by every instance.
+ * <p>
+ * Each poll leases at most as many due jobs as this instance has idle workers, in one
+ * statement with {@code FOR UPDATE SKIP LOCKED}, so instances never wait on each other's
+ * rows and throughput grows with the number of instances. A lease lasts
+ * {@code visibility-timeout-seconds} and is extended while the job runs, up to
+ * {@code max-run-seconds}; a lease that ran out (the instance died, or the job hung) makes
+ * the job leasable again. Failures are retried with
+ * exponential backoff until {@code max-attempts}, after which the job is dead-lettered.
+ * Completions and failures are fenced on the lease, so a worker that lost its lease cannot
+ * overwrite the outcome of the worker that took over.
+ */
+@Service
+public class AnalysisQueueService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisQueueService.class);
+    
+    private static final int MAX_ERROR_LENGTH = 2000;
+    
+    private static final String LEASE_SQL = """
+            UPDATE analysis_jobs
+            SET status = 'RUNNING', attempts = attempts + 1, locked_by = ?,
+                locked_until = now() + ? * interval '1 second', updated_at = now()
+            WHERE id IN (
+                SELECT id FROM analysis_jobs
+                WHERE (status = 'QUEUED' AND run_after <= now())
+                   OR (status = 'RUNNING' AND locked_until < now() AND attempts < max_attempts)
+                ORDER BY run_after
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING id, user_id, file_id, attempts, max_attempts
+            """;
+    
+    private static final String ENQUEUE_SQL = """
+            INSERT INTO analysis_jobs (user_id, file_id, status, max_attempts)
+            SELECT f.user_id, f.id, 'QUEUED', ?
+            FROM drive_files f
+            WHERE (f.summary_available = false OR f.last_analyzed < ?)
+              AND (CAST(? AS BIGINT) IS NULL OR f.user_id = ?)
+              AND NOT EXISTS (
+                  SELECT 1 FROM analysis_jobs j
+                  WHERE j.file_id = f.id
+                    AND (j.status IN ('QUEUED', 'RUNNING') OR j.finished_at >= ?))
+            ORDER BY f.modified_time DESC NULLS LAST
+            LIMIT ?
+            ON CONFLICT (file_id) WHERE status IN ('QUEUED', 'RUNNING') DO NOTHING
+            """;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private DriveFileRepository driveFileRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DocumentProcessingService documentProcessingService;
+    
+    @Autowired
+    private BoundedExecutors boundedExecutors;
+    
+    @Value("${analysis-queue.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${analysis-queue.workers:4}")
+    private int workers;
+    
+    @Value("${analysis-queue.visibility-timeout-seconds:600}")
+    private long visibilityTimeoutSeconds;
+    
+    @Value("${analysis-queue.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${analysis-queue.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+    
+    @Value("${analysis-queue.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+    
+    @Value("${analysis-queue.reanalyze-after-hours:24}")
+    private long reanalyzeAfterHours;
+    
+    @Value("${analysis-queue.enqueue-batch-size:1000}")
+    private int enqueueBatchSize;
+    
+    @Value("${analysis-queue.retention-days:7}")
+    private long retentionDays;
+    
+    // Past this a running job's lease is left to run out, so a hung analysis is retried elsewhere
+    @Value("${analysis-queue.max-run-seconds:1800}")
+    private long maxRunSeconds;
+    
+    private BoundedExecutor executor;
+    
+    // Identifies this instance's leases
+    private String workerId;
+    
+    // Jobs leased by this instance and not yet finished, with when they started (System.nanoTime)
+    private final Map<Long, Long> inFlight = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void init() {
+        executor = boundedExecutors.create("analysis-", workers);
+        workerId = hostName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    /** Queues analyses for the user's files that have no summary or an outdated one. */
+    public int enqueueFilesNeedingAnalysis(User user) {
+        return enqueue(user.getId());
+    }
+    
+    /**
+     * Queues analyses of the given files of the user, whatever their last analysis; files
+     * that already have a pending job are skipped.
+     */
+    public int enqueueFiles(Long userId, Collection<String> fileIds) {
+        if (fileIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement("""
+                    INSERT INTO analysis_jobs (user_id, file_id, status, max_attempts)
+                    SELECT f.user_id, f.id, 'QUEUED', ?
+                    FROM drive_files f
+                    WHERE f.user_id = ? AND f.id = ANY (?)
+                    ON CONFLICT (file_id) WHERE status IN ('QUEUED', 'RUNNING') DO NOTHING
+                    """);
+            statement.setInt(1, maxAttempts);
+            statement.setLong(2, userId);
+            statement.setArray(3, connection.createArrayOf("varchar", fileIds.toArray()));
+            return statement;
+        });
+    }
+    
+    /** Job counts per status for the user. */
+    public Map<String, Long> getStatusCounts(User user) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String status : List.of("QUEUED", "RUNNING", "DONE", "DEAD")) {
+            counts.put(status, 0L);
+        }
+        jdbcTemplate.query("SELECT status, count(*) FROM analysis_jobs WHERE user_id = ? GROUP BY status",
+                rs -> {
+                    counts.put(rs.getString(1), rs.getLong(2));
+                }, user.getId());
+        return counts;
+    }
+    
+    /** Queues files of all users that need analysis, and drops old finished jobs. */
+    @Scheduled(fixedDelayString = "${analysis-queue.enqueue-interval-ms:300000}")
+    public void enqueueStaleFiles() {
+        if (!enabled) {
+            return;
+        }
+        int queued = enqueue(null);
+        int purged = jdbcTemplate.update(
+                "DELETE FROM analysis_jobs WHERE status IN ('DONE', 'DEAD') AND finished_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+        if (queued > 0 || purged > 0) {
+            logger.info("Queued {} files for analysis, purged {} finished jobs", queued, purged);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${analysis-queue.poll-interval-ms:2000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            deadLetterExpired();
+            
+            int idle = workers - inFlight.size();
+            if (idle <= 0) {
+                return;
+            }
+            List<LeasedJob> jobs = jdbcTemplate.query(LEASE_SQL,
+                    (rs, rowNum) -> new LeasedJob(rs.getLong("id"), rs.getLong("user_id"),
+                            rs.getString("file_id"), rs.getInt("attempts"), rs.getInt("max_attempts")),
+                    workerId, visibilityTimeoutSeconds, idle);
+            for (LeasedJob job : jobs) {
+                inFlight.put(job.id, System.nanoTime());
+                executor.execute(() -> {
+                    try {
+                        run(job);
+                    } finally {
+                        inFlight.remove(job.id);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            logger.error("Error polling analysis queue: {}", e.getMessage());
+        }
+    }
+    
+    private void run(LeasedJob job) {
+        try {
+            // Fully loaded, not proxies: worker threads have no Session
+            Optional<DriveFile> file = driveFileRepository.findById(job.fileId);
+            Optional<User> user = userRepository.findById(job.userId);
+            if (file.isEmpty() || user.isEmpty()) {
+                complete(job, "File no longer exists");
+                return;
+            }
+            
+            boolean analyzed = documentProcessingService.analyzeDocumentForJob(user.get(), file.get());
+            complete(job, analyzed ? null : "No extractable content");
+            
+        } catch (Exception e) {
+            fail(job, e);
+        }
+    }
+    
+    private void complete(LeasedJob job, String note) {
+        int updated = jdbcTemplate.update("""
+                UPDATE analysis_jobs
+                SET status = 'DONE', locked_by = NULL, locked_until = NULL, last_error = ?,
+                    finished_at = now(), updated_at = now()
+                WHERE id = ? AND status = 'RUNNING' AND locked_by = ? AND attempts = ?
+                """, note, job.id, workerId, job.attempts);
+        if (updated == 0) {
+            logger.warn("Lost lease on analysis job {} before completing it", job.id);
+        }
+    }
+    
+    private void fail(LeasedJob job, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        
+        if (job.attempts >= job.maxAttempts) {
+            logger.error("Analysis job {} for file {} failed after {} attempts: {}",
+                    job.id, job.fileId, job.attempts, error);
+            jdbcTemplate.update("""
+                    UPDATE analysis_jobs
+                    SET status = 'DEAD', locked_by = NULL, locked_until = NULL, last_error = ?,
+                        finished_at = now(), updated_at = now()
+                    WHERE id = ? AND status = 'RUNNING' AND locked_by = ? AND attempts = ?
+                    """, error, job.id, workerId, job.attempts);
+            return;
+        }
+        
+        long delay = backoffSeconds(job.attempts);
+        logger.warn("Analysis job {} for file {} failed (attempt {}), retrying in {}s: {}",
+                job.id, job.fileId, job.attempts, delay, error);
+        jdbcTemplate.update("""
+                UPDATE analysis_jobs
+                SET status = 'QUEUED', locked_by = NULL, locked_until = NULL, last_error = ?,
+                    run_after = now() + ? * interval '1 second', updated_at = now()
+                WHERE id = ? AND status = 'RUNNING' AND locked_by = ? AND attempts = ?
+                """, error, delay, job.id, workerId, job.attempts);
+    }
+    
+    /**
+     * Keeps leases of running jobs alive, so only a dead instance's jobs time out, unless a job
+     * has run longer than {@code max-run-seconds}. Scheduled apart from {@link #poll()}, so a
+     * slow poll does not hold up the extension.
+     */
+    @Scheduled(fixedDelayString = "${analysis-queue.lease-extend-interval-ms:60000}")
+    public void extendLeases() {
+        if (!enabled || inFlight.isEmpty()) {
+            return;
+        }
+        long startedAfter = System.nanoTime() - maxRunSeconds * 1_000_000_000L;
+        List<Long> running = new ArrayList<>();
+        inFlight.forEach((id, startedAt) -> {
+            if (startedAt - startedAfter > 0) {
+                running.add(id);
+            } else {
+                logger.warn("Analysis job {} has run longer than {}s; no longer extending its lease", id, maxRunSeconds);
+            }
+        });
+        if (running.isEmpty()) {
+            return;
+        }
+        Long[] ids = running.toArray(new Long[0]);
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement("""
+                    UPDATE analysis_jobs SET locked_until = now() + ? * interval '1 second'
+                    WHERE status = 'RUNNING' AND locked_by = ? AND id = ANY (?)
+                    """);
+            statement.setLong(1, visibilityTimeoutSeconds);
+            statement.setString(2, workerId);
+            statement.setArray(3, connection.createArrayOf("bigint", ids));
+            return statement;
+        });
+    }
+    
+    // Leases that ran out on their last attempt are not leased again
+    private void deadLetterExpired() {
+        int dead = jdbcTemplate.update("""
+                UPDATE analysis_jobs
+                SET status = 'DEAD', locked_by = NULL, locked_until = NULL,
+                    last_error = COALESCE(last_error, 'Lease expired'), finished_at = now(), updated_at = now()
+                WHERE status = 'RUNNING' AND locked_until < now() AND attempts >= max_attempts
+                """);
+        if (dead > 0) {
+            logger.warn("Dead-lettered {} analysis jobs whose last lease expired", dead);
+        }
+    }
+    
+    private int enqueue(Long userId) {
+        Timestamp reanalyzeBefore = Timestamp.valueOf(LocalDateTime.now().minusHours(reanalyzeAfterHours));
+        return jdbcTemplate.update(ENQUEUE_SQL,
+                maxAttempts, reanalyzeBefore, userId, userId, reanalyzeBefore, enqueueBatchSize);
+    }
+    
+    // Exponential backoff with jitter: base * 2^(attempt - 1), capped, then halved at random
+    private long backoffSeconds(int attempt) {
+        long backoff = Math.min(backoffMaxSeconds, backoffBaseSeconds << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+    }
+    
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+    
+    private static final class LeasedJob {
+        
+        private final long id;
+        private final long userId;
+        private final String fileId;
+        private final int attempts;
+        private final int maxAttempts;
+        
+        LeasedJob(long id, long userId, String fileId, int attempts, int maxAttempts) {
+            this.id = id;
+            this.userId = userId;
+            this.fileId = fileId;
+            this.attempts = attempts;
+            this.maxAttempts = maxAttempts;
+        }
+    }
+}
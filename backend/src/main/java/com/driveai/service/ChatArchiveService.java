@@ -0,0 +1,199 @@
+package com.driveai.service;
+
+import com.driveai.dto.ChatMessageDto;
+import com.driveai.dto.ChatSessionSummaryDto;
+import com.driveai.model.ChatSession;
+import com.driveai.model.ChatSessionArchive;
+import com.driveai.repository.ChatMessageRepository;
+import com.driveai.repository.ChatSessionArchiveRepository;
+import com.driveai.repository.ChatSessionRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves the messages of idle chat sessions out of the partitioned chat_messages
+ * table into one compressed payload per session, and restores them when the
+ * session is opened again.
+ */
+@Service
+public class ChatArchiveService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChatArchiveService.class);
+    
+    private static final TypeReference<List<ChatMessageDto>> MESSAGE_LIST = new TypeReference<>() {};
+    
+    private static final String RESTORE_SQL =
+            "INSERT INTO chat_messages (id, session_id, role, content, file_references, metadata, created_at) " +
+            "VALUES (?, ?, ?, ?, CAST(? AS JSONB), CAST(? AS JSONB), ?)";
+    
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+    
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+    
+    @Autowired
+    private ChatSessionArchiveRepository chatSessionArchiveRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${chat-messages.archive.idle-days:90}")
+    private int idleDays;
+    
+    @Value("${chat-messages.archive.batch-size:100}")
+    private int batchSize;
+    
+    @Scheduled(cron = "${chat-messages.archive.cron:0 30 3 * * *}")
+    public void archiveIdleSessions() {
+        LocalDateTime threshold = LocalDateTime.now().minusDays(idleDays);
+        List<Long> sessionIds = chatSessionRepository.findIdleSessionIds(threshold, Limit.of(batchSize));
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        
+        int archived = 0;
+        for (Long sessionId : sessionIds) {
+            try {
+                // One transaction per session keeps row locks short
+                Boolean done = transactionTemplate.execute(status -> archiveSession(sessionId, threshold));
+                if (Boolean.TRUE.equals(done)) {
+                    archived++;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to archive chat session {}: {}", sessionId, e.getMessage());
+            }
+        }
+        
+        logger.info("Archived {} of {} idle chat sessions", archived, sessionIds.size());
+    }
+    
+    private boolean archiveSession(Long sessionId, LocalDateTime threshold) {
+        // Row lock serializes against other nodes and against a concurrent rehydrate
+        Optional<ChatSession> sessionOpt = chatSessionRepository.findByIdForUpdate(sessionId);
+        if (sessionOpt.isEmpty()) {
+            return false;
+        }
+        ChatSession session = sessionOpt.get();
+        if (session.isArchived() || session.getUpdatedAt() == null || !session.getUpdatedAt().isBefore(threshold)) {
+            return false;
+        }
+        
+        List<ChatMessageDto> messages = chatMessageRepository.findAllMessagesForArchive(sessionId);
+        if (!messages.isEmpty()) {
+            byte[] json = toJson(messages);
+            String lastContent = messages.get(messages.size() - 1).getContent();
+            String preview = lastContent != null && lastContent.length() > ChatSessionSummaryDto.PREVIEW_LENGTH
+                    ? lastContent.substring(0, ChatSessionSummaryDto.PREVIEW_LENGTH)
+                    : lastContent;
+            
+            chatSessionArchiveRepository.save(new ChatSessionArchive(
+                    sessionId, messages.size(), preview, json.length, gzip(json)));
+            chatMessageRepository.deleteAllBySessionId(sessionId);
+        }
+        
+        chatSessionRepository.updateArchivedAt(sessionId, LocalDateTime.now());
+        return true;
+    }
+    
+    /**
+     * Restores an archived session's messages into chat_messages. Returns the restored
+     * messages in chronological order, or empty if there was nothing to restore: the session
+     * was not archived (e.g. another request restored it first) or had no archived messages.
+     * Callers then read the session's messages from chat_messages as usual.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<List<ChatMessageDto>> rehydrate(Long sessionId) {
+        Optional<ChatSession> sessionOpt = chatSessionRepository.findByIdForUpdate(sessionId);
+        if (sessionOpt.isEmpty() || !sessionOpt.get().isArchived()) {
+            return Optional.empty();
+        }
+        
+        List<ChatMessageDto> messages = List.of();
+        Optional<ChatSessionArchive> archiveOpt = chatSessionArchiveRepository.findById(sessionId);
+        if (archiveOpt.isPresent()) {
+            messages = fromJson(gunzip(archiveOpt.get().getPayload()));
+            if (!messages.isEmpty()) {
+                // Original ids are kept so existing cursors stay valid; messages from months whose
+                // partition was detached land in chat_messages_default
+                jdbcTemplate.batchUpdate(RESTORE_SQL, messages, 500, (ps, message) -> {
+                    ps.setLong(1, message.getId());
+                    ps.setLong(2, sessionId);
+                    ps.setString(3, message.getRole().toUpperCase());
+                    ps.setString(4, message.getContent());
+                    ps.setString(5, message.getFileReferences());
+                    ps.setString(6, message.getMetadata());
+                    ps.setTimestamp(7, Timestamp.valueOf(message.getCreatedAt()));
+                });
+            }
+            chatSessionArchiveRepository.delete(archiveOpt.get());
+        }
+        
+        chatSessionRepository.updateArchivedAt(sessionId, null);
+        logger.info("Rehydrated {} archived messages for chat session {}", messages.size(), sessionId);
+        return messages.isEmpty() ? Optional.empty() : Optional.of(messages);
+    }
+    
+    private byte[] toJson(List<ChatMessageDto> messages) {
+        try {
+            return objectMapper.writeValueAsBytes(messages);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize chat messages for archive", e);
+        }
+    }
+    
+    private List<ChatMessageDto> fromJson(byte[] json) {
+        try {
+            return objectMapper.readValue(json, MESSAGE_LIST);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read chat message archive", e);
+        }
+    }
+    
+    private byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (OutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to compress chat message archive", e);
+        }
+        return buffer.toByteArray();
+    }
+    
+    private byte[] gunzip(byte[] data) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decompress chat message archive", e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.driveai.service;
+
+import com.driveai.config.BoundedExecutor;
+import com.driveai.config.BoundedExecutors;
+import com.driveai.model.DriveFile;
+import com.driveai.model.DriveFileContent;
+import com.driveai.model.User;
+import com.driveai.repository.DriveFileContentRepository;
+import com.driveai.repository.DriveFileRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds the prompt context for Drive files referenced in a chat turn. Each file's stored
+ * text (or its summary, when the text is over the file's share of the token allowance) is
+ * loaded concurrently, so a turn waits about as long as its slowest file; a file with nothing
+ * stored is fetched from Google and its text stored. Files not ready when the turn's time
+ * budget runs out are left out of the context.
+ */
+@Service
+public class ChatContextService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChatContextService.class);
+    
+    // Rough size of a token in English text; no tokenizer is shipped for the configured model
+    static final int CHARS_PER_TOKEN = 4;
+    
+    @Autowired
+    private DriveFileRepository driveFileRepository;
+    
+    @Autowired
+    private DriveFileContentRepository driveFileContentRepository;
+    
+    @Autowired
+    private DriveFileContentService driveFileContentService;
+    
+    @Autowired
+    private GoogleDriveService googleDriveService;
+    
+    @Autowired
+    private BoundedExecutors boundedExecutors;
+    
+    @Value("${chat-context.parallelism:16}")
+    private int parallelism;
+    
+    @Value("${chat-context.max-files:20}")
+    private int maxFiles;
+    
+    @Value("${chat-context.budget-ms:3000}")
+    private long budgetMillis;
+    
+    @Value("${chat-context.max-tokens:8000}")
+    private int maxTokens;
+    
+    @Value("${chat-context.max-tokens-per-file:2000}")
+    private int maxTokensPerFile;
+    
+    private BoundedExecutor executor;
+    
+    @PostConstruct
+    void init() {
+        executor = boundedExecutors.create("chat-context-", parallelism);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * @return the context of the user's files among {@code fileIds}, in request order
+     * @throws IllegalArgumentException if more than {@code chat-context.max-files} files are referenced
+     */
+    public FileContext assemble(User user, Collection<String> fileIds) {
+        LinkedHashSet<String> ids = new LinkedHashSet<>(fileIds);
+        if (ids.isEmpty()) {
+            return FileContext.EMPTY;
+        }
+        if (ids.size() > maxFiles) {
+            throw new IllegalArgumentException("At most " + maxFiles + " files per message");
+        }
+        return build(user, ids, maxTokens);
+    }
+    
+    /**
+     * The context of the user's files among {@code ids} within {@code tokenAllowance} tokens.
+     * The result is {@link FileContext#isComplete() complete} if no file was left out for
+     * failing to load or running past the time budget.
+     */
+    FileContext build(User user, Collection<String> ids, int tokenAllowance) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        
+        // Only the user's own files; unknown ids are dropped
+        Map<String, DriveFile> files = new LinkedHashMap<>();
+        for (DriveFile file : driveFileRepository.findByUserAndIdIn(user, ids)) {
+            files.put(file.getId(), file);
+        }
+        int allowanceChars = Math.min(maxTokensPerFile, tokenAllowance / Math.max(files.size(), 1)) * CHARS_PER_TOKEN;
+        
+        Map<String, CompletableFuture<String>> blocks = new LinkedHashMap<>();
+        for (String id : ids) {
+            DriveFile file = files.get(id);
+            if (file != null) {
+                // Workers get the id only; the entity belongs to this thread's session
+                blocks.put(id, CompletableFuture.supplyAsync(() -> prepare(user, id, allowanceChars), executor));
+            }
+        }
+        
+        try {
+            CompletableFuture.allOf(blocks.values().toArray(new CompletableFuture[0]))
+                    .get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            logger.info("Chat context budget of {} ms ran out; leaving out files still loading", budgetMillis);
+        } catch (ExecutionException e) {
+            // Files that failed to load are left out below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        StringBuilder text = new StringBuilder();
+        List<String> used = new ArrayList<>();
+        boolean complete = true;
+        for (Map.Entry<String, CompletableFuture<String>> entry : blocks.entrySet()) {
+            if (!entry.getValue().isDone() || entry.getValue().isCompletedExceptionally()) {
+                entry.getValue().cancel(true);
+                complete = false;
+                continue;
+            }
+            String block = entry.getValue().getNow(null);
+            if (block == null) {
+                continue;
+            }
+            DriveFile file = files.get(entry.getKey());
+            text.append("\n\n### ").append(file.getName()).append(" (").append(file.getMimeType()).append(")\n").append(block);
+            used.add(entry.getKey());
+        }
+        return new FileContext(text.toString().trim(), used, complete);
+    }
+    
+    // The file's context block within the allowance, or null if it has no text; throws if it fails to load
+    private String prepare(User user, String fileId, int allowanceChars) {
+        try {
+            DriveFileContent stored = driveFileContentRepository.findById(fileId).orElse(null);
+            String text = stored != null ? stored.getContentText() : null;
+            String summary = stored != null ? stored.getContentSummary() : null;
+            if (text == null && summary == null) {
+                text = googleDriveService.getFileContent(user, fileId);
+                if (text != null) {
+                    driveFileContentService.saveContentText(fileId, text);
+                }
+            }
+            
+            if (text != null && text.length() <= allowanceChars) {
+                return text;
+            }
+            if (summary != null && !summary.isBlank()) {
+                return trim(summary, allowanceChars);
+            }
+            return text != null ? trim(text, allowanceChars) : null;
+        } catch (Exception e) {
+            logger.warn("Failed to load chat context for file {}: {}", fileId, e.getMessage());
+            throw new CompletionException(e);
+        }
+    }
+    
+    // Cuts at the last whitespace before the limit, so no word is split
+    static String trim(String text, int maxChars) {
+        if (text.length() <= maxChars) {
+            return text;
+        }
+        int end = maxChars;
+        int space = text.lastIndexOf(' ', maxChars);
+        if (space > maxChars / 2) {
+            end = space;
+        }
+        return text.substring(0, end) + " [...]";
+    }
+    
+    /** Context text for a chat turn and the files it was built from. */
+    public static final class FileContext {
+        
+        static final FileContext EMPTY = new FileContext("", List.of(), true);
+        
+        private final String text;
+        private final List<String> fileIds;
+        private final boolean complete;
+        
+        FileContext(String text, List<String> fileIds, boolean complete) {
+            this.text = text;
+            this.fileIds = fileIds;
+            this.complete = complete;
+        }
+        
+        public String getText() {
+            return text;
+        }
+        
+        public List<String> getFileIds() {
+            return fileIds;
+        }
+        
+        public boolean isEmpty() {
+            return fileIds.isEmpty();
+        }
+        
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.driveai.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Maintains the monthly range partitions of chat_messages: creates upcoming
+ * partitions ahead of time and detaches/drops expired ones once archiving
+ * has emptied them. Rows outside every monthly partition (restored archives
+ * of detached months) go to chat_messages_default, which this leaves alone.
+ */
+@Service
+public class ChatMessagePartitionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChatMessagePartitionService.class);
+    
+    private static final String PARENT_TABLE = "chat_messages";
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    
+    // Serializes maintenance across backend nodes
+    private static final long MAINTENANCE_LOCK_KEY = 31_001L;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${chat-messages.partitions.months-ahead:3}")
+    private int monthsAhead;
+    
+    @Value("${chat-messages.partitions.detach-after-months:6}")
+    private int detachAfterMonths;
+    
+    @Scheduled(cron = "${chat-messages.partitions.cron:0 15 3 * * *}")
+    @Transactional
+    public void maintainPartitions() {
+        Boolean locked = jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            logger.debug("Partition maintenance already running on another node");
+            return;
+        }
+        
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            ensurePartition(current.plusMonths(i));
+        }
+        
+        detachEmptyExpiredPartitions(current.minusMonths(detachAfterMonths));
+    }
+    
+    private void ensurePartition(YearMonth month) {
+        String name = partitionName(month);
+        
+        // Check first: CREATE ... PARTITION OF locks the parent even when the partition exists
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.plusMonths(1).atDay(1);
+        jdbcTemplate.execute(String.format(
+                "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                name, PARENT_TABLE, start, end));
+        logger.info("Created partition {}", name);
+    }
+    
+    private void detachEmptyExpiredPartitions(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ?",
+                String.class, PARENT_TABLE);
+        
+        for (String partition : partitions) {
+            YearMonth month = parseMonth(partition);
+            if (month == null || !month.isBefore(cutoff)) {
+                continue;
+            }
+            
+            // Partitions still holding messages of live sessions stay attached
+            Boolean empty = jdbcTemplate.queryForObject(
+                    "SELECT NOT EXISTS (SELECT 1 FROM " + partition + ")", Boolean.class);
+            if (Boolean.TRUE.equals(empty)) {
+                jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                logger.info("Detached and dropped empty partition {}", partition);
+            }
+        }
+    }
+    
+    private String partitionName(YearMonth month) {
+        return PARENT_TABLE + "_p" + month.format(SUFFIX_FORMAT);
+    }
+    
+    private YearMonth parseMonth(String partition) {
+        String prefix = PARENT_TABLE + "_p";
+        if (!partition.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(prefix.length()), SUFFIX_FORMAT);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
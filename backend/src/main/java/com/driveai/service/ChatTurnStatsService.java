@@ -0,0 +1,177 @@
+package com.driveai.service;
+
+import com.driveai.dto.ChatTurnStatsDto;
+import com.driveai.dto.TurnMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the per-user, per-day chat turn rollups up to date (one upsert per assistant
+ * reply) and reads percentiles back from their latency histograms.
+ */
+@Service
+public class ChatTurnStatsService {
+    
+    static final String[] METRICS = {"total", "retrieval", "llm", "db"};
+    
+    // Bucket b holds values in (1.1^(b-1), 1.1^b] ms, i.e. percentiles to within 10%
+    private static final double BUCKET_GROWTH = 1.1;
+    private static final double LOG_BUCKET_GROWTH = Math.log(BUCKET_GROWTH);
+    
+    private static final String UPSERT_ROLLUP_SQL =
+            "INSERT INTO chat_turn_rollups (user_id, day, turns, prompt_tokens, completion_tokens, " +
+            "cache_hits, cache_misses, total_ms, retrieval_ms, llm_ms, db_ms) " +
+            "VALUES (?, ?, 1, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, day) DO UPDATE SET " +
+            "turns = chat_turn_rollups.turns + 1, " +
+            "prompt_tokens = chat_turn_rollups.prompt_tokens + EXCLUDED.prompt_tokens, " +
+            "completion_tokens = chat_turn_rollups.completion_tokens + EXCLUDED.completion_tokens, " +
+            "cache_hits = chat_turn_rollups.cache_hits + EXCLUDED.cache_hits, " +
+            "cache_misses = chat_turn_rollups.cache_misses + EXCLUDED.cache_misses, " +
+            "total_ms = chat_turn_rollups.total_ms + EXCLUDED.total_ms, " +
+            "retrieval_ms = chat_turn_rollups.retrieval_ms + EXCLUDED.retrieval_ms, " +
+            "llm_ms = chat_turn_rollups.llm_ms + EXCLUDED.llm_ms, " +
+            "db_ms = chat_turn_rollups.db_ms + EXCLUDED.db_ms";
+    
+    // Rows are always touched in METRICS order, so concurrent turns of one user cannot deadlock
+    private static final String UPSERT_BUCKETS_SQL =
+            "INSERT INTO chat_turn_latency_buckets (user_id, day, metric, bucket, turns) " +
+            "VALUES (?, ?, 'total', ?, 1), (?, ?, 'retrieval', ?, 1), (?, ?, 'llm', ?, 1), (?, ?, 'db', ?, 1) " +
+            "ON CONFLICT (user_id, day, metric, bucket) DO UPDATE SET " +
+            "turns = chat_turn_latency_buckets.turns + 1";
+    
+    private static final String SELECT_ROLLUPS_SQL =
+            "SELECT day, turns, prompt_tokens, completion_tokens, cache_hits, cache_misses, " +
+            "total_ms, retrieval_ms, llm_ms, db_ms " +
+            "FROM chat_turn_rollups WHERE user_id = ? AND day BETWEEN ? AND ? ORDER BY day";
+    
+    private static final String SELECT_BUCKETS_SQL =
+            "SELECT day, metric, bucket, turns " +
+            "FROM chat_turn_latency_buckets WHERE user_id = ? AND day BETWEEN ? AND ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Transactional
+    public void record(Long userId, LocalDate day, TurnMetadata turn) {
+        jdbcTemplate.update(UPSERT_ROLLUP_SQL,
+                userId, day,
+                turn.getPromptTokens() != null ? turn.getPromptTokens() : 0L,
+                turn.getCompletionTokens() != null ? turn.getCompletionTokens() : 0L,
+                turn.getCacheHits(), turn.getCacheMisses(),
+                turn.getTotalMs(), turn.getRetrievalMs(), turn.getLlmMs(), turn.getDbMs());
+        jdbcTemplate.update(UPSERT_BUCKETS_SQL,
+                userId, day, bucketOf(turn.getTotalMs()),
+                userId, day, bucketOf(turn.getRetrievalMs()),
+                userId, day, bucketOf(turn.getLlmMs()),
+                userId, day, bucketOf(turn.getDbMs()));
+    }
+    
+    /**
+     * Totals and percentiles for the whole range, with the per-day breakdown in
+     * {@link ChatTurnStatsDto#getDays()}. Days without turns are left out.
+     */
+    @Transactional(readOnly = true)
+    public ChatTurnStatsDto getStats(Long userId, LocalDate from, LocalDate to) {
+        ChatTurnStatsDto total = new ChatTurnStatsDto(null);
+        Map<String, Long> totalSums = new HashMap<>();
+        Map<LocalDate, ChatTurnStatsDto> days = new LinkedHashMap<>();
+        Map<LocalDate, Map<String, Long>> daySums = new HashMap<>();
+        
+        jdbcTemplate.query(SELECT_ROLLUPS_SQL, (RowCallbackHandler) rs -> {
+            ChatTurnStatsDto day = new ChatTurnStatsDto(rs.getObject("day", LocalDate.class));
+            day.setTurns(rs.getLong("turns"));
+            day.setPromptTokens(rs.getLong("prompt_tokens"));
+            day.setCompletionTokens(rs.getLong("completion_tokens"));
+            day.setCacheHits(rs.getLong("cache_hits"));
+            day.setCacheMisses(rs.getLong("cache_misses"));
+            days.put(day.getDay(), day);
+            
+            Map<String, Long> sums = new HashMap<>();
+            for (String metric : METRICS) {
+                sums.put(metric, rs.getLong(metric + "_ms"));
+                totalSums.merge(metric, rs.getLong(metric + "_ms"), Long::sum);
+            }
+            daySums.put(day.getDay(), sums);
+            
+            total.setTurns(total.getTurns() + day.getTurns());
+            total.setPromptTokens(total.getPromptTokens() + day.getPromptTokens());
+            total.setCompletionTokens(total.getCompletionTokens() + day.getCompletionTokens());
+            total.setCacheHits(total.getCacheHits() + day.getCacheHits());
+            total.setCacheMisses(total.getCacheMisses() + day.getCacheMisses());
+        }, userId, from, to);
+        
+        Map<String, TreeMap<Integer, Long>> totalHistograms = new HashMap<>();
+        Map<LocalDate, Map<String, TreeMap<Integer, Long>>> dayHistograms = new HashMap<>();
+        jdbcTemplate.query(SELECT_BUCKETS_SQL, (RowCallbackHandler) rs -> {
+            LocalDate day = rs.getObject("day", LocalDate.class);
+            String metric = rs.getString("metric");
+            int bucket = rs.getInt("bucket");
+            long turns = rs.getLong("turns");
+            dayHistograms.computeIfAbsent(day, d -> new HashMap<>())
+                    .computeIfAbsent(metric, m -> new TreeMap<>())
+                    .merge(bucket, turns, Long::sum);
+            totalHistograms.computeIfAbsent(metric, m -> new TreeMap<>())
+                    .merge(bucket, turns, Long::sum);
+        }, userId, from, to);
+        
+        for (ChatTurnStatsDto day : days.values()) {
+            summarizeLatency(day, daySums.get(day.getDay()), dayHistograms.getOrDefault(day.getDay(), Map.of()));
+        }
+        summarizeLatency(total, totalSums, totalHistograms);
+        total.setDays(new ArrayList<>(days.values()));
+        return total;
+    }
+    
+    private void summarizeLatency(ChatTurnStatsDto stats, Map<String, Long> sums,
+                                  Map<String, TreeMap<Integer, Long>> histograms) {
+        for (String metric : METRICS) {
+            TreeMap<Integer, Long> histogram = histograms.getOrDefault(metric, new TreeMap<>());
+            Map<String, Long> summary = new LinkedHashMap<>();
+            summary.put("avg", stats.getTurns() > 0 ? sums.getOrDefault(metric, 0L) / stats.getTurns() : 0L);
+            summary.put("p50", percentile(histogram, 0.50));
+            summary.put("p95", percentile(histogram, 0.95));
+            summary.put("p99", percentile(histogram, 0.99));
+            stats.getLatencyMs().put(metric, summary);
+        }
+    }
+    
+    static long percentile(TreeMap<Integer, Long> histogram, double quantile) {
+        long count = 0;
+        for (long turns : histogram.values()) {
+            count += turns;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (Map.Entry<Integer, Long> entry : histogram.entrySet()) {
+            seen += entry.getValue();
+            if (seen >= rank) {
+                return bucketUpperMillis(entry.getKey());
+            }
+        }
+        return bucketUpperMillis(histogram.lastKey());
+    }
+    
+    static int bucketOf(long millis) {
+        return millis <= 1 ? 0 : (int) Math.ceil(Math.log(millis) / LOG_BUCKET_GROWTH);
+    }
+    
+    static long bucketUpperMillis(int bucket) {
+        return Math.round(Math.pow(BUCKET_GROWTH, bucket));
+    }
+}
@@ -0,0 +1,143 @@
+package com.driveai.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A template parsed once into alternating literal text and {@code {{variable}}} slots.
+ * Rendering is a single pass that appends literals and values into a builder sized up
+ * front, so rendering thousands of rows allocates little beyond the output strings.
+ */
+public final class CompiledTemplate {
+    
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    
+    // literals[i] precedes names[i]; the last literal follows the last slot
+    private final String[] literals;
+    private final String[] names;
+    private final int literalLength;
+    private final Set<String> variableNames;
+    private final Set<String> requiredVariables;
+    private final LocalDateTime sourceUpdatedAt;
+    
+    private CompiledTemplate(List<String> literals, List<String> names, Collection<String> declared,
+                             LocalDateTime sourceUpdatedAt) {
+        this.literals = literals.toArray(new String[0]);
+        this.names = names.toArray(new String[0]);
+        int length = 0;
+        for (String literal : this.literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+        this.variableNames = Collections.unmodifiableSet(new LinkedHashSet<>(names));
+        Set<String> required = new LinkedHashSet<>(names);
+        if (declared != null) {
+            required.retainAll(declared);
+        }
+        this.requiredVariables = Collections.unmodifiableSet(required);
+        this.sourceUpdatedAt = sourceUpdatedAt;
+    }
+    
+    /**
+     * Parses {@code {{name}}} slots; names may contain letters, digits, {@code _}, {@code .}
+     * and {@code -}, with surrounding spaces ignored. Anything else between the braces, and
+     * opening braces that are never closed, is kept as literal text.
+     * <p>
+     * Slots named in {@code declared} (the template's variables schema) must be given a
+     * value; with no schema, every slot must. Other slots render as empty when missing.
+     */
+    public static CompiledTemplate compile(String source, Collection<String> declared, LocalDateTime sourceUpdatedAt) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                break;
+            }
+            
+            String name = source.substring(open + OPEN.length(), close).trim();
+            literal.append(source, position, open);
+            if (isValidName(name)) {
+                literals.add(literal.toString());
+                names.add(name);
+                literal.setLength(0);
+            } else {
+                literal.append(source, open, close + CLOSE.length());
+            }
+            position = close + CLOSE.length();
+        }
+        literal.append(source, position, source.length());
+        literals.add(literal.toString());
+        
+        return new CompiledTemplate(literals, names, declared, sourceUpdatedAt);
+    }
+    
+    public String render(Map<String, ?> values) {
+        int length = literalLength;
+        for (String name : names) {
+            Object value = values.get(name);
+            length += value instanceof CharSequence text ? text.length() : 16;
+        }
+        StringBuilder out = new StringBuilder(length);
+        renderTo(values, out);
+        return out.toString();
+    }
+    
+    /** Appends the rendered text; missing or null values render as empty. */
+    public void renderTo(Map<String, ?> values, StringBuilder out) {
+        for (int i = 0; i < names.length; i++) {
+            out.append(literals[i]);
+            Object value = values.get(names[i]);
+            if (value != null) {
+                out.append(value);
+            }
+        }
+        out.append(literals[names.length]);
+    }
+    
+    /** Required variables that {@code values} has no non-null value for, in template order. */
+    public List<String> missingVariables(Map<String, ?> values) {
+        List<String> missing = new ArrayList<>();
+        for (String name : requiredVariables) {
+            if (values.get(name) == null) {
+                missing.add(name);
+            }
+        }
+        return missing;
+    }
+    
+    public Set<String> getVariableNames() {
+        return variableNames;
+    }
+    
+    public LocalDateTime getSourceUpdatedAt() {
+        return sourceUpdatedAt;
+    }
+    
+    private static boolean isValidName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
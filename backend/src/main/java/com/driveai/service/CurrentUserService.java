@@ -0,0 +1,81 @@
+package com.driveai.service;
+
+import com.driveai.dto.UserIdentity;
+import com.driveai.model.User;
+import com.driveai.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Resolves the authenticated OAuth2 principal to a {@link User}.
+ * The principal-to-identity mapping is cached so authenticated requests
+ * don't pay a users lookup; the returned User is a lazy reference that
+ * only hits the database if a caller reads non-id state (e.g. tokens).
+ */
+@Service
+public class CurrentUserService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CurrentUserService.class);
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Value("${user-cache.max-size:10000}")
+    private long maxSize;
+    
+    @Value("${user-cache.expire-after-write-seconds:300}")
+    private long expireAfterWriteSeconds;
+    
+    private Cache<String, UserIdentity> identities;
+    
+    @PostConstruct
+    void initCache() {
+        identities = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .build();
+    }
+    
+    public User getCurrentUser(OAuth2User principal) {
+        UserIdentity identity = getIdentity(principal);
+        if (identity == null) {
+            return null;
+        }
+        return userRepository.getReferenceById(identity.getId());
+    }
+    
+    public UserIdentity getIdentity(OAuth2User principal) {
+        if (principal == null) {
+            return null;
+        }
+        
+        String googleId = principal.getAttribute("id");
+        if (googleId == null) {
+            return null;
+        }
+        
+        // Misses (unknown users) are not cached; the loader returning null leaves no entry
+        return identities.get(googleId, key -> userRepository.findByGoogleId(key)
+                .map(UserIdentity::from)
+                .orElse(null));
+    }
+    
+    /**
+     * Drops the cached identity; call whenever the user's row is updated.
+     */
+    public void evict(String googleId) {
+        if (googleId != null) {
+            identities.invalidate(googleId);
+            logger.debug("Evicted cached identity for {}", googleId);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.driveai.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write quota for the Google Docs API.
+ */
+@Component
+public class DocsWriteQuota extends GoogleWriteQuota {
+    
+    public DocsWriteQuota(@Value("${google.docs.write-quota.per-user-per-minute:60}") int perUserPerMinute,
+                          @Value("${google.docs.write-quota.project-per-minute:600}") int projectPerMinute,
+                          @Value("${google.docs.write-quota.max-attempts:5}") int maxAttempts) {
+        super("Docs", perUserPerMinute, projectPerMinute, maxAttempts);
+    }
+}
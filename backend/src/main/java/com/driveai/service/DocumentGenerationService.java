@@ -0,0 +1,220 @@
+package com.driveai.service;
+
+import com.driveai.config.BoundedExecutor;
+import com.driveai.config.BoundedExecutors;
+import com.driveai.dto.BulkGenerationJob;
+import com.driveai.dto.GeneratedDocumentDto;
+import com.driveai.model.DocumentTemplate;
+import com.driveai.model.User;
+import com.driveai.repository.DocumentTemplateRepository;
+import com.driveai.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.services.drive.model.File;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders {@link DocumentTemplate}s into new Google Docs: one create and one batchUpdate
+ * per document, paced by {@link DocsWriteQuota}. Documents are created through Drive with
+ * a create key, so a create that failed after going through is found, not repeated; the
+ * batchUpdate is pinned to the new document's revision, so a retried one cannot insert the
+ * text twice. Bulk jobs run on a fixed pool of workers that pull rows until none are left,
+ * and are kept in memory for polling.
+ */
+@Service
+public class DocumentGenerationService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DocumentGenerationService.class);
+    
+    @Autowired
+    private DocumentTemplateRepository documentTemplateRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TemplateEngine templateEngine;
+    
+    @Autowired
+    private GoogleDocsService googleDocsService;
+    
+    @Autowired
+    private GoogleDriveService googleDriveService;
+    
+    @Autowired
+    private DocsWriteQuota docsWriteQuota;
+    
+    @Autowired
+    private BoundedExecutors boundedExecutors;
+    
+    @Value("${document-generation.parallelism:8}")
+    private int parallelism;
+    
+    @Value("${document-generation.max-bulk-rows:10000}")
+    private int maxBulkRows;
+    
+    @Value("${document-generation.job-retention-minutes:1440}")
+    private long jobRetentionMinutes;
+    
+    private BoundedExecutor executor;
+    private Cache<String, BulkGenerationJob> jobs;
+    
+    @PostConstruct
+    void init() {
+        // Own pool, so bulk jobs cannot starve @Async work on the shared executor
+        executor = boundedExecutors.create("docgen-", parallelism);
+        jobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(jobRetentionMinutes))
+                .build();
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    public Optional<DocumentTemplate> getTemplate(User user, Long templateId) {
+        return documentTemplateRepository.findByIdAndUser(templateId, user);
+    }
+    
+    /**
+     * Creates one document in the calling thread.
+     *
+     * @throws IllegalArgumentException if a required variable has no value
+     */
+    public GeneratedDocumentDto generate(User user, DocumentTemplate template, String title,
+                                         Map<String, Object> variables) throws IOException, InterruptedException {
+        CompiledTemplate compiled = templateEngine.getCompiled(template);
+        List<String> missing = compiled.missingVariables(variables);
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Missing template variables: " + missing);
+        }
+        
+        return createDocument(user, title, compiled.render(variables));
+    }
+    
+    /**
+     * Validates every row up front, then starts the job and returns at once. Rows that
+     * still fail after retries are recorded on the job; the other rows carry on.
+     *
+     * @throws IllegalArgumentException if there are too many rows or a row is missing a required variable
+     */
+    public BulkGenerationJob startBulkJob(User user, DocumentTemplate template, String titleTemplate,
+                                          List<Map<String, Object>> rows) {
+        if (rows.size() > maxBulkRows) {
+            throw new IllegalArgumentException("At most " + maxBulkRows + " rows per job");
+        }
+        
+        CompiledTemplate body = templateEngine.getCompiled(template);
+        for (int i = 0; i < rows.size(); i++) {
+            List<String> missing = body.missingVariables(rows.get(i));
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("Row " + i + " is missing template variables: " + missing);
+            }
+        }
+        CompiledTemplate title = titleTemplate != null && !titleTemplate.isBlank()
+                ? templateEngine.compile(titleTemplate)
+                : null;
+        
+        // Workers have no Session, so they get a fully loaded User rather than the request's proxy
+        User owner = userRepository.findById(user.getId())
+                .orElseThrow(() -> new IllegalStateException("User not found: " + user.getId()));
+        String templateName = template.getName();
+        
+        BulkGenerationJob job = new BulkGenerationJob(owner.getId(), template.getId(), rows.size());
+        jobs.put(job.getId(), job);
+        
+        int workers = Math.min(parallelism, rows.size());
+        AtomicInteger nextRow = new AtomicInteger();
+        AtomicInteger activeWorkers = new AtomicInteger(workers);
+        for (int w = 0; w < workers; w++) {
+            executor.execute(() -> {
+                job.setStatus(BulkGenerationJob.Status.RUNNING);
+                try {
+                    int row;
+                    while ((row = nextRow.getAndIncrement()) < rows.size()) {
+                        Map<String, Object> values = rows.get(row);
+                        String rowTitle = title != null ? title.render(values) : templateName + " #" + (row + 1);
+                        job.recordResult(row, generateRow(owner, row, rowTitle, body.render(values)));
+                    }
+                } finally {
+                    if (activeWorkers.decrementAndGet() == 0) {
+                        job.finish();
+                        // Re-put so retention counts from completion
+                        jobs.put(job.getId(), job);
+                        logger.info("Bulk job {} finished: {} created, {} failed",
+                                job.getId(), job.getSucceeded(), job.getFailed());
+                    }
+                }
+            });
+        }
+        
+        logger.info("Started bulk job {} for template {} with {} rows", job.getId(), template.getId(), rows.size());
+        return job;
+    }
+    
+    public Optional<BulkGenerationJob> getJob(User user, String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId))
+                .filter(job -> job.getUserId().equals(user.getId()));
+    }
+    
+    private GeneratedDocumentDto generateRow(User user, int row, String title, String text) {
+        try {
+            GeneratedDocumentDto generated = createDocument(user, title, text);
+            generated.setRow(row);
+            return generated;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return GeneratedDocumentDto.failed(row, title, "Interrupted");
+        } catch (IOException e) {
+            logger.warn("Bulk row {} failed: {}", row, e.getMessage());
+            return GeneratedDocumentDto.failed(row, title, e.getMessage());
+        }
+    }
+    
+    private GeneratedDocumentDto createDocument(User user, String title, String text)
+            throws IOException, InterruptedException {
+        String createKey = UUID.randomUUID().toString();
+        File created = docsWriteQuota.create(user.getId(),
+                () -> googleDriveService.createDocument(user, title, createKey),
+                () -> googleDriveService.findCreated(user, createKey));
+        if (!text.isEmpty()) {
+            String revisionId = docsWriteQuota.execute(user.getId(),
+                    () -> googleDocsService.getRevisionId(user, created.getId()));
+            docsWriteQuota.execute(user.getId(), () -> {
+                insertText(user, created.getId(), revisionId, text);
+                return null;
+            });
+        }
+        return new GeneratedDocumentDto(created.getId(), title);
+    }
+    
+    private void insertText(User user, String documentId, String revisionId, String text) throws IOException {
+        try {
+            googleDocsService.insertText(user, documentId, revisionId, text);
+        } catch (GoogleJsonResponseException e) {
+            // A retry after an insert that timed out but landed: the revision has moved on,
+            // and the text is already there
+            if (e.getStatusCode() == 400 && googleDocsService.hasText(user, documentId)) {
+                logger.info("Text insert into {} was rejected but had gone through earlier", documentId);
+                return;
+            }
+            throw e;
+        }
+    }
+}
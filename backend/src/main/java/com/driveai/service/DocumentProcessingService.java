@@ -2,7 +2,7 @@ package com.driveai.service;
 
 import com.driveai.model.DriveFile;
 import com.driveai.model.User;
-import com.driveai.repository.DriveFileRepository;
+import io.micrometer.observation.annotation.Observed;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.slf4j.Logger;
@@ -14,10 +14,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
-import java.util.List;
 
 @Service
+@Observed(name = "driveai.service")
 public class DocumentProcessingService {
     
     private static final Logger logger = LoggerFactory.getLogger(DocumentProcessingService.class);
@@ -35,7 +34,7 @@ public class DocumentProcessingService {
     private OpenAiService openAiService;
     
     @Autowired
-    private DriveFileRepository driveFileRepository;
+    private DriveFileContentService driveFileContentService;
     
     public String extractTextContent(User user, DriveFile file) {
         try {
@@ -51,11 +50,9 @@ public class DocumentProcessingService {
                 content = extractTextFileContent(user, file.getId());
             }
             
-            // Update the file with extracted content
+            // Store the extracted content
             if (content != null && !content.isEmpty()) {
-                file.setContentText(content);
-                file.setLastAnalyzed(LocalDateTime.now());
-                driveFileRepository.save(file);
+                driveFileContentService.saveContentText(file.getId(), content);
             }
             
             return content;
@@ -68,7 +65,7 @@ public class DocumentProcessingService {
     
     public String analyzeDocument(User user, DriveFile file) {
         try {
-            String content = file.getContentText();
+            String content = driveFileContentService.getContentText(file.getId());
             if (content == null || content.isEmpty()) {
                 content = extractTextContent(user, file);
             }
@@ -80,9 +77,7 @@ public class DocumentProcessingService {
             String analysis = openAiService.analyzeDocument(file, content);
             
             // Update the file with analysis
-            file.setContentSummary(analysis);
-            file.setLastAnalyzed(LocalDateTime.now());
-            driveFileRepository.save(file);
+            driveFileContentService.saveContentSummary(file.getId(), analysis);
             
             return analysis;
             
@@ -92,25 +87,28 @@ public class DocumentProcessingService {
         }
     }
     
-    public void processFilesNeedingAnalysis(User user) {
-        try {
-            LocalDateTime threshold = LocalDateTime.now().minusDays(1);
-            List<DriveFile> filesToProcess = driveFileRepository.findFilesNeedingAnalysis(user, threshold);
-            
-            logger.info("Processing {} files for analysis", filesToProcess.size());
-            
-            for (DriveFile file : filesToProcess) {
-                try {
-                    analyzeDocument(user, file);
-                    Thread.sleep(1000); // Rate limiting
-                } catch (Exception e) {
-                    logger.warn("Failed to analyze file {}: {}", file.getId(), e.getMessage());
-                }
-            }
-            
-        } catch (Exception e) {
-            logger.error("Error processing files for analysis: {}", e.getMessage());
+    /**
+     * Analyzes a file for the background queue. Unlike {@link #analyzeDocument}, failures
+     * propagate so the job can be retried, and nothing is stored unless the completion
+     * succeeded. Returns false if the file has no extractable content.
+     */
+    public boolean analyzeDocumentForJob(User user, DriveFile file) {
+        String content = driveFileContentService.getContentText(file.getId());
+        if (content == null || content.isEmpty()) {
+            content = extractTextContent(user, file);
+        }
+        
+        if (content == null || content.isEmpty()) {
+            return false;
+        }
+        
+        String analysis = openAiService.requestDocumentAnalysis(file, content);
+        if (analysis == null || analysis.isBlank()) {
+            throw new IllegalStateException("Empty analysis response");
         }
+        
+        driveFileContentService.saveContentSummary(file.getId(), analysis);
+        return true;
     }
     
     private String extractPdfText(User user, String fileId) {
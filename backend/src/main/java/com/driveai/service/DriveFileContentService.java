@@ -0,0 +1,76 @@
+package com.driveai.service;
+
+import com.driveai.model.DriveFileContent;
+import com.driveai.repository.DriveFileContentRepository;
+import com.driveai.repository.DriveFileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes the out-of-row text of Drive files. Content is only
+ * loaded (and decompressed) when one of these methods is called. Writes
+ * take the file id and load the drive_files row in their own transaction,
+ * so they are safe from worker threads and only change the columns they own.
+ */
+@Service
+public class DriveFileContentService {
+    
+    @Autowired
+    private DriveFileContentRepository driveFileContentRepository;
+    
+    @Autowired
+    private DriveFileRepository driveFileRepository;
+    
+    public String getContentText(String fileId) {
+        return driveFileContentRepository.findById(fileId)
+                .map(DriveFileContent::getContentText)
+                .orElse(null);
+    }
+    
+    public String getContentSummary(String fileId) {
+        return driveFileContentRepository.findById(fileId)
+                .map(DriveFileContent::getContentSummary)
+                .orElse(null);
+    }
+    
+    public Map<String, String> getContentSummaries(Collection<String> fileIds) {
+        Map<String, String> summaries = new HashMap<>();
+        for (DriveFileContent content : driveFileContentRepository.findByFileIdIn(fileIds)) {
+            if (content.getContentSummary() != null) {
+                summaries.put(content.getFileId(), content.getContentSummary());
+            }
+        }
+        return summaries;
+    }
+    
+    @Transactional
+    public void saveContentText(String fileId, String text) {
+        DriveFileContent content = driveFileContentRepository.findById(fileId)
+                .orElseGet(() -> new DriveFileContent(fileId));
+        content.setContentText(text);
+        driveFileContentRepository.save(content);
+        
+        driveFileRepository.findById(fileId)
+                .ifPresent(file -> file.setContentLength(text != null ? text.length() : null));
+    }
+    
+    /** Stores the analysis of a file and marks the file analyzed now. */
+    @Transactional
+    public void saveContentSummary(String fileId, String summary) {
+        DriveFileContent content = driveFileContentRepository.findById(fileId)
+                .orElseGet(() -> new DriveFileContent(fileId));
+        content.setContentSummary(summary);
+        driveFileContentRepository.save(content);
+        
+        driveFileRepository.findById(fileId).ifPresent(file -> {
+            file.setSummaryAvailable(summary != null);
+            file.setLastAnalyzed(LocalDateTime.now());
+        });
+    }
+}
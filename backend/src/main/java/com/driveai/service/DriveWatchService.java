@@ -0,0 +1,399 @@
+package com.driveai.service;
+
+import com.driveai.config.BoundedExecutor;
+import com.driveai.config.BoundedExecutors;
+import com.driveai.model.DriveFile;
+import com.driveai.model.User;
+import com.driveai.repository.DriveFileRepository;
+import com.driveai.repository.UserRepository;
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.ChangeList;
+import com.google.api.services.drive.model.Channel;
+import com.google.api.services.drive.model.File;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps cached Drive files fresh from push notifications instead of polling. Each user can
+ * have one changes.watch channel; Drive POSTs to {@code drive-watch.webhook-url} when the
+ * user's change log grows, and the changes since the stored page token are then applied:
+ * known files that were modified get new metadata, lose their extracted text and are queued
+ * for analysis, and known files that were removed or trashed are dropped. Files the user
+ * has never listed are ignored.
+ * <p>
+ * Channels expire, so a sweep replaces every channel {@code renew-before-minutes} before
+ * its expiration.
+ */
+@Service
+public class DriveWatchService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DriveWatchService.class);
+    
+    // Renewal claims last this long, so a renewal that died is retried by the next sweep after it
+    private static final long RENEWAL_CLAIM_SECONDS = 300;
+    
+    @Autowired
+    private GoogleDriveService googleDriveService;
+    
+    @Autowired
+    private DriveFileRepository driveFileRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DriveFileContentService driveFileContentService;
+    
+    @Autowired
+    private AnalysisQueueService analysisQueueService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private BoundedExecutors boundedExecutors;
+    
+    @Value("${drive-watch.webhook-url:}")
+    private String webhookUrl;
+    
+    @Value("${drive-watch.channel-ttl-hours:24}")
+    private long channelTtlHours;
+    
+    @Value("${drive-watch.renew-before-minutes:60}")
+    private long renewBeforeMinutes;
+    
+    @Value("${drive-watch.changes-page-size:100}")
+    private int changesPageSize;
+    
+    @Value("${drive-watch.parallelism:4}")
+    private int parallelism;
+    
+    private BoundedExecutor executor;
+    
+    // Channels with a sync queued on this instance; notifications in a burst share one sync
+    private final Set<String> pendingSyncs = ConcurrentHashMap.newKeySet();
+    
+    @PostConstruct
+    void init() {
+        executor = boundedExecutors.create("drive-watch-", parallelism);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    public boolean isEnabled() {
+        return !webhookUrl.isBlank();
+    }
+    
+    /**
+     * Opens a channel for the user, replacing any existing one.
+     *
+     * @throws IllegalStateException if no webhook URL is configured
+     */
+    public Map<String, Object> watch(User user) throws IOException {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Drive push notifications are not configured");
+        }
+        
+        User owner = userRepository.findById(user.getId()).orElseThrow(() -> new IllegalStateException("User not found"));
+        Optional<ChannelRow> existing = findByUser(owner.getId());
+        String pageToken = existing.map(row -> row.pageToken).orElse(null);
+        if (pageToken == null) {
+            pageToken = googleDriveService.getStartPageToken(owner);
+        }
+        
+        ChannelRow channel = open(owner, pageToken);
+        jdbcTemplate.update("""
+                INSERT INTO drive_watch_channels (id, user_id, resource_id, token, page_token, expiration, renew_after)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT (user_id) DO UPDATE
+                SET id = EXCLUDED.id, resource_id = EXCLUDED.resource_id, token = EXCLUDED.token,
+                    expiration = EXCLUDED.expiration, renew_after = EXCLUDED.renew_after, updated_at = now()
+                """, channel.id, owner.getId(), channel.resourceId, channel.token, pageToken,
+                Timestamp.valueOf(channel.expiration), Timestamp.valueOf(renewAfter(channel.expiration)));
+        existing.ifPresent(old -> stopQuietly(owner, old));
+        
+        logger.info("Watching Drive changes for user {} on channel {} until {}", owner.getId(), channel.id, channel.expiration);
+        return describe(channel.id, channel.expiration);
+    }
+    
+    /** Stops the user's channel. Returns false if there was none. */
+    public boolean unwatch(User user) {
+        Optional<ChannelRow> existing = findByUser(user.getId());
+        if (existing.isEmpty()) {
+            return false;
+        }
+        jdbcTemplate.update("DELETE FROM drive_watch_channels WHERE id = ?", existing.get().id);
+        userRepository.findById(user.getId()).ifPresent(owner -> stopQuietly(owner, existing.get()));
+        return true;
+    }
+    
+    public Optional<Map<String, Object>> getChannel(User user) {
+        return findByUser(user.getId()).map(row -> describe(row.id, row.expiration));
+    }
+    
+    /**
+     * Handles a Drive notification. Returns false if the channel is unknown or the token
+     * does not match; otherwise the changes are applied in the background.
+     */
+    public boolean handleNotification(String channelId, String token, String resourceState) {
+        Optional<ChannelRow> channel = findById(channelId);
+        if (channel.isEmpty() || token == null || !MessageDigest.isEqual(
+                channel.get().token.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            return false;
+        }
+        
+        // "sync" only confirms that the channel was opened
+        if (!"sync".equals(resourceState) && pendingSyncs.add(channelId)) {
+            executor.execute(() -> {
+                pendingSyncs.remove(channelId);
+                sync(channelId);
+            });
+        }
+        return true;
+    }
+    
+    /** Replaces channels that are about to expire. */
+    @Scheduled(fixedDelayString = "${drive-watch.renewal-interval-ms:300000}")
+    public void renewExpiringChannels() {
+        if (!isEnabled()) {
+            return;
+        }
+        List<String> due = jdbcTemplate.queryForList(
+                "SELECT id FROM drive_watch_channels WHERE renew_after <= now()", String.class);
+        for (String channelId : due) {
+            try {
+                renew(channelId);
+            } catch (Exception e) {
+                logger.error("Failed to renew Drive channel {}: {}", channelId, e.getMessage());
+            }
+        }
+    }
+    
+    private void renew(String channelId) throws IOException {
+        // Claimed by moving renew_after forward; another instance's sweep then skips it
+        int claimed = jdbcTemplate.update("""
+                UPDATE drive_watch_channels SET renew_after = now() + ? * interval '1 second'
+                WHERE id = ? AND renew_after <= now()
+                """, RENEWAL_CLAIM_SECONDS, channelId);
+        Optional<ChannelRow> old = findById(channelId);
+        if (claimed == 0 || old.isEmpty()) {
+            return;
+        }
+        Optional<User> owner = userRepository.findById(old.get().userId);
+        if (owner.isEmpty()) {
+            return;
+        }
+        
+        // The new channel takes over from the stored page token, so no change falls between the two
+        ChannelRow channel = open(owner.get(), old.get().pageToken);
+        int replaced = jdbcTemplate.update("""
+                UPDATE drive_watch_channels
+                SET id = ?, resource_id = ?, token = ?, expiration = ?, renew_after = ?, updated_at = now()
+                WHERE id = ?
+                """, channel.id, channel.resourceId, channel.token, Timestamp.valueOf(channel.expiration),
+                Timestamp.valueOf(renewAfter(channel.expiration)), channelId);
+        if (replaced == 0) {
+            // Unwatched or replaced meanwhile
+            stopQuietly(owner.get(), channel);
+            return;
+        }
+        stopQuietly(owner.get(), old.get());
+        logger.info("Renewed Drive channel {} as {} until {}", channelId, channel.id, channel.expiration);
+    }
+    
+    // Applies the changes since the stored page token, then moves the token past them
+    private void sync(String channelId) {
+        try {
+            Optional<ChannelRow> channel = findById(channelId);
+            if (channel.isEmpty()) {
+                return;
+            }
+            User owner = userRepository.findById(channel.get().userId).orElse(null);
+            if (owner == null) {
+                return;
+            }
+            
+            String startToken = channel.get().pageToken;
+            String pageToken = startToken;
+            Map<String, Change> changes = new LinkedHashMap<>();
+            while (true) {
+                ChangeList page = googleDriveService.listChanges(owner, pageToken, changesPageSize);
+                if (page.getChanges() != null) {
+                    for (Change change : page.getChanges()) {
+                        if (change.getFileId() != null) {
+                            // A later change to the same file supersedes the earlier ones
+                            changes.remove(change.getFileId());
+                            changes.put(change.getFileId(), change);
+                        }
+                    }
+                }
+                if (page.getNextPageToken() == null) {
+                    pageToken = page.getNewStartPageToken();
+                    break;
+                }
+                pageToken = page.getNextPageToken();
+            }
+            
+            int queued = apply(owner, changes);
+            
+            // Applying is idempotent, so if another instance got here first the work was just repeated
+            if (pageToken != null) {
+                jdbcTemplate.update("""
+                        UPDATE drive_watch_channels SET page_token = ?, updated_at = now()
+                        WHERE id = ? AND page_token = ?
+                        """, pageToken, channelId, startToken);
+            }
+            logger.debug("Applied {} Drive changes on channel {}, queued {} files", changes.size(), channelId, queued);
+            
+        } catch (Exception e) {
+            // The token was not advanced, so the next notification picks these changes up again
+            logger.error("Error syncing Drive changes on channel {}: {}", channelId, e.getMessage());
+        }
+    }
+    
+    private int apply(User owner, Map<String, Change> changes) {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        
+        Map<String, DriveFile> known = new HashMap<>();
+        for (DriveFile file : driveFileRepository.findByUserAndIdIn(owner, changes.keySet())) {
+            known.put(file.getId(), file);
+        }
+        
+        List<DriveFile> removed = new ArrayList<>();
+        Set<String> modified = new LinkedHashSet<>();
+        for (Change change : changes.values()) {
+            DriveFile cached = known.get(change.getFileId());
+            if (cached == null) {
+                continue;
+            }
+            File file = change.getFile();
+            if (Boolean.TRUE.equals(change.getRemoved()) || file == null || Boolean.TRUE.equals(file.getTrashed())) {
+                removed.add(cached);
+                continue;
+            }
+            
+            // Sharing and other metadata-only changes leave modifiedTime alone and need no new analysis
+            LocalDateTime modifiedTime = file.getModifiedTime() != null
+                    ? LocalDateTime.ofInstant(Instant.ofEpochMilli(file.getModifiedTime().getValue()), ZoneId.systemDefault())
+                    : null;
+            boolean contentChanged = modifiedTime == null || cached.getModifiedTime() == null
+                    || modifiedTime.isAfter(cached.getModifiedTime());
+            if (contentChanged) {
+                // Dropping the text makes the queued analysis extract the file again
+                driveFileContentService.saveContentText(cached.getId(), null);
+                modified.add(cached.getId());
+            }
+            googleDriveService.cacheFileMetadata(owner, file);
+        }
+        
+        if (!removed.isEmpty()) {
+            driveFileRepository.deleteAll(removed);
+        }
+        return analysisQueueService.enqueueFiles(owner.getId(), modified);
+    }
+    
+    private ChannelRow open(User owner, String pageToken) throws IOException {
+        ChannelRow channel = new ChannelRow();
+        channel.id = UUID.randomUUID().toString();
+        channel.token = UUID.randomUUID().toString().replace("-", "");
+        channel.userId = owner.getId();
+        channel.pageToken = pageToken;
+        
+        Channel opened = googleDriveService.watchChanges(owner, pageToken, new Channel()
+                .setId(channel.id)
+                .setType("web_hook")
+                .setAddress(webhookUrl)
+                .setToken(channel.token)
+                .setExpiration(System.currentTimeMillis() + channelTtlHours * 3_600_000L));
+        channel.resourceId = opened.getResourceId();
+        // Drive may shorten the requested lifetime
+        long expiration = opened.getExpiration() != null
+                ? opened.getExpiration()
+                : System.currentTimeMillis() + channelTtlHours * 3_600_000L;
+        channel.expiration = LocalDateTime.ofInstant(Instant.ofEpochMilli(expiration), ZoneId.systemDefault());
+        return channel;
+    }
+    
+    private void stopQuietly(User owner, ChannelRow channel) {
+        try {
+            googleDriveService.stopChannel(owner, channel.id, channel.resourceId);
+        } catch (Exception e) {
+            // It expires on its own, and its notifications no longer match a stored channel
+            logger.warn("Failed to stop Drive channel {}: {}", channel.id, e.getMessage());
+        }
+    }
+    
+    private LocalDateTime renewAfter(LocalDateTime expiration) {
+        return expiration.minusMinutes(renewBeforeMinutes);
+    }
+    
+    private Optional<ChannelRow> findById(String channelId) {
+        return jdbcTemplate.query("SELECT * FROM drive_watch_channels WHERE id = ?",
+                (rs, rowNum) -> mapRow(rs), channelId).stream().findFirst();
+    }
+    
+    private Optional<ChannelRow> findByUser(Long userId) {
+        return jdbcTemplate.query("SELECT * FROM drive_watch_channels WHERE user_id = ?",
+                (rs, rowNum) -> mapRow(rs), userId).stream().findFirst();
+    }
+    
+    private static ChannelRow mapRow(ResultSet rs) throws SQLException {
+        ChannelRow row = new ChannelRow();
+        row.id = rs.getString("id");
+        row.userId = rs.getLong("user_id");
+        row.resourceId = rs.getString("resource_id");
+        row.token = rs.getString("token");
+        row.pageToken = rs.getString("page_token");
+        row.expiration = rs.getTimestamp("expiration").toLocalDateTime();
+        return row;
+    }
+    
+    private static Map<String, Object> describe(String channelId, LocalDateTime expiration) {
+        return Map.of(
+            "channelId", channelId,
+            "expiration", expiration
+        );
+    }
+    
+    private static final class ChannelRow {
+        
+        private String id;
+        private Long userId;
+        private String resourceId;
+        private String token;
+        private String pageToken;
+        private LocalDateTime expiration;
+    }
+}
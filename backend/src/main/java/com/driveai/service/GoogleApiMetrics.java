@@ -0,0 +1,74 @@
+package com.driveai.service;
+
+import com.google.api.client.googleapis.services.AbstractGoogleClientRequest;
+import com.google.api.client.http.HttpResponseException;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Executes Google API requests as {@code driveai.google.api.requests} observations, giving
+ * one timer sample and one span per HTTP call. Both are tagged with the service
+ * ({@code drive}, {@code docs}, {@code sheets}), the API method (e.g. {@code files.list},
+ * {@code spreadsheets.values.get}) and the outcome ({@code success}, the HTTP status of an
+ * error response, or {@code io_error}).
+ */
+@Component
+public class GoogleApiMetrics {
+    
+    static final String REQUESTS_METRIC = "driveai.google.api.requests";
+    
+    private final ObservationRegistry observationRegistry;
+    
+    // Request class -> {service, method}; e.g. Sheets$Spreadsheets$Values$Get -> {sheets, spreadsheets.values.get}
+    private final Map<Class<?>, String[]> operations = new ConcurrentHashMap<>();
+    
+    public GoogleApiMetrics(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+    
+    public <T> T execute(AbstractGoogleClientRequest<T> request) throws IOException {
+        String[] operation = operations.computeIfAbsent(request.getClass(), GoogleApiMetrics::operationOf);
+        Observation observation = Observation.createNotStarted(REQUESTS_METRIC, observationRegistry)
+                .contextualName(operation[0] + " " + operation[1])
+                .lowCardinalityKeyValue("service", operation[0])
+                .lowCardinalityKeyValue("method", operation[1])
+                .start();
+        String outcome = "success";
+        try (Observation.Scope scope = observation.openScope()) {
+            return request.execute();
+        } catch (HttpResponseException e) {
+            outcome = String.valueOf(e.getStatusCode());
+            observation.error(e);
+            throw e;
+        } catch (IOException e) {
+            outcome = "io_error";
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
+        }
+    }
+    
+    static String[] operationOf(Class<?> requestClass) {
+        String name = requestClass.getName();
+        String[] parts = name.substring(name.lastIndexOf('.') + 1).split("\\$");
+        if (parts.length < 2) {
+            return new String[] {parts[0].toLowerCase(Locale.ROOT), "unknown"};
+        }
+        
+        StringBuilder method = new StringBuilder();
+        for (int i = 1; i < parts.length; i++) {
+            if (i > 1) {
+                method.append('.');
+            }
+            method.append(parts[i].toLowerCase(Locale.ROOT));
+        }
+        return new String[] {parts[0].toLowerCase(Locale.ROOT), method.toString()};
+    }
+}
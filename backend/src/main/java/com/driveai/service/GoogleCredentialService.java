@@ -0,0 +1,306 @@
+package com.driveai.service;
+
+import com.driveai.config.BoundedExecutor;
+import com.driveai.config.BoundedExecutors;
+import com.driveai.config.GoogleClientFactory;
+import com.driveai.model.User;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.auth.oauth2.CredentialRefreshListener;
+import com.google.api.client.auth.oauth2.TokenErrorResponse;
+import com.google.api.client.auth.oauth2.TokenResponse;
+import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.docs.v1.Docs;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.sheets.v4.Sheets;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Google OAuth credentials and the Drive, Docs and Sheets clients built on them, one set
+ * per user. A client sends the token of the credential it was built with, so clients are
+ * never shared between users.
+ * <p>
+ * Access tokens are refreshed in the background shortly before they expire, so a request
+ * never waits on the token endpoint. The sweep picks a batch of users whose token expires
+ * within the refresh window (widened by a per-user jitter, so tokens issued together are not
+ * all refreshed together), claims each one in the database so only one instance refreshes
+ * it, and refreshes them on a small pool. The refreshed token is written to the users table
+ * and swapped into the cached {@link Credential} in place, so the user's clients pick it up
+ * on their next call.
+ */
+@Service
+public class GoogleCredentialService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GoogleCredentialService.class);
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    // Created with the first credential rather than at startup
+    @Autowired
+    private ObjectProvider<NetHttpTransport> httpTransport;
+    
+    @Autowired
+    private ObjectProvider<GoogleClientFactory> googleClientFactory;
+    
+    @Autowired
+    private BoundedExecutors boundedExecutors;
+    
+    @Value("${google.client-id}")
+    private String clientId;
+    
+    @Value("${google.client-secret}")
+    private String clientSecret;
+    
+    @Value("${spring.security.oauth2.client.provider.google.token-uri:https://oauth2.googleapis.com/token}")
+    private String tokenServerUrl;
+    
+    @Value("${token-refresh.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${token-refresh.refresh-before-seconds:600}")
+    private long refreshBeforeSeconds;
+    
+    @Value("${token-refresh.max-jitter-seconds:300}")
+    private long maxJitterSeconds;
+    
+    @Value("${token-refresh.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${token-refresh.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${token-refresh.claim-seconds:60}")
+    private long claimSeconds;
+    
+    @Value("${token-refresh.credential-cache.max-size:10000}")
+    private long cacheMaxSize;
+    
+    @Value("${token-refresh.credential-cache.expire-after-access-minutes:60}")
+    private long cacheExpireAfterAccessMinutes;
+    
+    private BoundedExecutor executor;
+    
+    private LoadingCache<Long, UserClients> userClients;
+    
+    // Users being refreshed by this instance; the database claim covers the others
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    
+    @PostConstruct
+    void init() {
+        executor = boundedExecutors.create("token-refresh-", parallelism, batchSize);
+        userClients = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterAccess(Duration.ofMinutes(cacheExpireAfterAccessMinutes))
+                .build(this::createClients);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * Returns the user's credential. Its token is kept fresh by the background refresh; this
+     * only reloads it from the database when it is close to expiry, in case another instance
+     * refreshed it.
+     */
+    public Credential getCredential(User user) {
+        return getClients(user).credential();
+    }
+    
+    public Drive getDrive(User user) {
+        return getClients(user).drive();
+    }
+    
+    public Docs getDocs(User user) {
+        return getClients(user).docs();
+    }
+    
+    public Sheets getSheets(User user) {
+        return getClients(user).sheets();
+    }
+    
+    private UserClients getClients(User user) {
+        UserClients clients = userClients.get(user.getId());
+        Long expiresIn = clients.credential().getExpiresInSeconds();
+        if (expiresIn != null && expiresIn < refreshBeforeSeconds / 2) {
+            load(user.getId(), clients.credential());
+        }
+        return clients;
+    }
+    
+    /**
+     * Stores tokens from a sign-in. A null refresh token keeps the stored one, as Google only
+     * issues one on the first consent.
+     */
+    public void saveTokens(Long userId, String accessToken, String refreshToken, Instant expiresAt) {
+        jdbcTemplate.update("""
+                UPDATE users SET access_token = ?, refresh_token = COALESCE(?, refresh_token),
+                                 token_expires_at = ?, updated_at = now()
+                WHERE id = ?
+                """, accessToken, refreshToken, expiresAt != null ? Timestamp.from(expiresAt) : null, userId);
+        evictUser(userId);
+        UserClients clients = userClients.getIfPresent(userId);
+        if (clients != null) {
+            load(userId, clients.credential());
+        }
+    }
+    
+    /** Refreshes tokens that expire within the refresh window. */
+    @Scheduled(fixedDelayString = "${token-refresh.interval-ms:60000}")
+    public void refreshExpiringTokens() {
+        if (!enabled) {
+            return;
+        }
+        // mod(id, ...) spreads users evenly over the jitter window, and puts each at the same point on every sweep
+        List<Long> due = jdbcTemplate.queryForList("""
+                SELECT id FROM users
+                WHERE refresh_token IS NOT NULL
+                  AND token_expires_at < now() + (? + mod(id * 7919, ?)) * interval '1 second'
+                  AND (token_refresh_claimed_until IS NULL OR token_refresh_claimed_until < now())
+                ORDER BY token_expires_at
+                LIMIT ?
+                """, Long.class, refreshBeforeSeconds, Math.max(maxJitterSeconds, 1), batchSize);
+        for (Long userId : due) {
+            if (!refreshing.add(userId)) {
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        refresh(userId);
+                    } catch (Exception e) {
+                        logger.warn("Failed to refresh token for user {}: {}", userId, e.getMessage());
+                    } finally {
+                        refreshing.remove(userId);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Still due on the next sweep
+                refreshing.remove(userId);
+            }
+        }
+    }
+    
+    private void refresh(Long userId) throws IOException {
+        int claimed = jdbcTemplate.update("""
+                UPDATE users SET token_refresh_claimed_until = now() + ? * interval '1 second'
+                WHERE id = ? AND (token_refresh_claimed_until IS NULL OR token_refresh_claimed_until < now())
+                """, claimSeconds, userId);
+        if (claimed == 0) {
+            return;
+        }
+        try {
+            // Reloaded under the claim, so a token another instance just refreshed is not refreshed again
+            Credential credential = userClients.get(userId).credential();
+            load(userId, credential);
+            Long expiresIn = credential.getExpiresInSeconds();
+            if (credential.getRefreshToken() == null
+                    || (expiresIn != null && expiresIn > refreshBeforeSeconds + maxJitterSeconds)) {
+                return;
+            }
+            // Persisted by the refresh listener
+            credential.refreshToken();
+        } finally {
+            jdbcTemplate.update("UPDATE users SET token_refresh_claimed_until = NULL WHERE id = ?", userId);
+        }
+    }
+    
+    private UserClients createClients(Long userId) {
+        Credential credential = createCredential(userId);
+        GoogleClientFactory factory = googleClientFactory.getObject();
+        return new UserClients(credential, factory.drive(credential), factory.docs(credential), factory.sheets(credential));
+    }
+    
+    private Credential createCredential(Long userId) {
+        Credential credential = new GoogleCredential.Builder()
+                .setTransport(httpTransport.getObject())
+                .setJsonFactory(GsonFactory.getDefaultInstance())
+                .setClientSecrets(clientId, clientSecret)
+                .setTokenServerEncodedUrl(tokenServerUrl)
+                .addRefreshListener(new PersistingRefreshListener(userId))
+                .build();
+        load(userId, credential);
+        return credential;
+    }
+    
+    // Read past the entity cache, which may hold tokens from before another instance's refresh
+    private void load(Long userId, Credential credential) {
+        jdbcTemplate.query("SELECT access_token, refresh_token, token_expires_at FROM users WHERE id = ?", rs -> {
+            Timestamp expiresAt = rs.getTimestamp("token_expires_at");
+            credential.setExpirationTimeMilliseconds(expiresAt != null ? expiresAt.getTime() : null);
+            credential.setRefreshToken(rs.getString("refresh_token"));
+            credential.setAccessToken(rs.getString("access_token"));
+        }, userId);
+    }
+    
+    private void evictUser(Long userId) {
+        entityManagerFactory.getCache().evict(User.class, userId);
+    }
+    
+    private record UserClients(Credential credential, Drive drive, Docs docs, Sheets sheets) {
+    }
+    
+    /** Writes refreshed tokens back, whether the background sweep or the client library refreshed them. */
+    private class PersistingRefreshListener implements CredentialRefreshListener {
+        
+        private final Long userId;
+        
+        PersistingRefreshListener(Long userId) {
+            this.userId = userId;
+        }
+        
+        @Override
+        public void onTokenResponse(Credential credential, TokenResponse tokenResponse) {
+            Long expiresAt = credential.getExpirationTimeMilliseconds();
+            jdbcTemplate.update("""
+                    UPDATE users SET access_token = ?, refresh_token = COALESCE(?, refresh_token),
+                                     token_expires_at = ?, updated_at = now()
+                    WHERE id = ?
+                    """, credential.getAccessToken(), tokenResponse.getRefreshToken(),
+                    expiresAt != null ? new Timestamp(expiresAt) : null, userId);
+            evictUser(userId);
+        }
+        
+        @Override
+        public void onTokenErrorResponse(Credential credential, TokenErrorResponse tokenErrorResponse) {
+            if (tokenErrorResponse == null || !"invalid_grant".equals(tokenErrorResponse.getError())) {
+                return;
+            }
+            // Revoked or expired refresh token; the user has to sign in again
+            logger.warn("Refresh token for user {} is no longer valid", userId);
+            jdbcTemplate.update("""
+                    UPDATE users SET access_token = NULL, refresh_token = NULL, token_expires_at = NULL, updated_at = now()
+                    WHERE id = ?
+                    """, userId);
+            evictUser(userId);
+            userClients.invalidate(userId);
+        }
+    }
+}
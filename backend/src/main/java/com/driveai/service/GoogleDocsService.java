@@ -1,43 +1,43 @@
 package com.driveai.service;
 
 import com.driveai.model.User;
-import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.docs.v1.Docs;
+import com.google.api.services.docs.v1.model.BatchUpdateDocumentRequest;
 import com.google.api.services.docs.v1.model.Document;
+import com.google.api.services.docs.v1.model.InsertTextRequest;
+import com.google.api.services.docs.v1.model.Location;
+import com.google.api.services.docs.v1.model.ReplaceAllTextRequest;
+import com.google.api.services.docs.v1.model.Request;
+import com.google.api.services.docs.v1.model.SubstringMatchCriteria;
+import com.google.api.services.docs.v1.model.WriteControl;
+import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
+@Observed(name = "driveai.service")
 public class GoogleDocsService {
     
     private static final Logger logger = LoggerFactory.getLogger(GoogleDocsService.class);
     
     @Autowired
-    private Docs docsService;
+    private GoogleApiMetrics googleApiMetrics;
     
-    @Value("${google.client-id}")
-    private String clientId;
-    
-    @Value("${google.client-secret}")
-    private String clientSecret;
+    @Autowired
+    private GoogleCredentialService googleCredentialService;
     
     public String extractTextContent(User user, String documentId) {
         try {
-            Credential credential = createCredential(user);
-            Docs docs = docsService.setHttpRequestInitializer(credential);
+            Docs docs = googleCredentialService.getDocs(user);
             
-            Document document = docs.documents().get(documentId).execute();
+            Document document = googleApiMetrics.execute(docs.documents().get(documentId));
             return extractTextFromDocument(document);
             
         } catch (IOException e) {
@@ -48,10 +48,9 @@ public class GoogleDocsService {
     
     public Document getDocument(User user, String documentId) {
         try {
-            Credential credential = createCredential(user);
-            Docs docs = docsService.setHttpRequestInitializer(credential);
+            Docs docs = googleCredentialService.getDocs(user);
             
-            return docs.documents().get(documentId).execute();
+            return googleApiMetrics.execute(docs.documents().get(documentId));
             
         } catch (IOException e) {
             logger.error("Error getting Google Doc {}: {}", documentId, e.getMessage());
@@ -59,7 +58,66 @@ public class GoogleDocsService {
         }
     }
     
-    private String extractTextFromDocument(Document document) {
+    /**
+     * The current revision of a document, for {@link #insertText}. Unlike the read methods
+     * above, failures are thrown so that callers can tell them apart from an empty result.
+     */
+    public String getRevisionId(User user, String documentId) throws IOException {
+        Docs docs = googleCredentialService.getDocs(user);
+        
+        return googleApiMetrics.execute(docs.documents().get(documentId).setFields("revisionId")).getRevisionId();
+    }
+    
+    /**
+     * Whether a document's body has any text, for telling whether an {@link #insertText}
+     * that failed had gone through. Failures are thrown, as for {@link #getRevisionId}.
+     */
+    public boolean hasText(User user, String documentId) throws IOException {
+        Docs docs = googleCredentialService.getDocs(user);
+        
+        return !extractTextFromDocument(googleApiMetrics.execute(docs.documents().get(documentId))).isEmpty();
+    }
+    
+    /**
+     * Writes the whole body of a freshly created document in a single batchUpdate. The
+     * update is pinned to {@code revisionId}, so a retry after an update that did land
+     * is rejected by Docs instead of inserting the text twice.
+     */
+    public void insertText(User user, String documentId, String revisionId, String text) throws IOException {
+        Docs docs = googleCredentialService.getDocs(user);
+        
+        BatchUpdateDocumentRequest update = new BatchUpdateDocumentRequest()
+                .setRequests(List.of(new Request().setInsertText(new InsertTextRequest()
+                        .setLocation(new Location().setIndex(1))
+                        .setText(text))))
+                .setWriteControl(new WriteControl().setRequiredRevisionId(revisionId));
+        googleApiMetrics.execute(docs.documents().batchUpdate(documentId, update));
+    }
+    
+    /**
+     * Replaces every {@code {{name}}} placeholder of a document in a single batchUpdate.
+     * Safe to retry: once a placeholder is replaced, repeating the update changes nothing.
+     */
+    public void replacePlaceholders(User user, String documentId, Map<String, String> values) throws IOException {
+        if (values.isEmpty()) {
+            return;
+        }
+        
+        Docs docs = googleCredentialService.getDocs(user);
+        
+        List<Request> requests = new ArrayList<>(values.size());
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            requests.add(new Request().setReplaceAllText(new ReplaceAllTextRequest()
+                    .setContainsText(new SubstringMatchCriteria()
+                            .setText("{{" + value.getKey() + "}}")
+                            .setMatchCase(true))
+                    .setReplaceText(value.getValue())));
+        }
+        googleApiMetrics.execute(docs.documents().batchUpdate(documentId,
+                new BatchUpdateDocumentRequest().setRequests(requests)));
+    }
+    
+    String extractTextFromDocument(Document document) {
         StringBuilder text = new StringBuilder();
         
         if (document.getBody() != null && document.getBody().getContent() != null) {
@@ -83,19 +141,4 @@ public class GoogleDocsService {
         }
         text.append("\n");
     }
-    
-    private Credential createCredential(User user) {
-        try {
-            return new GoogleCredential.Builder()
-                    .setTransport(GoogleNetHttpTransport.newTrustedTransport())
-                    .setJsonFactory(GsonFactory.getDefaultInstance())
-                    .setClientSecrets(clientId, clientSecret)
-                    .build()
-                    .setAccessToken(user.getAccessToken())
-                    .setRefreshToken(user.getRefreshToken());
-        } catch (GeneralSecurityException | IOException e) {
-            logger.error("Failed to create Google credential: {}", e.getMessage());
-            throw new RuntimeException("Failed to create Google credential", e);
-        }
-    }
 }
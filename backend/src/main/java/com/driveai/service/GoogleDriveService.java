@@ -1,16 +1,19 @@
 package com.driveai.service;
 
+import com.driveai.config.BoundedExecutor;
+import com.driveai.config.BoundedExecutors;
 import com.driveai.dto.DriveFileDto;
 import com.driveai.model.DriveFile;
 import com.driveai.model.User;
 import com.driveai.repository.DriveFileRepository;
-import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.ChangeList;
+import com.google.api.services.drive.model.Channel;
 import com.google.api.services.drive.model.File;
 import com.google.api.services.drive.model.FileList;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,20 +21,30 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.security.GeneralSecurityException;
+import java.io.InterruptedIOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 @Service
+@Observed(name = "driveai.service")
 public class GoogleDriveService {
     
     private static final Logger logger = LoggerFactory.getLogger(GoogleDriveService.class);
     
+    private static final String GOOGLE_DOC_MIME_TYPE = "application/vnd.google-apps.document";
+    
+    // appProperties key holding the create key of files this application creates
+    private static final String CREATE_KEY_PROPERTY = "driveaiCreateKey";
+    
     @Autowired
-    private Drive driveService;
+    private GoogleApiMetrics googleApiMetrics;
     
     @Autowired
     private DriveFileRepository driveFileRepository;
@@ -45,22 +58,37 @@ public class GoogleDriveService {
     @Autowired
     private DocumentProcessingService documentProcessingService;
     
-    @Value("${google.client-id}")
-    private String clientId;
+    @Autowired
+    private GoogleCredentialService googleCredentialService;
+    
+    @Autowired
+    private BoundedExecutors boundedExecutors;
+    
+    @Value("${google.fetch-parallelism:16}")
+    private int fetchParallelism;
     
-    @Value("${google.client-secret}")
-    private String clientSecret;
+    // Content fetched alongside file metadata
+    private BoundedExecutor fetchExecutor;
+    
+    @PostConstruct
+    void init() {
+        fetchExecutor = boundedExecutors.create("drive-fetch-", fetchParallelism);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        fetchExecutor.shutdown();
+    }
     
     public List<DriveFileDto> listFiles(User user, String query, int maxResults) throws IOException {
-        Credential credential = createCredential(user);
-        Drive drive = driveService.setHttpRequestInitializer(credential);
+        Drive drive = googleCredentialService.getDrive(user);
         
         Drive.Files.List request = drive.files().list()
                 .setQ(query)
                 .setPageSize(maxResults)
                 .setFields("nextPageToken, files(id, name, mimeType, size, modifiedTime, webViewLink, parents)");
         
-        FileList fileList = request.execute();
+        FileList fileList = googleApiMetrics.execute(request);
         List<DriveFileDto> files = new ArrayList<>();
         
         if (fileList.getFiles() != null) {
@@ -77,12 +105,10 @@ public class GoogleDriveService {
     }
     
     public DriveFileDto getFile(User user, String fileId) throws IOException {
-        Credential credential = createCredential(user);
-        Drive drive = driveService.setHttpRequestInitializer(credential);
+        Drive drive = googleCredentialService.getDrive(user);
         
-        File file = drive.files().get(fileId)
-                .setFields("id, name, mimeType, size, modifiedTime, webViewLink, parents")
-                .execute();
+        File file = googleApiMetrics.execute(drive.files().get(fileId)
+                .setFields("id, name, mimeType, size, modifiedTime, webViewLink, parents"));
         
         DriveFileDto dto = convertToDto(file);
         cacheFileMetadata(user, file);
@@ -90,13 +116,119 @@ public class GoogleDriveService {
         return dto;
     }
     
+    /**
+     * Copies a file, e.g. a template Doc, under a new name; into {@code folderId} when
+     * given, otherwise next to the original. The copy is tagged with {@code createKey}
+     * for {@link #findCreated}.
+     */
+    public File copyFile(User user, String fileId, String name, String folderId, String createKey) throws IOException {
+        Drive drive = googleCredentialService.getDrive(user);
+        
+        File copy = new File()
+                .setName(name)
+                .setAppProperties(Map.of(CREATE_KEY_PROPERTY, createKey));
+        if (folderId != null) {
+            copy.setParents(List.of(folderId));
+        }
+        return googleApiMetrics.execute(drive.files().copy(fileId, copy)
+                .setFields("id, name, webViewLink"));
+    }
+    
+    /**
+     * Creates an empty Google Doc tagged with {@code createKey}, so that a create whose
+     * response was lost can be found with {@link #findCreated} instead of being repeated.
+     */
+    public File createDocument(User user, String name, String createKey) throws IOException {
+        Drive drive = googleCredentialService.getDrive(user);
+        
+        File document = new File()
+                .setName(name)
+                .setMimeType(GOOGLE_DOC_MIME_TYPE)
+                .setAppProperties(Map.of(CREATE_KEY_PROPERTY, createKey));
+        return googleApiMetrics.execute(drive.files().create(document)
+                .setFields("id, name, webViewLink"));
+    }
+    
+    /** The file created with {@code createKey}, or null if there is none. */
+    public File findCreated(User user, String createKey) throws IOException {
+        Drive drive = googleCredentialService.getDrive(user);
+        
+        // Create keys are generated here and never contain quotes
+        FileList found = googleApiMetrics.execute(drive.files().list()
+                .setQ("appProperties has { key='" + CREATE_KEY_PROPERTY + "' and value='" + createKey + "' } and trashed = false")
+                .setFields("files(id, name, webViewLink)")
+                .setPageSize(1));
+        return found.getFiles() == null || found.getFiles().isEmpty() ? null : found.getFiles().get(0);
+    }
+    
+    /** Page token from which {@link #listChanges} reports changes made after this call. */
+    public String getStartPageToken(User user) throws IOException {
+        Drive drive = googleCredentialService.getDrive(user);
+        
+        return googleApiMetrics.execute(drive.changes().getStartPageToken()).getStartPageToken();
+    }
+    
+    /**
+     * Opens a push-notification channel: Drive POSTs to the channel's address whenever the
+     * user's change log grows past {@code pageToken}. The returned channel carries the
+     * resourceId needed to stop it and its actual expiration.
+     */
+    public Channel watchChanges(User user, String pageToken, Channel channel) throws IOException {
+        Drive drive = googleCredentialService.getDrive(user);
+        
+        return googleApiMetrics.execute(drive.changes().watch(pageToken, channel)
+                .setIncludeRemoved(true));
+    }
+    
+    public void stopChannel(User user, String channelId, String resourceId) throws IOException {
+        Drive drive = googleCredentialService.getDrive(user);
+        
+        googleApiMetrics.execute(drive.channels().stop(new Channel()
+                .setId(channelId)
+                .setResourceId(resourceId)));
+    }
+    
+    /**
+     * One page of the user's change log. The last page has newStartPageToken instead of
+     * nextPageToken.
+     */
+    public ChangeList listChanges(User user, String pageToken, int pageSize) throws IOException {
+        Drive drive = googleCredentialService.getDrive(user);
+        
+        return googleApiMetrics.execute(drive.changes().list(pageToken)
+                .setPageSize(pageSize)
+                .setIncludeRemoved(true)
+                .setFields("nextPageToken, newStartPageToken, " +
+                        "changes(fileId, removed, file(id, name, mimeType, size, modifiedTime, trashed))"));
+    }
+    
     public String getFileContent(User user, String fileId) throws IOException {
-        Credential credential = createCredential(user);
-        Drive drive = driveService.setHttpRequestInitializer(credential);
+        Drive drive = googleCredentialService.getDrive(user);
+        
+        // If the cached type says it is a Doc or Sheet, the content is fetched while the metadata
+        // confirms the type, instead of after it
+        String cachedMimeType = driveFileRepository.findByIdAndUser(fileId, user)
+                .map(DriveFile::getMimeType)
+                .orElse(null);
+        FutureTask<String> prefetched = null;
+        if (isGoogleDocument(cachedMimeType)) {
+            prefetched = new FutureTask<>(() -> extractGoogleDocumentContent(user, fileId, cachedMimeType));
+            fetchExecutor.execute(prefetched);
+        }
         
-        // Get file metadata first
-        File file = drive.files().get(fileId).execute();
+        File file;
+        try {
+            file = googleApiMetrics.execute(drive.files().get(fileId));
+        } catch (IOException e) {
+            cancel(prefetched);
+            throw e;
+        }
         String mimeType = file.getMimeType();
+        if (prefetched != null && cachedMimeType.equals(mimeType)) {
+            return await(prefetched);
+        }
+        // The type changed; the prefetched content is of no use
+        cancel(prefetched);
         
         // Handle different file types
         if ("application/vnd.google-apps.document".equals(mimeType)) {
@@ -117,7 +249,7 @@ public class GoogleDriveService {
         return listFiles(user, query, maxResults);
     }
     
-    private DriveFileDto convertToDto(File file) {
+    DriveFileDto convertToDto(File file) {
         DriveFileDto dto = new DriveFileDto();
         dto.setId(file.getId());
         dto.setName(file.getName());
@@ -140,7 +272,7 @@ public class GoogleDriveService {
         return dto;
     }
     
-    private void cacheFileMetadata(User user, File file) {
+    void cacheFileMetadata(User user, File file) {
         try {
             Optional<DriveFile> existingFile = driveFileRepository.findByIdAndUser(file.getId(), user);
             DriveFile driveFile = existingFile.orElse(new DriveFile());
@@ -164,18 +296,38 @@ public class GoogleDriveService {
         }
     }
     
-    private Credential createCredential(User user) {
+    private static boolean isGoogleDocument(String mimeType) {
+        return "application/vnd.google-apps.document".equals(mimeType)
+                || "application/vnd.google-apps.spreadsheet".equals(mimeType);
+    }
+    
+    private String extractGoogleDocumentContent(User user, String fileId, String mimeType) {
+        return "application/vnd.google-apps.document".equals(mimeType)
+                ? extractGoogleDocContent(user, fileId)
+                : extractGoogleSheetContent(user, fileId);
+    }
+    
+    private static String await(Future<String> prefetched) throws IOException {
         try {
-            return new GoogleCredential.Builder()
-                    .setTransport(GoogleNetHttpTransport.newTrustedTransport())
-                    .setJsonFactory(GsonFactory.getDefaultInstance())
-                    .setClientSecrets(clientId, clientSecret)
-                    .build()
-                    .setAccessToken(user.getAccessToken())
-                    .setRefreshToken(user.getRefreshToken());
-        } catch (GeneralSecurityException | IOException e) {
-            logger.error("Failed to create Google credential: {}", e.getMessage());
-            throw new RuntimeException("Failed to create Google credential", e);
+            return prefetched.get();
+        } catch (InterruptedException e) {
+            prefetched.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching file content");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+    }
+    
+    /**
+     * Drops a prefetch that is no longer needed. One still waiting for the executor never runs;
+     * a running one is interrupted. On a virtual thread that aborts the HTTP call in flight, but
+     * a platform thread blocked in a socket read ignores the interrupt, so there the call runs
+     * to completion and only its result is discarded.
+     */
+    private static void cancel(Future<?> prefetched) {
+        if (prefetched != null) {
+            prefetched.cancel(true);
         }
     }
     
@@ -1,44 +1,39 @@
 package com.driveai.service;
 
 import com.driveai.model.User;
-import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.BatchGetValuesResponse;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesResponse;
 import com.google.api.services.sheets.v4.model.Spreadsheet;
 import com.google.api.services.sheets.v4.model.ValueRange;
+import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
+@Observed(name = "driveai.service")
 public class GoogleSheetsService {
     
     private static final Logger logger = LoggerFactory.getLogger(GoogleSheetsService.class);
     
     @Autowired
-    private Sheets sheetsService;
+    private GoogleApiMetrics googleApiMetrics;
     
-    @Value("${google.client-id}")
-    private String clientId;
-    
-    @Value("${google.client-secret}")
-    private String clientSecret;
+    @Autowired
+    private GoogleCredentialService googleCredentialService;
     
     public String extractTextContent(User user, String spreadsheetId) {
         try {
-            Credential credential = createCredential(user);
-            Sheets sheets = sheetsService.setHttpRequestInitializer(credential);
+            Sheets sheets = googleCredentialService.getSheets(user);
             
-            Spreadsheet spreadsheet = sheets.spreadsheets().get(spreadsheetId).execute();
+            Spreadsheet spreadsheet = googleApiMetrics.execute(sheets.spreadsheets().get(spreadsheetId));
             return extractTextFromSpreadsheet(sheets, spreadsheet);
             
         } catch (IOException e) {
@@ -49,10 +44,9 @@ public class GoogleSheetsService {
     
     public Spreadsheet getSpreadsheet(User user, String spreadsheetId) {
         try {
-            Credential credential = createCredential(user);
-            Sheets sheets = sheetsService.setHttpRequestInitializer(credential);
+            Sheets sheets = googleCredentialService.getSheets(user);
             
-            return sheets.spreadsheets().get(spreadsheetId).execute();
+            return googleApiMetrics.execute(sheets.spreadsheets().get(spreadsheetId));
             
         } catch (IOException e) {
             logger.error("Error getting Google Sheet {}: {}", spreadsheetId, e.getMessage());
@@ -60,7 +54,44 @@ public class GoogleSheetsService {
         }
     }
     
-    private String extractTextFromSpreadsheet(Sheets sheets, Spreadsheet spreadsheet) {
+    /**
+     * Reads several A1 ranges in one values.batchGet call, as formatted strings. The result
+     * has one entry per range, in order; Sheets drops trailing empty rows and cells, so a
+     * range past the end of the data comes back empty.
+     */
+    public List<List<List<Object>>> batchGetRows(User user, String spreadsheetId, List<String> ranges) throws IOException {
+        Sheets sheets = googleCredentialService.getSheets(user);
+        
+        BatchGetValuesResponse response = googleApiMetrics.execute(sheets.spreadsheets().values()
+                .batchGet(spreadsheetId)
+                .setRanges(ranges)
+                .setMajorDimension("ROWS")
+                .setValueRenderOption("FORMATTED_VALUE"));
+        
+        List<List<List<Object>>> rows = new ArrayList<>(ranges.size());
+        List<ValueRange> valueRanges = response.getValueRanges() != null ? response.getValueRanges() : List.of();
+        for (int i = 0; i < ranges.size(); i++) {
+            List<List<Object>> values = i < valueRanges.size() ? valueRanges.get(i).getValues() : null;
+            rows.add(values != null ? values : List.of());
+        }
+        return rows;
+    }
+    
+    /**
+     * Writes several ranges of one spreadsheet in a single values.batchUpdate call. Values
+     * are stored as given (RAW), so text that looks like a formula is never evaluated, and
+     * every range is explicit, so repeating the call rewrites the same cells.
+     */
+    public BatchUpdateValuesResponse batchUpdateValues(User user, String spreadsheetId, List<ValueRange> data) throws IOException {
+        Sheets sheets = googleCredentialService.getSheets(user);
+        
+        return googleApiMetrics.execute(sheets.spreadsheets().values()
+                .batchUpdate(spreadsheetId, new BatchUpdateValuesRequest()
+                        .setValueInputOption("RAW")
+                        .setData(data)));
+    }
+    
+    String extractTextFromSpreadsheet(Sheets sheets, Spreadsheet spreadsheet) {
         StringBuilder text = new StringBuilder();
         
         if (spreadsheet.getSheets() != null) {
@@ -71,9 +102,8 @@ public class GoogleSheetsService {
                 // Get all data from the sheet
                 String range = sheetName + "!A:Z"; // Adjust range as needed
                 try {
-                    ValueRange response = sheets.spreadsheets().values()
-                            .get(spreadsheet.getSpreadsheetId(), range)
-                            .execute();
+                    ValueRange response = googleApiMetrics.execute(sheets.spreadsheets().values()
+                            .get(spreadsheet.getSpreadsheetId(), range));
                     
                     List<List<Object>> values = response.getValues();
                     if (values != null) {
@@ -95,19 +125,4 @@ public class GoogleSheetsService {
         
         return text.toString().trim();
     }
-    
-    private Credential createCredential(User user) {
-        try {
-            return new GoogleCredential.Builder()
-                    .setTransport(GoogleNetHttpTransport.newTrustedTransport())
-                    .setJsonFactory(GsonFactory.getDefaultInstance())
-                    .setClientSecrets(clientId, clientSecret)
-                    .build()
-                    .setAccessToken(user.getAccessToken())
-                    .setRefreshToken(user.getRefreshToken());
-        } catch (GeneralSecurityException | IOException e) {
-            logger.error("Failed to create Google credential: {}", e.getMessage());
-            throw new RuntimeException("Failed to create Google credential", e);
-        }
-    }
 }
@@ -0,0 +1,153 @@
+package com.driveai.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces write requests to one Google API below the per-user and per-project write quotas
+ * of this instance. Each write reserves the next free slot of its user and then of the
+ * project, so bursts are spread evenly over the minute instead of running into 429s.
+ */
+public abstract class GoogleWriteQuota {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GoogleWriteQuota.class);
+    
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final long BASE_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 32_000;
+    
+    private final String api;
+    private final long perUserIntervalNanos;
+    private final int maxAttempts;
+    private final Pacer project;
+    private final Cache<Long, Pacer> users = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+    
+    protected GoogleWriteQuota(String api, int perUserPerMinute, int projectPerMinute, int maxAttempts) {
+        this.api = api;
+        this.perUserIntervalNanos = NANOS_PER_MINUTE / perUserPerMinute;
+        this.maxAttempts = maxAttempts;
+        this.project = new Pacer(NANOS_PER_MINUTE / projectPerMinute);
+    }
+    
+    /** Blocks until the user may make one more write request. */
+    public void acquire(Long userId) throws InterruptedException {
+        long now = System.nanoTime();
+        Pacer user = users.get(userId, id -> new Pacer(perUserIntervalNanos));
+        long userSlot = user.reserve(now);
+        long slot = project.reserve(userSlot);
+        
+        long waitNanos = slot - now;
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+    
+    /**
+     * Runs one write under the quota, retrying 429, 5xx and I/O errors with jittered
+     * exponential backoff. Every attempt waits for a slot of its own.
+     */
+    public <T> T execute(Long userId, Write<T> write) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            acquire(userId);
+            try {
+                return write.execute();
+            } catch (IOException e) {
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    throw e;
+                }
+                backOff(attempt, e);
+            }
+        }
+    }
+    
+    /**
+     * As {@link #execute}, for a write that creates something and so must not simply be
+     * repeated: a timeout or 5xx can arrive after the server did create it. After such an
+     * error, and the backoff, {@code existing} looks for what the failed attempt may have
+     * created, and that is returned if found. A 429 or a failure to connect never reached
+     * the server, so those are retried without looking.
+     */
+    public <T> T create(Long userId, Write<T> create, Write<T> existing) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            acquire(userId);
+            try {
+                return create.execute();
+            } catch (IOException e) {
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                boolean mayHaveLanded = mayHaveLanded(e);
+                if (attempt >= maxAttempts && !mayHaveLanded) {
+                    throw e;
+                }
+                backOff(attempt, e);
+                if (mayHaveLanded) {
+                    T found = existing.execute();
+                    if (found != null) {
+                        logger.info("{} create failed but had gone through; using what it created: {}", api, e.getMessage());
+                        return found;
+                    }
+                }
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    private void backOff(int attempt, IOException e) throws InterruptedException {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+        long sleep = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+        logger.debug("{} write failed (attempt {}), retrying in {} ms: {}", api, attempt, sleep, e.getMessage());
+        TimeUnit.MILLISECONDS.sleep(sleep);
+    }
+    
+    private static boolean mayHaveLanded(IOException e) {
+        if (e instanceof GoogleJsonResponseException response) {
+            return response.getStatusCode() != 429;
+        }
+        return !(e instanceof ConnectException || e instanceof UnknownHostException);
+    }
+    
+    private static boolean isRetryable(IOException e) {
+        if (e instanceof GoogleJsonResponseException response) {
+            int status = response.getStatusCode();
+            return status == 429 || status >= 500;
+        }
+        return true;
+    }
+    
+    @FunctionalInterface
+    public interface Write<T> {
+        T execute() throws IOException;
+    }
+    
+    private static final class Pacer {
+        
+        private final long intervalNanos;
+        private long nextFreeNanos = System.nanoTime();
+        
+        Pacer(long intervalNanos) {
+            this.intervalNanos = intervalNanos;
+        }
+        
+        // Earliest free slot at or after notBefore; idle time is not banked as burst credit
+        synchronized long reserve(long notBefore) {
+            long slot = Math.max(nextFreeNanos, notBefore);
+            nextFreeNanos = slot + intervalNanos;
+            return slot;
+        }
+    }
+}
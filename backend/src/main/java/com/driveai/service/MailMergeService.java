@@ -0,0 +1,498 @@
+package com.driveai.service;
+
+import com.driveai.config.BoundedExecutor;
+import com.driveai.config.BoundedExecutors;
+import com.driveai.dto.GeneratedDocumentDto;
+import com.driveai.dto.MailMergeRequest;
+import com.driveai.model.DocumentTemplate;
+import com.driveai.model.MailMergeJob;
+import com.driveai.model.User;
+import com.driveai.repository.DocumentTemplateRepository;
+import com.driveai.repository.MailMergeJobRepository;
+import com.driveai.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.services.drive.model.File;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Turns every row of a Google Sheet into a Google Doc. Rows are read in chunks, several
+ * chunks per values.batchGet call, and the rows of a chunk are generated in parallel
+ * under {@link DocsWriteQuota}. Each row is either a Drive copy of a template Doc with
+ * its {@code {{placeholders}}} replaced in one batchUpdate, or, without a template Doc,
+ * the rendered DocumentTemplate content.
+ * <p>
+ * After every chunk whose rows all have an outcome the job is checkpointed, so a paused,
+ * failed or interrupted job resumes at the first unfinished chunk and skips rows that
+ * already have a document. A job interrupted by a shutdown is left running without a
+ * checkpoint for the chunk in flight.
+ * Jobs stay QUEUED until a worker claims them, and the sweep keeps the heartbeat of this
+ * instance's jobs fresh; jobs of a stopped instance are taken over by
+ * {@link #recoverStaleJobs()} on any instance.
+ */
+@Service
+public class MailMergeService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MailMergeService.class);
+    
+    private static final int HEADER_ROW = 1;
+    
+    private static final String RECORD_ROW_SQL =
+            "INSERT INTO mail_merge_rows (job_id, row_number, document_id, title, error, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, now()) " +
+            "ON CONFLICT (job_id, row_number) DO UPDATE SET document_id = EXCLUDED.document_id, " +
+            "title = EXCLUDED.title, error = EXCLUDED.error, updated_at = EXCLUDED.updated_at";
+    
+    private static final String RECORD_COPY_SQL =
+            "UPDATE mail_merge_rows SET copy_id = ?, updated_at = now() WHERE job_id = ? AND row_number = ?";
+    
+    private static final String SELECT_CHUNK_ROWS_SQL =
+            "SELECT row_number, document_id, copy_id FROM mail_merge_rows " +
+            "WHERE job_id = ? AND row_number BETWEEN ? AND ?";
+    
+    // Left on a row while its template copy is made, so an interrupted copy is looked for on resume
+    private static final String COPY_IN_PROGRESS = "Interrupted while copying the template Doc";
+    
+    private static final String SELECT_ROWS_SQL =
+            "SELECT row_number, document_id, title, error FROM mail_merge_rows " +
+            "WHERE job_id = ? AND row_number > ? AND (? = FALSE OR document_id IS NULL) " +
+            "ORDER BY row_number LIMIT ?";
+    
+    @Autowired
+    private MailMergeJobRepository mailMergeJobRepository;
+    
+    @Autowired
+    private DocumentTemplateRepository documentTemplateRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TemplateEngine templateEngine;
+    
+    @Autowired
+    private DocumentGenerationService documentGenerationService;
+    
+    @Autowired
+    private GoogleSheetsService googleSheetsService;
+    
+    @Autowired
+    private GoogleDriveService googleDriveService;
+    
+    @Autowired
+    private GoogleDocsService googleDocsService;
+    
+    @Autowired
+    private DocsWriteQuota docsWriteQuota;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private BoundedExecutors boundedExecutors;
+    
+    @Value("${mail-merge.chunk-rows:50}")
+    private int chunkRows;
+    
+    @Value("${mail-merge.chunks-per-read:10}")
+    private int chunksPerRead;
+    
+    @Value("${mail-merge.parallelism:8}")
+    private int parallelism;
+    
+    @Value("${mail-merge.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs;
+    
+    @Value("${mail-merge.stale-after-minutes:10}")
+    private long staleAfterMinutes;
+    
+    private BoundedExecutor jobExecutor;
+    private BoundedExecutor rowExecutor;
+    
+    // Tasks queued or running on this instance, per job; the recovery sweep keeps their jobs alive
+    private final Map<Long, Integer> submittedJobs = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void init() {
+        jobExecutor = boundedExecutors.create("mailmerge-job-", maxConcurrentJobs);
+        rowExecutor = boundedExecutors.create("mailmerge-row-", parallelism);
+    }
+    
+    // Job threads first, so one waiting on its rows is interrupted rather than left waiting on dropped ones
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdown();
+        rowExecutor.shutdown();
+    }
+    
+    /**
+     * Reads the header row, maps its columns to template variables and starts the job.
+     *
+     * @throws IllegalArgumentException if the sheet has no header row or a required variable has no column
+     */
+    public MailMergeJob start(User user, DocumentTemplate template, MailMergeRequest request) throws IOException {
+        List<List<Object>> header = googleSheetsService.batchGetRows(user, request.getSpreadsheetId(),
+                List.of(rowsRange(request.getSheetName(), HEADER_ROW, HEADER_ROW))).get(0);
+        if (header.isEmpty() || header.get(0).isEmpty()) {
+            throw new IllegalArgumentException("Sheet " + request.getSheetName() + " has no header row");
+        }
+        
+        Map<String, String> mapping = request.getColumnMapping() != null ? request.getColumnMapping() : Map.of();
+        List<String> columnVariables = new ArrayList<>();
+        for (Object cell : header.get(0)) {
+            String column = cell != null ? cell.toString().trim() : "";
+            String variable = mapping.getOrDefault(column, column);
+            columnVariables.add(variable == null || variable.isBlank() ? null : variable.trim());
+        }
+        
+        Map<String, Object> allColumns = new HashMap<>();
+        for (String variable : columnVariables) {
+            if (variable != null) {
+                allColumns.put(variable, "");
+            }
+        }
+        List<String> unmapped = templateEngine.getCompiled(template).missingVariables(allColumns);
+        if (!unmapped.isEmpty()) {
+            throw new IllegalArgumentException("No sheet column for template variables: " + unmapped);
+        }
+        
+        MailMergeJob job = new MailMergeJob();
+        job.setUserId(user.getId());
+        job.setTemplateId(template.getId());
+        job.setSpreadsheetId(request.getSpreadsheetId());
+        job.setSheetName(request.getSheetName());
+        job.setTemplateDocumentId(request.getTemplateDocumentId());
+        job.setFolderId(request.getFolderId());
+        job.setTitleTemplate(request.getTitleTemplate());
+        job.setColumnVariables(objectMapper.writeValueAsString(columnVariables));
+        job.setHeartbeatAt(LocalDateTime.now());
+        job = mailMergeJobRepository.save(job);
+        
+        submit(job.getId());
+        logger.info("Started mail merge job {} from spreadsheet {}", job.getId(), request.getSpreadsheetId());
+        return job;
+    }
+    
+    public Optional<MailMergeJob> getJob(User user, Long jobId) {
+        return mailMergeJobRepository.findByIdAndUserId(jobId, user.getId());
+    }
+    
+    public List<MailMergeJob> listJobs(User user) {
+        return mailMergeJobRepository.findTop50ByUserIdOrderByCreatedAtDesc(user.getId());
+    }
+    
+    /** Row outcomes after {@code afterRow}, in sheet order. */
+    public List<GeneratedDocumentDto> getRows(Long jobId, int afterRow, boolean failedOnly, int limit) {
+        return jdbcTemplate.query(SELECT_ROWS_SQL, (rs, i) -> {
+            String documentId = rs.getString("document_id");
+            GeneratedDocumentDto row = documentId != null
+                    ? new GeneratedDocumentDto(documentId, rs.getString("title"))
+                    : GeneratedDocumentDto.failed(0, rs.getString("title"), rs.getString("error"));
+            row.setRow(rs.getInt("row_number"));
+            return row;
+        }, jobId, afterRow, failedOnly, limit);
+    }
+    
+    /**
+     * Restarts a paused, failed or completed job (picking up rows appended since) from its
+     * checkpoint. Returns false if the job is already running.
+     */
+    public boolean resume(Long jobId) {
+        if (mailMergeJobRepository.enqueue(jobId, staleBefore()) == 0) {
+            return false;
+        }
+        submit(jobId);
+        return true;
+    }
+    
+    /** Stops the job after the chunk in flight, or before it starts. Returns false if it was not queued or running. */
+    public boolean pause(Long jobId) {
+        return mailMergeJobRepository.pause(jobId) > 0;
+    }
+    
+    /**
+     * Refreshes the heartbeat of this instance's jobs, including ones still waiting for a
+     * worker, then takes over queued or running jobs whose instance stopped, e.g. after a restart.
+     */
+    @Scheduled(fixedDelayString = "${mail-merge.recovery-interval-ms:60000}")
+    public void recoverStaleJobs() {
+        if (!submittedJobs.isEmpty()) {
+            mailMergeJobRepository.heartbeat(List.copyOf(submittedJobs.keySet()));
+        }
+        for (Long jobId : mailMergeJobRepository.findStaleJobIds(staleBefore())) {
+            if (!submittedJobs.containsKey(jobId) && resume(jobId)) {
+                logger.info("Resumed stale mail merge job {}", jobId);
+            }
+        }
+    }
+    
+    private void submit(Long jobId) {
+        submittedJobs.merge(jobId, 1, Integer::sum);
+        try {
+            jobExecutor.execute(() -> {
+                try {
+                    // Nothing to do if the job was paused, or claimed by another task, while this one waited
+                    if (mailMergeJobRepository.claim(jobId) > 0) {
+                        run(jobId);
+                    }
+                } finally {
+                    finished(jobId);
+                }
+            });
+        } catch (RuntimeException e) {
+            finished(jobId);
+            throw e;
+        }
+    }
+    
+    private void finished(Long jobId) {
+        submittedJobs.computeIfPresent(jobId, (id, tasks) -> tasks > 1 ? tasks - 1 : null);
+    }
+    
+    private void run(Long jobId) {
+        try {
+            MailMergeJob job = mailMergeJobRepository.findById(jobId).orElse(null);
+            if (job == null) {
+                return;
+            }
+            // Fully loaded, not proxies: this thread and the row workers have no Session
+            User user = userRepository.findById(job.getUserId())
+                    .orElseThrow(() -> new IllegalStateException("User not found: " + job.getUserId()));
+            DocumentTemplate template = documentTemplateRepository.findById(job.getTemplateId())
+                    .orElseThrow(() -> new IllegalStateException("Template not found: " + job.getTemplateId()));
+            RowContext context = new RowContext(job, user, template, readColumnVariables(job),
+                    templateEngine.getCompiled(template),
+                    job.getTitleTemplate() != null && !job.getTitleTemplate().isBlank()
+                            ? templateEngine.compile(job.getTitleTemplate())
+                            : null);
+            
+            int nextRow = job.getNextRow();
+            int dataEnd = nextRow;
+            while (true) {
+                List<String> ranges = new ArrayList<>(chunksPerRead);
+                for (int c = 0; c < chunksPerRead; c++) {
+                    int first = nextRow + c * chunkRows;
+                    ranges.add(rowsRange(job.getSheetName(), first, first + chunkRows - 1));
+                }
+                List<List<List<Object>>> chunks = googleSheetsService.batchGetRows(user, job.getSpreadsheetId(), ranges);
+                
+                for (List<List<Object>> chunk : chunks) {
+                    // A whole chunk of empty rows ends the sheet; the checkpoint goes back to just
+                    // after the last row with data, so rows appended later are picked up on resume
+                    if (chunk.isEmpty()) {
+                        mailMergeJobRepository.checkpoint(jobId, dataEnd, MailMergeJob.Status.COMPLETED.name());
+                        logger.info("Mail merge job {} completed at row {}", jobId, dataEnd - 1);
+                        return;
+                    }
+                    
+                    // Without an outcome for every row the chunk is not checkpointed, so it is redone on resume
+                    if (!processChunk(context, nextRow, chunk)) {
+                        logger.info("Mail merge job {} interrupted in rows {}-{}", jobId, nextRow, nextRow + chunk.size() - 1);
+                        return;
+                    }
+                    dataEnd = nextRow + chunk.size();
+                    nextRow += chunkRows;
+                    if (mailMergeJobRepository.checkpoint(jobId, nextRow, MailMergeJob.Status.RUNNING.name()) == 0) {
+                        logger.info("Mail merge job {} paused before row {}", jobId, nextRow);
+                        return;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Shutting down: the job is left running, so it resumes from its checkpoint once stale
+            if (isInterruption(e)) {
+                logger.info("Mail merge job {} interrupted", jobId);
+                return;
+            }
+            logger.error("Mail merge job {} failed: {}", jobId, e.getMessage());
+            mailMergeJobRepository.fail(jobId, e.getMessage());
+        }
+    }
+    
+    /**
+     * Generates the chunk's rows in parallel. Returns true once every non-blank row has an
+     * outcome, or false if this thread or a row was interrupted, or the rows could not all be
+     * started, e.g. while shutting down.
+     */
+    private boolean processChunk(RowContext context, int firstRow, List<List<Object>> chunk) {
+        Long jobId = context.job.getId();
+        // Rows tried before: with a document they are done, with a copy that copy is filled again
+        Set<Integer> done = new HashSet<>();
+        Map<Integer, String> copies = new HashMap<>();
+        Set<Integer> attempted = new HashSet<>();
+        jdbcTemplate.query(SELECT_CHUNK_ROWS_SQL, rs -> {
+            int rowNumber = rs.getInt("row_number");
+            attempted.add(rowNumber);
+            if (rs.getString("document_id") != null) {
+                done.add(rowNumber);
+            } else if (rs.getString("copy_id") != null) {
+                copies.put(rowNumber, rs.getString("copy_id"));
+            }
+        }, jobId, firstRow, firstRow + chunk.size() - 1);
+        
+        List<CompletableFuture<Boolean>> rows = new ArrayList<>(chunk.size());
+        try {
+            for (int i = 0; i < chunk.size(); i++) {
+                int rowNumber = firstRow + i;
+                List<Object> cells = chunk.get(i);
+                if (done.contains(rowNumber) || isBlank(cells)) {
+                    continue;
+                }
+                RowAttempt attempt = new RowAttempt(rowNumber, copies.get(rowNumber), attempted.contains(rowNumber));
+                rows.add(CompletableFuture.supplyAsync(() -> generateRow(context, attempt, cells), rowExecutor));
+            }
+            // Interruptible, unlike join: a pool shutting down drops queued rows, which then never complete
+            CompletableFuture.allOf(rows.toArray(new CompletableFuture[0])).get();
+        } catch (RejectedExecutionException e) {
+            rows.forEach(row -> row.cancel(true));
+            return false;
+        } catch (InterruptedException e) {
+            rows.forEach(row -> row.cancel(true));
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            // Row failures are recorded on the row; this is a failure to record one
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+        return rows.stream().allMatch(CompletableFuture::join);
+    }
+    
+    /** Generates one row and records its outcome. Returns false, recording nothing, if interrupted. */
+    private boolean generateRow(RowContext context, RowAttempt attempt, List<Object> cells) {
+        int rowNumber = attempt.rowNumber;
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int c = 0; c < context.columnVariables.size(); c++) {
+            String variable = context.columnVariables.get(c);
+            if (variable != null) {
+                values.put(variable, c < cells.size() && cells.get(c) != null ? cells.get(c).toString() : "");
+            }
+        }
+        String title = context.title != null
+                ? context.title.render(values)
+                : context.template.getName() + " - row " + rowNumber;
+        
+        String documentId = null;
+        String error = null;
+        try {
+            List<String> missing = context.body.missingVariables(values);
+            if (!missing.isEmpty()) {
+                error = "Missing template variables: " + missing;
+            } else if (context.job.getTemplateDocumentId() != null) {
+                documentId = copyTemplateDocument(context, attempt, title, values);
+            } else {
+                documentId = documentGenerationService.generate(context.user, context.template, title, values)
+                        .getDocumentId();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (IOException | RuntimeException e) {
+            // An HTTP call cut off by the interrupt is not the row's failure
+            if (isInterruption(e)) {
+                return false;
+            }
+            logger.warn("Mail merge job {} row {} failed: {}", context.job.getId(), rowNumber, e.getMessage());
+            error = e.getMessage();
+        }
+        jdbcTemplate.update(RECORD_ROW_SQL, context.job.getId(), rowNumber, documentId, title, error);
+        return true;
+    }
+    
+    /**
+     * Copies the template Doc and fills in the row's values. The copy is recorded on the
+     * row before it is filled, so a row whose fill failed reuses its copy on resume; a copy
+     * made by an interrupted attempt before it was recorded is found by its create key.
+     */
+    private String copyTemplateDocument(RowContext context, RowAttempt attempt, String title, Map<String, Object> values)
+            throws IOException, InterruptedException {
+        User user = context.user;
+        MailMergeJob job = context.job;
+        String copyId = attempt.copyId;
+        if (copyId == null) {
+            String createKey = "mail-merge-" + job.getId() + "-" + attempt.rowNumber;
+            File copy = attempt.attempted ? googleDriveService.findCreated(user, createKey) : null;
+            if (copy == null) {
+                jdbcTemplate.update(RECORD_ROW_SQL, job.getId(), attempt.rowNumber, null, title, COPY_IN_PROGRESS);
+                copy = docsWriteQuota.create(user.getId(),
+                        () -> googleDriveService.copyFile(user, job.getTemplateDocumentId(), title, job.getFolderId(), createKey),
+                        () -> googleDriveService.findCreated(user, createKey));
+            }
+            copyId = copy.getId();
+            jdbcTemplate.update(RECORD_COPY_SQL, copyId, job.getId(), attempt.rowNumber);
+        }
+        String documentId = copyId;
+        
+        // Template variables without a value still get their placeholder cleared
+        Map<String, String> replacements = new LinkedHashMap<>();
+        for (String name : context.body.getVariableNames()) {
+            replacements.put(name, "");
+        }
+        values.forEach((name, value) -> replacements.put(name, value.toString()));
+        docsWriteQuota.execute(user.getId(), () -> {
+            googleDocsService.replacePlaceholders(user, documentId, replacements);
+            return null;
+        });
+        return documentId;
+    }
+    
+    private List<String> readColumnVariables(MailMergeJob job) throws JsonProcessingException {
+        return objectMapper.readValue(job.getColumnVariables(), new TypeReference<List<String>>() {});
+    }
+    
+    private LocalDateTime staleBefore() {
+        return LocalDateTime.now().minusMinutes(staleAfterMinutes);
+    }
+    
+    private static boolean isInterruption(Exception e) {
+        return Thread.currentThread().isInterrupted() || e instanceof InterruptedIOException;
+    }
+    
+    private static boolean isBlank(List<Object> cells) {
+        for (Object cell : cells) {
+            if (cell != null && !cell.toString().isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Whole rows first..last of a sheet in A1 notation, e.g. 'Q3 Invoices'!2:51
+    static String rowsRange(String sheetName, int first, int last) {
+        return "'" + sheetName.replace("'", "''") + "'!" + first + ":" + last;
+    }
+    
+    private record RowAttempt(int rowNumber, String copyId, boolean attempted) {
+    }
+    
+    private record RowContext(MailMergeJob job, User user, DocumentTemplate template, List<String> columnVariables,
+                              CompiledTemplate body, CompiledTemplate title) {
+    }
+}
@@ -0,0 +1,301 @@
+package com.driveai.service;
+
+import com.driveai.config.BoundedExecutor;
+import com.driveai.config.BoundedExecutors;
+import com.driveai.dto.MultiFileSummaryDto;
+import com.driveai.model.DriveFile;
+import com.driveai.model.User;
+import com.driveai.repository.DriveFileRepository;
+import com.driveai.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Summarizes any number of Drive files. Files without a stored summary are analyzed
+ * concurrently first; the file summaries are then reduced level by level, each group of
+ * them condensed by one completion, until what is left fits a single final prompt.
+ * <p>
+ * Nodes are ordered by content hash and a group ends where a member's hash says so (or the
+ * group is full), so boundaries depend on the members rather than on their position in the
+ * request. Selections that overlap therefore mostly form the same groups, and group
+ * summaries are cached by the hashes of their members.
+ */
+@Service
+public class MultiFileSummaryService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MultiFileSummaryService.class);
+    
+    @Autowired
+    private DriveFileRepository driveFileRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DriveFileContentService driveFileContentService;
+    
+    @Autowired
+    private DocumentProcessingService documentProcessingService;
+    
+    @Autowired
+    private OpenAiService openAiService;
+    
+    @Autowired
+    private BoundedExecutors boundedExecutors;
+    
+    @Value("${multi-file-summary.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${multi-file-summary.max-files:500}")
+    private int maxFiles;
+    
+    @Value("${multi-file-summary.fan-out:8}")
+    private int fanOut;
+    
+    @Value("${multi-file-summary.max-leaf-chars:4000}")
+    private int maxLeafChars;
+    
+    @Value("${multi-file-summary.max-group-chars:24000}")
+    private int maxGroupChars;
+    
+    @Value("${multi-file-summary.max-levels:6}")
+    private int maxLevels;
+    
+    @Value("${summary-cache.max-size:10000}")
+    private long cacheMaxSize;
+    
+    @Value("${summary-cache.expire-after-write-hours:24}")
+    private long cacheExpireAfterWriteHours;
+    
+    private BoundedExecutor executor;
+    
+    // Group summaries keyed by the hash of their members' content hashes
+    private Cache<String, String> groupSummaries;
+    
+    @PostConstruct
+    void init() {
+        executor = boundedExecutors.create("summary-", parallelism);
+        groupSummaries = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofHours(cacheExpireAfterWriteHours))
+                .build();
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * @return null if none of the files belong to the user
+     * @throws IllegalArgumentException if more than {@code multi-file-summary.max-files} files are requested
+     * @throws IllegalStateException if a completion fails, or the summaries cannot be reduced to one prompt
+     */
+    public MultiFileSummaryDto summarize(User user, List<String> fileIds) {
+        LinkedHashSet<String> ids = new LinkedHashSet<>(fileIds);
+        if (ids.size() > maxFiles) {
+            throw new IllegalArgumentException("At most " + maxFiles + " files per summary");
+        }
+        
+        List<DriveFile> files = driveFileRepository.findByUserAndIdIn(user, ids);
+        if (files.isEmpty()) {
+            return null;
+        }
+        
+        Map<String, String> summaries = driveFileContentService.getContentSummaries(ids);
+        int analyzed = analyzeMissing(user, files, summaries);
+        
+        List<Node> nodes = new ArrayList<>();
+        for (DriveFile file : files) {
+            String summary = summaries.get(file.getId());
+            if (summary != null && !summary.isBlank()) {
+                String text = file.getName() + " (" + file.getMimeType() + ")\n" + truncate(summary, maxLeafChars);
+                nodes.add(new Node(sha256(text), text));
+            }
+        }
+        
+        MultiFileSummaryDto result = new MultiFileSummaryDto();
+        result.setFileCount(files.size());
+        result.setSummarizedFiles(nodes.size());
+        result.setAnalyzedFiles(analyzed);
+        if (nodes.isEmpty()) {
+            return result;
+        }
+        
+        AtomicInteger computed = new AtomicInteger();
+        while (totalChars(nodes) > maxGroupChars) {
+            // A level of groups that are all single nodes (each longer than half a group) changes nothing
+            List<List<Node>> groups = partition(nodes);
+            if (groups.size() >= nodes.size() || result.getLevels() >= maxLevels) {
+                throw new IllegalStateException("Summaries of " + result.getSummarizedFiles()
+                        + " files do not reduce to one prompt: " + nodes.size() + " sections left after "
+                        + result.getLevels() + " levels");
+            }
+            nodes = reduce(groups, computed);
+            result.setLevels(result.getLevels() + 1);
+            result.setGroups(result.getGroups() + groups.size());
+        }
+        result.setCachedGroups(result.getGroups() - computed.get());
+        
+        List<String> sections = nodes.stream().map(node -> node.text).toList();
+        String summary = openAiService.generateCombinedSummary(sections, result.getSummarizedFiles());
+        if (summary == null) {
+            throw new IllegalStateException("Failed to generate summary");
+        }
+        result.setSummary(summary);
+        
+        logger.info("Summarized {} files in {} levels, {} of {} groups from cache",
+                result.getSummarizedFiles(), result.getLevels(), result.getCachedGroups(), result.getGroups());
+        return result;
+    }
+    
+    // Analyzes files that have no stored summary yet, in parallel, and adds their summaries
+    private int analyzeMissing(User user, List<DriveFile> files, Map<String, String> summaries) {
+        List<String> missing = files.stream()
+                .map(DriveFile::getId)
+                .filter(id -> !summaries.containsKey(id))
+                .toList();
+        if (missing.isEmpty()) {
+            return 0;
+        }
+        
+        // Worker threads have no session to initialize a lazy user proxy with
+        User owner = userRepository.findById(user.getId()).orElse(user);
+        List<CompletableFuture<String>> analyses = new ArrayList<>(missing.size());
+        for (String fileId : missing) {
+            // Loaded in the worker, not shared with the request's session, which is not thread-safe
+            analyses.add(CompletableFuture.supplyAsync(() -> driveFileRepository.findById(fileId)
+                    .map(file -> documentProcessingService.analyzeDocument(owner, file))
+                    .orElse(null), executor));
+        }
+        CompletableFuture.allOf(analyses.toArray(new CompletableFuture[0])).join();
+        
+        // Only successful analyses are stored; the returned text may be an error message
+        summaries.putAll(driveFileContentService.getContentSummaries(missing));
+        return missing.size();
+    }
+    
+    // Cuts the hash-ordered nodes into groups of about fan-out; a group ends at a boundary hash or when full
+    private List<List<Node>> partition(List<Node> nodes) {
+        List<Node> ordered = new ArrayList<>(nodes);
+        ordered.sort(Comparator.comparing(node -> node.hash));
+        
+        List<List<Node>> groups = new ArrayList<>();
+        List<Node> group = new ArrayList<>();
+        int chars = 0;
+        for (Node node : ordered) {
+            if (!group.isEmpty() && (chars + node.text.length() > maxGroupChars || group.size() >= fanOut * 2)) {
+                groups.add(group);
+                group = new ArrayList<>();
+                chars = 0;
+            }
+            group.add(node);
+            chars += node.text.length();
+            if (group.size() >= 2 && isBoundary(node.hash)) {
+                groups.add(group);
+                group = new ArrayList<>();
+                chars = 0;
+            }
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        return groups;
+    }
+    
+    // Summarizes each group in parallel, through the cache; single-node groups pass through
+    private List<Node> reduce(List<List<Node>> groups, AtomicInteger computed) {
+        List<CompletableFuture<Node>> reduced = new ArrayList<>(groups.size());
+        for (List<Node> group : groups) {
+            if (group.size() == 1) {
+                reduced.add(CompletableFuture.completedFuture(group.get(0)));
+                continue;
+            }
+            
+            String key = sha256(String.join(",", group.stream().map(node -> node.hash).toList()));
+            List<String> sections = group.stream().map(node -> node.text).toList();
+            reduced.add(CompletableFuture.supplyAsync(() -> {
+                // Computed outside the cache, so a slow completion does not block Caffeine; two
+                // requests needing the same group at once may both compute it
+                String summary = groupSummaries.getIfPresent(key);
+                if (summary == null) {
+                    computed.incrementAndGet();
+                    summary = openAiService.summarizeGroup(sections);
+                    if (summary != null) {
+                        groupSummaries.put(key, summary);
+                    }
+                }
+                if (summary == null) {
+                    throw new IllegalStateException("Failed to summarize a group of " + sections.size() + " files");
+                }
+                return new Node(key, summary);
+            }, executor));
+        }
+        
+        try {
+            return reduced.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IllegalStateException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private boolean isBoundary(String hash) {
+        return Integer.remainderUnsigned(Integer.parseUnsignedInt(hash.substring(0, 8), 16), fanOut) == 0;
+    }
+    
+    private static int totalChars(List<Node> nodes) {
+        int chars = 0;
+        for (Node node : nodes) {
+            chars += node.text.length();
+        }
+        return chars;
+    }
+    
+    private static String truncate(String text, int maxChars) {
+        return text.length() <= maxChars ? text : text.substring(0, maxChars) + "...";
+    }
+    
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static final class Node {
+        
+        private final String hash;
+        private final String text;
+        
+        Node(String hash, String text) {
+            this.hash = hash;
+            this.text = text;
+        }
+    }
+}
@@ -1,35 +1,68 @@
 package com.driveai.service;
 
 import com.driveai.config.OpenAiConfig;
+import com.driveai.dto.TurnMetadata;
 import com.driveai.model.ChatMessage;
 import com.driveai.model.DriveFile;
 import com.theokanning.openai.completion.chat.ChatCompletionRequest;
 import com.theokanning.openai.completion.chat.ChatMessage as OpenAiChatMessage;
 import com.theokanning.openai.completion.chat.ChatCompletionResult;
 import com.theokanning.openai.service.OpenAiService as OpenAiClient;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@Observed(name = "driveai.service")
 public class OpenAiService {
     
     private static final Logger logger = LoggerFactory.getLogger(OpenAiService.class);
     
     @Autowired
+    @Lazy
     private OpenAiClient openAiClient;
     
     @Autowired
     private OpenAiConfig openAiConfig;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ObservationRegistry observationRegistry;
+    
     public String generateResponse(List<ChatMessage> conversationHistory, String context) {
+        return generateResponse(conversationHistory, context, null);
+    }
+    
+    /**
+     * As {@link #generateResponse(List, String)}, also filling in the model and token
+     * counts of the completion on {@code turn} when one is given.
+     */
+    public String generateResponse(List<ChatMessage> conversationHistory, String context, TurnMetadata turn) {
+        return generateResponse(conversationHistory, null, context, turn);
+    }
+    
+    /**
+     * As {@link #generateResponse(List, String, TurnMetadata)}, with the session's pinned file
+     * context placed ahead of the turn's own, so it is part of the prompt prefix that stays
+     * the same from turn to turn.
+     */
+    public String generateResponse(List<ChatMessage> conversationHistory, String pinnedContext, String context, TurnMetadata turn) {
         try {
-            List<OpenAiChatMessage> messages = buildMessageList(conversationHistory, context);
+            List<OpenAiChatMessage> messages = buildMessageList(conversationHistory, pinnedContext, context);
             
             ChatCompletionRequest request = ChatCompletionRequest.builder()
                     .model(openAiConfig.getModel())
@@ -38,7 +71,15 @@ public class OpenAiService {
                     .temperature(openAiConfig.getTemperature())
                     .build();
             
-            ChatCompletionResult result = openAiClient.createChatCompletion(request);
+            ChatCompletionResult result = complete("chat", request);
+            
+            if (turn != null) {
+                turn.setModel(result.getModel() != null ? result.getModel() : request.getModel());
+                if (result.getUsage() != null) {
+                    turn.setPromptTokens(result.getUsage().getPromptTokens());
+                    turn.setCompletionTokens(result.getUsage().getCompletionTokens());
+                }
+            }
             
             if (result.getChoices() != null && !result.getChoices().isEmpty()) {
                 return result.getChoices().get(0).getMessage().getContent();
@@ -54,33 +95,8 @@ public class OpenAiService {
     
     public String analyzeDocument(DriveFile file, String content) {
         try {
-            String prompt = buildDocumentAnalysisPrompt(file, content);
-            
-            List<OpenAiChatMessage> messages = List.of(
-                OpenAiChatMessage.builder()
-                    .role("system")
-                    .content("You are an AI assistant that analyzes documents and provides concise summaries and key insights.")
-                    .build(),
-                OpenAiChatMessage.builder()
-                    .role("user")
-                    .content(prompt)
-                    .build()
-            );
-            
-            ChatCompletionRequest request = ChatCompletionRequest.builder()
-                    .model(openAiConfig.getModel())
-                    .messages(messages)
-                    .maxTokens(1000)
-                    .temperature(0.3)
-                    .build();
-            
-            ChatCompletionResult result = openAiClient.createChatCompletion(request);
-            
-            if (result.getChoices() != null && !result.getChoices().isEmpty()) {
-                return result.getChoices().get(0).getMessage().getContent();
-            }
-            
-            return "Unable to analyze document content.";
+            String analysis = requestDocumentAnalysis(file, content);
+            return analysis != null ? analysis : "Unable to analyze document content.";
             
         } catch (Exception e) {
             logger.error("Error analyzing document: {}", e.getMessage());
@@ -88,9 +104,43 @@ public class OpenAiService {
         }
     }
     
-    public String generateDocumentSummary(List<DriveFile> files) {
+    /**
+     * The completion behind {@link #analyzeDocument}, for callers that retry: failures
+     * propagate, and a response without choices returns null.
+     */
+    public String requestDocumentAnalysis(DriveFile file, String content) {
+        String prompt = buildDocumentAnalysisPrompt(file, content);
+        
+        List<OpenAiChatMessage> messages = List.of(
+            OpenAiChatMessage.builder()
+                .role("system")
+                .content("You are an AI assistant that analyzes documents and provides concise summaries and key insights.")
+                .build(),
+            OpenAiChatMessage.builder()
+                .role("user")
+                .content(prompt)
+                .build()
+        );
+        
+        ChatCompletionRequest request = ChatCompletionRequest.builder()
+                .model(openAiConfig.getModel())
+                .messages(messages)
+                .maxTokens(1000)
+                .temperature(0.3)
+                .build();
+        
+        ChatCompletionResult result = complete("document_analysis", request);
+        
+        if (result.getChoices() != null && !result.getChoices().isEmpty()) {
+            return result.getChoices().get(0).getMessage().getContent();
+        }
+        
+        return null;
+    }
+    
+    public String generateDocumentSummary(List<DriveFile> files, Map<String, String> summariesByFileId) {
         try {
-            String prompt = buildDocumentSummaryPrompt(files);
+            String prompt = buildDocumentSummaryPrompt(files, summariesByFileId);
             
             List<OpenAiChatMessage> messages = List.of(
                 OpenAiChatMessage.builder()
@@ -110,7 +160,7 @@ public class OpenAiService {
                     .temperature(0.4)
                     .build();
             
-            ChatCompletionResult result = openAiClient.createChatCompletion(request);
+            ChatCompletionResult result = complete("document_summary", request);
             
             if (result.getChoices() != null && !result.getChoices().isEmpty()) {
                 return result.getChoices().get(0).getMessage().getContent();
@@ -124,14 +174,122 @@ public class OpenAiService {
         }
     }
     
-    private List<OpenAiChatMessage> buildMessageList(List<ChatMessage> conversationHistory, String context) {
+    /**
+     * Condenses the summaries of one group of documents into a single summary that the
+     * next level of a multi-file summary builds on. Returns null on failure, so callers
+     * never cache an error message as a summary.
+     */
+    public String summarizeGroup(List<String> sections) {
+        try {
+            return completeSummary("summary_group",
+                    "You are an AI assistant that condenses summaries of several documents into one, " +
+                    "keeping their shared themes, key facts, dates and names.",
+                    buildGroupSummaryPrompt(sections), 600);
+        } catch (Exception e) {
+            logger.error("Error summarizing document group: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Final step of a multi-file summary whose documents were first condensed in groups.
+     * Returns null on failure.
+     */
+    public String generateCombinedSummary(List<String> groupSummaries, int documentCount) {
+        try {
+            return completeSummary("document_summary",
+                    "You are an AI assistant that creates comprehensive summaries of multiple documents.",
+                    buildCombinedSummaryPrompt(groupSummaries, documentCount), 1500);
+        } catch (Exception e) {
+            logger.error("Error generating combined summary: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private String completeSummary(String task, String systemPrompt, String prompt, int maxTokens) {
+        List<OpenAiChatMessage> messages = List.of(
+            OpenAiChatMessage.builder()
+                .role("system")
+                .content(systemPrompt)
+                .build(),
+            OpenAiChatMessage.builder()
+                .role("user")
+                .content(prompt)
+                .build()
+        );
+        
+        ChatCompletionRequest request = ChatCompletionRequest.builder()
+                .model(openAiConfig.getModel())
+                .messages(messages)
+                .maxTokens(maxTokens)
+                .temperature(0.3)
+                .build();
+        
+        ChatCompletionResult result = complete(task, request);
+        if (result.getChoices() != null && !result.getChoices().isEmpty()) {
+            return result.getChoices().get(0).getMessage().getContent();
+        }
+        return null;
+    }
+    
+    /**
+     * Calls the completion API as a {@code driveai.openai.requests} observation (timer and span)
+     * and records the prompt and completion token counts reported in the response, both tagged
+     * by task and model.
+     */
+    private ChatCompletionResult complete(String task, ChatCompletionRequest request) {
+        Observation observation = Observation.createNotStarted("driveai.openai.requests", observationRegistry)
+                .contextualName("openai " + task)
+                .lowCardinalityKeyValue("task", task)
+                .lowCardinalityKeyValue("model", request.getModel())
+                .start();
+        String outcome = "success";
+        try (Observation.Scope scope = observation.openScope()) {
+            ChatCompletionResult result = openAiClient.createChatCompletion(request);
+            if (result.getUsage() != null) {
+                recordTokens(task, request.getModel(), "prompt", result.getUsage().getPromptTokens());
+                recordTokens(task, request.getModel(), "completion", result.getUsage().getCompletionTokens());
+                // Per-call counts go on the span only; as metric tags they would be unbounded
+                observation.highCardinalityKeyValue("prompt_tokens", String.valueOf(result.getUsage().getPromptTokens()));
+                observation.highCardinalityKeyValue("completion_tokens", String.valueOf(result.getUsage().getCompletionTokens()));
+            }
+            return result;
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
+        }
+    }
+    
+    private void recordTokens(String task, String model, String type, long tokens) {
+        DistributionSummary.builder("driveai.openai.tokens")
+                .baseUnit("tokens")
+                .tag("task", task)
+                .tag("model", model)
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(tokens);
+    }
+    
+    List<OpenAiChatMessage> buildMessageList(List<ChatMessage> conversationHistory, String context) {
+        return buildMessageList(conversationHistory, null, context);
+    }
+    
+    List<OpenAiChatMessage> buildMessageList(List<ChatMessage> conversationHistory, String pinnedContext, String context) {
         List<OpenAiChatMessage> messages = new ArrayList<>();
         
-        // Add system message with context
+        // Add system message with context; the fixed prompt and pinned files come first, so
+        // the provider can reuse its cached prefix while the per-turn context changes
         String systemMessage = "You are an AI assistant that helps users manage and analyze their Google Drive files. " +
                 "You can help with file organization, content analysis, document creation, and business process automation. " +
                 "Always be helpful and provide accurate information based on the user's Drive content.";
         
+        if (pinnedContext != null && !pinnedContext.isEmpty()) {
+            systemMessage += "\n\nPinned files: " + pinnedContext;
+        }
+        
         if (context != null && !context.isEmpty()) {
             systemMessage += "\n\nContext: " + context;
         }
@@ -152,7 +310,7 @@ public class OpenAiService {
         return messages;
     }
     
-    private String buildDocumentAnalysisPrompt(DriveFile file, String content) {
+    String buildDocumentAnalysisPrompt(DriveFile file, String content) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("Please analyze the following document and provide:\n");
         prompt.append("1. A brief summary (2-3 sentences)\n");
@@ -166,14 +324,15 @@ public class OpenAiService {
         return prompt.toString();
     }
     
-    private String buildDocumentSummaryPrompt(List<DriveFile> files) {
+    String buildDocumentSummaryPrompt(List<DriveFile> files, Map<String, String> summariesByFileId) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("Please create a comprehensive summary of the following documents:\n\n");
         
         for (DriveFile file : files) {
             prompt.append("- ").append(file.getName()).append(" (").append(file.getMimeType()).append(")\n");
-            if (file.getContentSummary() != null) {
-                prompt.append("  Summary: ").append(file.getContentSummary()).append("\n");
+            String summary = summariesByFileId.get(file.getId());
+            if (summary != null) {
+                prompt.append("  Summary: ").append(summary).append("\n");
             }
         }
         
@@ -185,4 +344,34 @@ public class OpenAiService {
         
         return prompt.toString();
     }
+    
+    String buildGroupSummaryPrompt(List<String> sections) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("Condense the following document summaries into one summary of at most 300 words. ");
+        prompt.append("Keep the main themes, key facts, and important dates, names and numbers.\n\n");
+        
+        for (String section : sections) {
+            prompt.append("---\n").append(section).append("\n");
+        }
+        
+        return prompt.toString();
+    }
+    
+    String buildCombinedSummaryPrompt(List<String> groupSummaries, int documentCount) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("Please create a comprehensive summary of ").append(documentCount);
+        prompt.append(" documents, given as summaries of groups of them:\n\n");
+        
+        for (String summary : groupSummaries) {
+            prompt.append("---\n").append(summary).append("\n");
+        }
+        
+        prompt.append("\nPlease provide:\n");
+        prompt.append("1. Overall theme and purpose of these documents\n");
+        prompt.append("2. Common topics and patterns\n");
+        prompt.append("3. Key insights and findings\n");
+        prompt.append("4. Recommendations for organization or next steps");
+        
+        return prompt.toString();
+    }
 }
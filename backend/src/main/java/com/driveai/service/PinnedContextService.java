@@ -0,0 +1,180 @@
+package com.driveai.service;
+
+import com.driveai.model.DriveFile;
+import com.driveai.model.User;
+import com.driveai.repository.DriveFileRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Files pinned to a chat session and their prepared context block. The block is built once
+ * and stored with the session under a key hashed from the pins and each pinned file's
+ * version (the update times of its row and of its stored text), so a turn only reads it
+ * back; it is rebuilt when a pinned file changes or the pins do. Sent first in the system
+ * message, it keeps the start of the prompt identical from turn to turn, which the
+ * provider's prompt caching needs.
+ */
+@Service
+public class PinnedContextService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PinnedContextService.class);
+    
+    // Pinned files in pin order, with their versions; a file since deleted or not the user's has none
+    private static final String VERSIONS_SQL = """
+            SELECT p.file_id, f.updated_at AS file_updated_at, c.updated_at AS content_updated_at
+            FROM chat_session_pins p
+            LEFT JOIN drive_files f ON f.id = p.file_id AND f.user_id = ?
+            LEFT JOIN drive_file_contents c ON c.file_id = f.id
+            WHERE p.session_id = ?
+            ORDER BY p.position
+            """;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private DriveFileRepository driveFileRepository;
+    
+    @Autowired
+    private ChatContextService chatContextService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${chat-context.max-pinned-files:10}")
+    private int maxPinnedFiles;
+    
+    @Value("${chat-context.pinned-max-tokens:6000}")
+    private int pinnedMaxTokens;
+    
+    public List<String> getPins(Long sessionId) {
+        return jdbcTemplate.queryForList(
+                "SELECT file_id FROM chat_session_pins WHERE session_id = ? ORDER BY position", String.class, sessionId);
+    }
+    
+    /**
+     * Replaces the session's pins with the user's files among {@code fileIds}, in order.
+     *
+     * @return the pinned file ids
+     * @throws IllegalArgumentException if more than {@code chat-context.max-pinned-files} files are given
+     */
+    @Transactional
+    public List<String> setPins(User user, Long sessionId, List<String> fileIds) {
+        LinkedHashSet<String> ids = new LinkedHashSet<>(fileIds);
+        if (ids.size() > maxPinnedFiles) {
+            throw new IllegalArgumentException("At most " + maxPinnedFiles + " pinned files per session");
+        }
+        Set<String> owned = ids.isEmpty() ? Set.of() : driveFileRepository.findByUserAndIdIn(user, ids).stream()
+                .map(DriveFile::getId)
+                .collect(Collectors.toSet());
+        List<String> pinned = ids.stream().filter(owned::contains).toList();
+        
+        // The stored block stays until the next turn finds its key out of date
+        jdbcTemplate.update("DELETE FROM chat_session_pins WHERE session_id = ?", sessionId);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < pinned.size(); i++) {
+            rows.add(new Object[]{sessionId, pinned.get(i), i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO chat_session_pins (session_id, file_id, position) VALUES (?, ?, ?)", rows);
+        return pinned;
+    }
+    
+    /**
+     * The context block of the session's pinned files: the stored one if it is still current,
+     * otherwise a new one, which is stored if every file made it in within the time budget.
+     */
+    public ChatContextService.FileContext getContext(User user, Long sessionId) {
+        List<PinVersion> pins = jdbcTemplate.query(VERSIONS_SQL, (rs, rowNum) -> new PinVersion(
+                rs.getString("file_id"), rs.getTimestamp("file_updated_at"), rs.getTimestamp("content_updated_at")),
+                user.getId(), sessionId);
+        if (pins.isEmpty()) {
+            return ChatContextService.FileContext.EMPTY;
+        }
+        String versionKey = versionKey(pins);
+        
+        List<ChatContextService.FileContext> stored = jdbcTemplate.query(
+                "SELECT context_text, file_ids FROM chat_session_pinned_context WHERE session_id = ? AND version_key = ?",
+                (rs, rowNum) -> new ChatContextService.FileContext(
+                        rs.getString("context_text"), readIds(rs.getString("file_ids")), true),
+                sessionId, versionKey);
+        if (!stored.isEmpty()) {
+            return stored.get(0);
+        }
+        
+        // A file that changes while this builds moves its version past the key, so the next
+        // turn rebuilds rather than keeping older text. The same happens once for a file whose
+        // text is fetched and stored by the build itself.
+        List<String> ids = pins.stream().filter(PinVersion::exists).map(PinVersion::fileId).toList();
+        ChatContextService.FileContext context = chatContextService.build(user, ids, pinnedMaxTokens);
+        if (context.isComplete()) {
+            jdbcTemplate.update("""
+                    INSERT INTO chat_session_pinned_context (session_id, version_key, context_text, file_ids, built_at)
+                    VALUES (?, ?, ?, CAST(? AS JSONB), now())
+                    ON CONFLICT (session_id) DO UPDATE
+                    SET version_key = EXCLUDED.version_key,
+                        context_text = EXCLUDED.context_text,
+                        file_ids = EXCLUDED.file_ids,
+                        built_at = EXCLUDED.built_at
+                    """, sessionId, versionKey, context.getText(), writeIds(context.getFileIds()));
+            logger.debug("Rebuilt pinned context of session {} from {} files", sessionId, context.getFileIds().size());
+        }
+        return context;
+    }
+    
+    private String versionKey(List<PinVersion> pins) {
+        StringBuilder key = new StringBuilder().append(pinnedMaxTokens);
+        for (PinVersion pin : pins) {
+            key.append('|').append(pin.fileId())
+                    .append(':').append(pin.fileUpdatedAt())
+                    .append(':').append(pin.contentUpdatedAt());
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private String writeIds(List<String> ids) {
+        try {
+            return objectMapper.writeValueAsString(ids);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to write pinned file ids", e);
+        }
+    }
+    
+    private List<String> readIds(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<List<String>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read pinned file ids", e);
+        }
+    }
+    
+    private record PinVersion(String fileId, Timestamp fileUpdatedAt, Timestamp contentUpdatedAt) {
+        
+        boolean exists() {
+            return fileUpdatedAt != null;
+        }
+    }
+}
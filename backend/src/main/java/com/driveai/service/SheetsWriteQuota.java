@@ -0,0 +1,17 @@
+package com.driveai.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write quota for the Google Sheets API.
+ */
+@Component
+public class SheetsWriteQuota extends GoogleWriteQuota {
+    
+    public SheetsWriteQuota(@Value("${google.sheets.write-quota.per-user-per-minute:60}") int perUserPerMinute,
+                            @Value("${google.sheets.write-quota.project-per-minute:300}") int projectPerMinute,
+                            @Value("${google.sheets.write-quota.max-attempts:5}") int maxAttempts) {
+        super("Sheets", perUserPerMinute, projectPerMinute, maxAttempts);
+    }
+}
@@ -0,0 +1,294 @@
+package com.driveai.service;
+
+import com.driveai.dto.SheetWrite;
+import com.driveai.dto.SheetsWriteResult;
+import com.driveai.model.User;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes tabular results back to Google Sheets with as few requests as possible. Writes
+ * are grouped per spreadsheet, appends to the same sheet and column are concatenated into
+ * one block, and the blocks are packed into values.batchUpdate calls of at most
+ * {@code sheets.write.max-payload-bytes} each.
+ * <p>
+ * Appends are resolved to explicit ranges up front instead of using values.append, so a
+ * retried request rewrites the same cells rather than appending its rows twice. Resolving
+ * and writing an append holds a Postgres advisory lock on its sheet, so two writers on any
+ * backend nodes never pick the same start row.
+ */
+@Service
+public class SheetsWriteService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SheetsWriteService.class);
+    
+    private static final Pattern CELL = Pattern.compile("([A-Za-z]{1,3})([1-9][0-9]*)");
+    
+    // Approximate JSON overhead: quotes and comma per cell, brackets and comma per row
+    private static final int CELL_OVERHEAD_BYTES = 3;
+    private static final int ROW_OVERHEAD_BYTES = 3;
+    private static final int RANGE_OVERHEAD_BYTES = 128;
+    
+    // First key of the two-key advisory locks on sheets; the second is the sheet's hash
+    private static final int SHEET_LOCK_CLASS = 31_002;
+    
+    @Autowired
+    private GoogleSheetsService googleSheetsService;
+    
+    @Autowired
+    private SheetsWriteQuota sheetsWriteQuota;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${sheets.write.max-payload-bytes:2000000}")
+    private long maxPayloadBytes;
+    
+    @Value("${sheets.write.max-rows:200000}")
+    private int maxRows;
+    
+    @Value("${sheets.write.lock-timeout-ms:60000}")
+    private long lockTimeoutMillis;
+    
+    /**
+     * @throws IllegalArgumentException if there are too many rows or a start cell is not A1 notation
+     */
+    public SheetsWriteResult write(User user, List<SheetWrite> writes) throws IOException, InterruptedException {
+        long totalRows = 0;
+        Map<String, List<SheetWrite>> bySpreadsheet = new LinkedHashMap<>();
+        for (SheetWrite write : writes) {
+            parseCell(write.getStartCell());
+            totalRows += write.getRows().size();
+            bySpreadsheet.computeIfAbsent(write.getSpreadsheetId(), id -> new ArrayList<>()).add(write);
+        }
+        if (totalRows > maxRows) {
+            throw new IllegalArgumentException("At most " + maxRows + " rows per write");
+        }
+        
+        SheetsWriteResult result = new SheetsWriteResult();
+        for (Map.Entry<String, List<SheetWrite>> spreadsheet : bySpreadsheet.entrySet()) {
+            writeSpreadsheet(user, spreadsheet.getKey(), spreadsheet.getValue(), result);
+        }
+        
+        logger.info("Wrote {} rows to {} spreadsheets in {} requests",
+                result.getRows(), bySpreadsheet.size(), result.getRequests());
+        return result;
+    }
+    
+    private void writeSpreadsheet(User user, String spreadsheetId, List<SheetWrite> writes,
+                                  SheetsWriteResult result) throws IOException, InterruptedException {
+        List<Block> blocks = new ArrayList<>();
+        Map<String, Block> appends = new LinkedHashMap<>();
+        for (SheetWrite write : writes) {
+            if (write.getRows().isEmpty()) {
+                continue;
+            }
+            int[] cell = parseCell(write.getStartCell());
+            if (write.getMode() == SheetWrite.Mode.OVERWRITE) {
+                Block block = new Block(write.getSheetName(), cell[0]);
+                block.startRow = cell[1];
+                block.rows.addAll(write.getRows());
+                blocks.add(block);
+            } else {
+                Block block = appends.computeIfAbsent(write.getSheetName() + "!" + cell[0], key -> {
+                    Block append = new Block(write.getSheetName(), cell[0]);
+                    blocks.add(append);
+                    return append;
+                });
+                block.rows.addAll(write.getRows());
+            }
+        }
+        if (blocks.isEmpty()) {
+            return;
+        }
+        
+        if (appends.isEmpty()) {
+            send(user, spreadsheetId, blocks, result);
+            return;
+        }
+        
+        // Sorted by lock key, so two writers never take the same locks in opposite orders
+        TreeSet<Integer> lockKeys = new TreeSet<>();
+        for (Block block : appends.values()) {
+            lockKeys.add((spreadsheetId + "/" + block.sheetName).hashCode());
+        }
+        // Transaction-scoped, so the locks go with the transaction however the write ends; it holds
+        // a connection for the duration of the Sheets requests
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMillis);
+                for (Integer key : lockKeys) {
+                    jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?, ?)::text", String.class,
+                            SHEET_LOCK_CLASS, key);
+                }
+                try {
+                    resolveAppendRows(user, spreadsheetId, new ArrayList<>(appends.values()));
+                    send(user, spreadsheetId, blocks, result);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    throw new InterruptedWrite(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (InterruptedWrite e) {
+            throw (InterruptedException) e.getCause();
+        }
+    }
+    
+    // Appended blocks start below the last row with a value in their column; one batchGet for all
+    private void resolveAppendRows(User user, String spreadsheetId, List<Block> appends) throws IOException {
+        if (appends.isEmpty()) {
+            return;
+        }
+        
+        List<String> ranges = new ArrayList<>(appends.size());
+        for (Block block : appends) {
+            String column = columnLetters(block.column);
+            ranges.add(quote(block.sheetName) + "!" + column + ":" + column);
+        }
+        List<List<List<Object>>> columns = googleSheetsService.batchGetRows(user, spreadsheetId, ranges);
+        for (int i = 0; i < appends.size(); i++) {
+            appends.get(i).startRow = columns.get(i).size() + 1;
+        }
+    }
+    
+    // Packs the blocks' rows into requests under the payload cap, splitting blocks where needed
+    private void send(User user, String spreadsheetId, List<Block> blocks, SheetsWriteResult result)
+            throws IOException, InterruptedException {
+        List<ValueRange> batch = new ArrayList<>();
+        long batchBytes = 0;
+        
+        for (Block block : blocks) {
+            int width = 0;
+            int offset = 0;
+            while (offset < block.rows.size()) {
+                int end = offset;
+                long bytes = RANGE_OVERHEAD_BYTES;
+                while (end < block.rows.size()) {
+                    List<Object> row = block.rows.get(end);
+                    long rowBytes = estimateBytes(row);
+                    // A row that does not fit still goes alone into an empty request
+                    if (batchBytes + bytes + rowBytes > maxPayloadBytes && (end > offset || !batch.isEmpty())) {
+                        break;
+                    }
+                    bytes += rowBytes;
+                    width = Math.max(width, row.size());
+                    end++;
+                }
+                
+                if (end > offset) {
+                    batch.add(new ValueRange()
+                            .setRange(quote(block.sheetName) + "!" + columnLetters(block.column) + (block.startRow + offset))
+                            .setValues(block.rows.subList(offset, end)));
+                    batchBytes += bytes;
+                    offset = end;
+                }
+                if (offset < block.rows.size()) {
+                    flush(user, spreadsheetId, batch, result);
+                    batch = new ArrayList<>();
+                    batchBytes = 0;
+                }
+            }
+            
+            result.getRanges().add(quote(block.sheetName) + "!"
+                    + columnLetters(block.column) + block.startRow + ":"
+                    + columnLetters(block.column + Math.max(width, 1) - 1) + (block.startRow + block.rows.size() - 1));
+        }
+        
+        if (!batch.isEmpty()) {
+            flush(user, spreadsheetId, batch, result);
+        }
+    }
+    
+    private void flush(User user, String spreadsheetId, List<ValueRange> batch, SheetsWriteResult result)
+            throws IOException, InterruptedException {
+        BatchUpdateValuesResponse response = sheetsWriteQuota.execute(user.getId(),
+                () -> googleSheetsService.batchUpdateValues(user, spreadsheetId, batch));
+        
+        long rows = 0;
+        for (ValueRange range : batch) {
+            rows += range.getValues().size();
+        }
+        result.setRequests(result.getRequests() + 1);
+        result.setRows(result.getRows() + rows);
+        if (response.getTotalUpdatedCells() != null) {
+            result.setUpdatedCells(result.getUpdatedCells() + response.getTotalUpdatedCells());
+        }
+    }
+    
+    private static long estimateBytes(List<Object> row) {
+        long bytes = ROW_OVERHEAD_BYTES;
+        for (Object cell : row) {
+            bytes += String.valueOf(cell).length() + CELL_OVERHEAD_BYTES;
+        }
+        return bytes;
+    }
+    
+    // {zero-based column, one-based row} of an A1 cell such as "C5"
+    static int[] parseCell(String cell) {
+        Matcher matcher = CELL.matcher(cell != null ? cell.trim() : "");
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Start cell must be in A1 notation, e.g. B2: " + cell);
+        }
+        int column = 0;
+        for (char c : matcher.group(1).toUpperCase().toCharArray()) {
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return new int[] {column - 1, Integer.parseInt(matcher.group(2))};
+    }
+    
+    static String columnLetters(int column) {
+        StringBuilder letters = new StringBuilder();
+        for (int n = column + 1; n > 0; n = (n - 1) / 26) {
+            letters.insert(0, (char) ('A' + (n - 1) % 26));
+        }
+        return letters.toString();
+    }
+    
+    private static String quote(String sheetName) {
+        return "'" + sheetName.replace("'", "''") + "'";
+    }
+    
+    // Carries an InterruptedException out of the transaction callback
+    private static final class InterruptedWrite extends RuntimeException {
+        
+        InterruptedWrite(InterruptedException cause) {
+            super(cause);
+        }
+    }
+    
+    private static final class Block {
+        
+        private final String sheetName;
+        private final int column;
+        private final List<List<Object>> rows = new ArrayList<>();
+        private int startRow;
+        
+        Block(String sheetName, int column) {
+            this.sheetName = sheetName;
+            this.column = column;
+        }
+    }
+}
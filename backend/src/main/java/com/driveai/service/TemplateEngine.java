@@ -0,0 +1,82 @@
+package com.driveai.service;
+
+import com.driveai.model.DocumentTemplate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compiles {@link DocumentTemplate} content once and keeps the compiled form per template
+ * id. An entry is reused while the template's updatedAt is unchanged, so an edit made on
+ * any node is picked up on the next render.
+ */
+@Service
+public class TemplateEngine {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TemplateEngine.class);
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${template-cache.max-size:1000}")
+    private long maxSize;
+    
+    private Cache<Long, CompiledTemplate> compiledTemplates;
+    
+    @PostConstruct
+    void initCache() {
+        compiledTemplates = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+    
+    public CompiledTemplate getCompiled(DocumentTemplate template) {
+        CompiledTemplate cached = compiledTemplates.getIfPresent(template.getId());
+        if (cached != null && Objects.equals(cached.getSourceUpdatedAt(), template.getUpdatedAt())) {
+            return cached;
+        }
+        
+        CompiledTemplate compiled = CompiledTemplate.compile(
+                template.getTemplateContent(), declaredVariables(template), template.getUpdatedAt());
+        compiledTemplates.put(template.getId(), compiled);
+        return compiled;
+    }
+    
+    /** Compiles an ad-hoc template, e.g. a per-row title pattern; not cached. */
+    public CompiledTemplate compile(String source) {
+        return CompiledTemplate.compile(source, null, null);
+    }
+    
+    // Variable names are the keys of the template's JSON variables object
+    private List<String> declaredVariables(DocumentTemplate template) {
+        String variables = template.getVariables();
+        if (variables == null || variables.isBlank()) {
+            return null;
+        }
+        
+        try {
+            JsonNode schema = objectMapper.readTree(variables);
+            if (!schema.isObject()) {
+                return null;
+            }
+            List<String> names = new ArrayList<>();
+            schema.fieldNames().forEachRemaining(names::add);
+            return names;
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring unreadable variables of template {}: {}", template.getId(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.driveai.service;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Hibernate session listener that adds up the time spent acquiring connections and
+ * executing statements, and counts second-level cache hits and misses, for everything
+ * one request does through its Session. Registered on the open-in-view Session, so
+ * it covers every repository call made while handling the request.
+ */
+public class TurnSessionStats extends BaseSessionEventListener {
+    
+    private long jdbcNanos;
+    private long acquisitionStart;
+    private long executeStart;
+    private long batchStart;
+    private int cacheHits;
+    private int cacheMisses;
+    
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        acquisitionStart = System.nanoTime();
+    }
+    
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        jdbcNanos += System.nanoTime() - acquisitionStart;
+    }
+    
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+    
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        jdbcNanos += System.nanoTime() - executeStart;
+    }
+    
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+    
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        jdbcNanos += System.nanoTime() - batchStart;
+    }
+    
+    @Override
+    public void cacheGetEnd(boolean hit) {
+        if (hit) {
+            cacheHits++;
+        } else {
+            cacheMisses++;
+        }
+    }
+    
+    public long getJdbcMillis() {
+        return jdbcNanos / 1_000_000;
+    }
+    
+    public int getCacheHits() {
+        return cacheHits;
+    }
+    
+    public int getCacheMisses() {
+        return cacheMisses;
+    }
+}
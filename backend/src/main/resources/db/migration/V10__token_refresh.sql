@@ -0,0 +1,6 @@
+-- Background OAuth token refresh. The refresh sweep claims a user by moving
+-- token_refresh_claimed_until forward, so only one instance refreshes a given token.
+ALTER TABLE users ADD COLUMN token_refresh_claimed_until TIMESTAMP;
+
+-- Users whose access token is about to expire, for the sweep
+CREATE INDEX idx_users_token_expires_at ON users (token_expires_at) WHERE refresh_token IS NOT NULL;
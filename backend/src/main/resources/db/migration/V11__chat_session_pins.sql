@@ -0,0 +1,18 @@
+-- Files pinned to a chat session, included in the context of every turn
+CREATE TABLE chat_session_pins (
+    session_id BIGINT       NOT NULL REFERENCES chat_sessions (id) ON DELETE CASCADE,
+    file_id    VARCHAR(255) NOT NULL,
+    position   INTEGER      NOT NULL,
+    pinned_at  TIMESTAMP    NOT NULL DEFAULT now(),
+    PRIMARY KEY (session_id, file_id)
+);
+
+-- The prepared context block of a session's pinned files. version_key hashes the pins and
+-- the files' versions at build time; the block is rebuilt when it no longer matches.
+CREATE TABLE chat_session_pinned_context (
+    session_id   BIGINT      PRIMARY KEY REFERENCES chat_sessions (id) ON DELETE CASCADE,
+    version_key  VARCHAR(64) NOT NULL,
+    context_text TEXT        NOT NULL,
+    file_ids     JSONB       NOT NULL,
+    built_at     TIMESTAMP   NOT NULL
+);
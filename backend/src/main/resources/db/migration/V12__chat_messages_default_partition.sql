@@ -0,0 +1,4 @@
+-- Catches rows outside every monthly partition, i.e. archived messages restored after their
+-- month was detached. Restores no longer create partitions, which would lock chat_messages
+-- on the chat request path; only the scheduled maintenance does.
+CREATE TABLE IF NOT EXISTS chat_messages_default PARTITION OF chat_messages DEFAULT;
@@ -0,0 +1,4 @@
+-- Mail merge jobs are QUEUED until a worker claims them; the recovery sweep looks at
+-- queued and running jobs whose instance stopped refreshing their heartbeat.
+DROP INDEX idx_mail_merge_jobs_running_heartbeat;
+CREATE INDEX idx_mail_merge_jobs_active_heartbeat ON mail_merge_jobs (heartbeat_at) WHERE status IN ('QUEUED', 'RUNNING');
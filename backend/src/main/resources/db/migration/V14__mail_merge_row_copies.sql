@@ -0,0 +1,3 @@
+-- The template copy made for a row, recorded before it is filled, so a row whose fill
+-- failed reuses its copy when the job resumes instead of copying the template again.
+ALTER TABLE mail_merge_rows ADD COLUMN copy_id VARCHAR(255);
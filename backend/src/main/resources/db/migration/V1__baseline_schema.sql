@@ -0,0 +1,57 @@
+-- Baseline schema, matching the JPA entities before chat_messages partitioning.
+
+CREATE TABLE users (
+    id               BIGSERIAL    PRIMARY KEY,
+    google_id        VARCHAR(255) NOT NULL,
+    email            VARCHAR(255) NOT NULL,
+    name             VARCHAR(255),
+    access_token     TEXT,
+    refresh_token    TEXT,
+    token_expires_at TIMESTAMP,
+    created_at       TIMESTAMP,
+    updated_at       TIMESTAMP,
+    CONSTRAINT uk_users_google_id UNIQUE (google_id)
+);
+
+CREATE TABLE drive_files (
+    id              VARCHAR(255) PRIMARY KEY,
+    user_id         BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    name            VARCHAR(255) NOT NULL,
+    mime_type       VARCHAR(255),
+    size            BIGINT,
+    modified_time   TIMESTAMP,
+    content_summary TEXT,
+    content_text    TEXT,
+    last_analyzed   TIMESTAMP,
+    created_at      TIMESTAMP,
+    updated_at      TIMESTAMP
+);
+
+CREATE TABLE chat_sessions (
+    id         BIGSERIAL    PRIMARY KEY,
+    user_id    BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    title      VARCHAR(255),
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+CREATE TABLE chat_messages (
+    id              BIGSERIAL    PRIMARY KEY,
+    session_id      BIGINT       NOT NULL REFERENCES chat_sessions (id) ON DELETE CASCADE,
+    role            VARCHAR(255) NOT NULL,
+    content         TEXT         NOT NULL,
+    file_references JSONB,
+    metadata        JSONB,
+    created_at      TIMESTAMP
+);
+
+CREATE TABLE document_templates (
+    id               BIGSERIAL    PRIMARY KEY,
+    user_id          BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    name             VARCHAR(255) NOT NULL,
+    description      TEXT,
+    template_content TEXT         NOT NULL,
+    variables        JSONB,
+    created_at       TIMESTAMP,
+    updated_at       TIMESTAMP
+);
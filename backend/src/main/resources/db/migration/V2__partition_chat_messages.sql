@@ -0,0 +1,61 @@
+-- Range-partitions chat_messages by created_at (monthly) and adds the cold session archive.
+-- Later partitions are created, and empty expired ones detached, by ChatMessagePartitionService.
+ALTER TABLE chat_messages RENAME TO chat_messages_unpartitioned;
+ALTER TABLE chat_messages_unpartitioned RENAME CONSTRAINT chat_messages_pkey TO chat_messages_unpartitioned_pkey;
+ALTER INDEX IF EXISTS idx_chat_messages_session_created RENAME TO idx_chat_messages_unpartitioned_session_created;
+
+CREATE SEQUENCE chat_messages_partitioned_id_seq;
+SELECT setval('chat_messages_partitioned_id_seq', COALESCE((SELECT MAX(id) FROM chat_messages_unpartitioned), 0) + 1, false);
+
+-- The partition key has to be part of the primary key
+CREATE TABLE chat_messages (
+    id              BIGINT       NOT NULL DEFAULT nextval('chat_messages_partitioned_id_seq'),
+    session_id      BIGINT       NOT NULL REFERENCES chat_sessions (id) ON DELETE CASCADE,
+    role            VARCHAR(255) NOT NULL,
+    content         TEXT         NOT NULL,
+    file_references JSONB,
+    metadata        JSONB,
+    created_at      TIMESTAMP    NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE chat_messages_partitioned_id_seq OWNED BY chat_messages.id;
+
+CREATE INDEX idx_chat_messages_session_created ON chat_messages (session_id, created_at, id);
+
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    FOR month_start IN
+        SELECT g::date
+        FROM generate_series(
+            (SELECT date_trunc('month', COALESCE(MIN(created_at), now())) FROM chat_messages_unpartitioned),
+            date_trunc('month', now()) + interval '3 months',
+            interval '1 month') AS g
+    LOOP
+        EXECUTE format('CREATE TABLE chat_messages_p%s PARTITION OF chat_messages FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month_start, 'YYYY_MM'), month_start, (month_start + interval '1 month')::date);
+    END LOOP;
+END $$;
+
+INSERT INTO chat_messages (id, session_id, role, content, file_references, metadata, created_at)
+SELECT id, session_id, role, content, file_references, metadata, COALESCE(created_at, now())
+FROM chat_messages_unpartitioned;
+
+DROP TABLE chat_messages_unpartitioned;
+
+-- Cold archive: idle sessions' messages as one gzip-compressed JSON payload per session
+ALTER TABLE chat_sessions ADD COLUMN archived_at TIMESTAMP;
+
+CREATE TABLE chat_session_archives (
+    session_id           BIGINT    PRIMARY KEY REFERENCES chat_sessions (id) ON DELETE CASCADE,
+    message_count        INTEGER   NOT NULL,
+    last_message_preview TEXT,
+    uncompressed_bytes   INTEGER   NOT NULL,
+    payload              BYTEA     NOT NULL,
+    archived_at          TIMESTAMP NOT NULL
+);
+
+-- Payloads are already compressed; skip TOAST's own compression pass
+ALTER TABLE chat_session_archives ALTER COLUMN payload SET STORAGE EXTERNAL;
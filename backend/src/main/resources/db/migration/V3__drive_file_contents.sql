@@ -0,0 +1,34 @@
+-- Moves extracted text and summaries out of drive_files into a separately fetched table.
+-- Existing values are copied in the converter's raw format (0x00 header + UTF-8) and are
+-- recompressed with zstd the next time they are written.
+CREATE TABLE drive_file_contents (
+    file_id         VARCHAR(255) PRIMARY KEY REFERENCES drive_files (id) ON DELETE CASCADE,
+    content_text    BYTEA,
+    content_summary BYTEA,
+    updated_at      TIMESTAMP
+);
+
+-- Values are compressed by the application; skip TOAST's own compression pass
+ALTER TABLE drive_file_contents
+    ALTER COLUMN content_text SET STORAGE EXTERNAL,
+    ALTER COLUMN content_summary SET STORAGE EXTERNAL;
+
+ALTER TABLE drive_files
+    ADD COLUMN content_length INTEGER,
+    ADD COLUMN summary_available BOOLEAN NOT NULL DEFAULT FALSE;
+
+INSERT INTO drive_file_contents (file_id, content_text, content_summary, updated_at)
+SELECT id,
+       CASE WHEN content_text IS NOT NULL THEN '\x00'::bytea || convert_to(content_text, 'UTF8') END,
+       CASE WHEN content_summary IS NOT NULL THEN '\x00'::bytea || convert_to(content_summary, 'UTF8') END,
+       now()
+FROM drive_files
+WHERE content_text IS NOT NULL OR content_summary IS NOT NULL;
+
+UPDATE drive_files
+SET content_length = length(content_text),
+    summary_available = (content_summary IS NOT NULL);
+
+ALTER TABLE drive_files
+    DROP COLUMN content_text,
+    DROP COLUMN content_summary;
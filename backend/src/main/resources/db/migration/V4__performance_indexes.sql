@@ -0,0 +1,29 @@
+-- Indexes for the hot repository predicates. users(google_id) is covered by
+-- uk_users_google_id (V1) and chat_messages(session_id, created_at, id) by V2.
+
+-- DriveFileRepository.findByUserOrderByModifiedTimeDesc
+CREATE INDEX idx_drive_files_user_modified ON drive_files (user_id, modified_time DESC);
+
+-- findByUserAndMimeType
+CREATE INDEX idx_drive_files_user_mime_modified ON drive_files (user_id, mime_type, modified_time DESC);
+
+-- findAnalyzedFilesByUser: only rows with a summary
+CREATE INDEX idx_drive_files_user_analyzed ON drive_files (user_id, modified_time DESC)
+    WHERE summary_available = TRUE;
+
+-- findFilesNeedingAnalysis: the never-analyzed side of the OR
+CREATE INDEX idx_drive_files_user_unanalyzed ON drive_files (user_id, modified_time DESC)
+    WHERE summary_available = FALSE;
+
+-- findFilesNeedingAnalysis: the stale side of the OR
+CREATE INDEX idx_drive_files_user_last_analyzed ON drive_files (user_id, last_analyzed);
+
+-- ChatSessionRepository summary listing, keyset on (updated_at, id)
+CREATE INDEX idx_chat_sessions_user_updated ON chat_sessions (user_id, updated_at DESC, id DESC);
+
+-- ChatArchiveService.findIdleSessionIds: only sessions still in the hot table
+CREATE INDEX idx_chat_sessions_idle ON chat_sessions (updated_at)
+    WHERE archived_at IS NULL;
+
+-- DocumentTemplateRepository.findByUserOrderByUpdatedAtDesc
+CREATE INDEX idx_document_templates_user_updated ON document_templates (user_id, updated_at DESC);
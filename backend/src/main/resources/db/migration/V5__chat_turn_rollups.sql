@@ -0,0 +1,28 @@
+-- Per-user, per-day chat turn accounting, maintained one upsert per assistant reply by
+-- ChatTurnStatsService so that the stats endpoint never scans chat_messages.
+CREATE TABLE chat_turn_rollups (
+    user_id           BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    day               DATE   NOT NULL,
+    turns             BIGINT NOT NULL DEFAULT 0,
+    prompt_tokens     BIGINT NOT NULL DEFAULT 0,
+    completion_tokens BIGINT NOT NULL DEFAULT 0,
+    cache_hits        BIGINT NOT NULL DEFAULT 0,
+    cache_misses      BIGINT NOT NULL DEFAULT 0,
+    total_ms          BIGINT NOT NULL DEFAULT 0,
+    retrieval_ms      BIGINT NOT NULL DEFAULT 0,
+    llm_ms            BIGINT NOT NULL DEFAULT 0,
+    db_ms             BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, day)
+);
+
+-- Latency histograms behind the percentiles: bucket b counts turns whose metric
+-- ('total', 'retrieval', 'llm' or 'db') took at most 1.1^b ms, so percentiles read
+-- back from it are within 10% of the exact value.
+CREATE TABLE chat_turn_latency_buckets (
+    user_id BIGINT      NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    day     DATE        NOT NULL,
+    metric  VARCHAR(16) NOT NULL,
+    bucket  SMALLINT    NOT NULL,
+    turns   BIGINT      NOT NULL,
+    PRIMARY KEY (user_id, day, metric, bucket)
+);
@@ -0,0 +1,38 @@
+-- Sheet -> Docs mail-merge jobs. next_row is the checkpoint: every sheet row before it has
+-- an outcome in mail_merge_rows, so a paused, failed or interrupted job resumes from there.
+CREATE TABLE mail_merge_jobs (
+    id                   BIGSERIAL    PRIMARY KEY,
+    user_id              BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    template_id          BIGINT       NOT NULL REFERENCES document_templates (id) ON DELETE CASCADE,
+    spreadsheet_id       VARCHAR(255) NOT NULL,
+    sheet_name           VARCHAR(255) NOT NULL,
+    template_document_id VARCHAR(255),
+    folder_id            VARCHAR(255),
+    title_template       TEXT,
+    column_variables     JSONB        NOT NULL,
+    status               VARCHAR(16)  NOT NULL,
+    next_row             INTEGER      NOT NULL DEFAULT 2,
+    created_count        INTEGER      NOT NULL DEFAULT 0,
+    failed_count         INTEGER      NOT NULL DEFAULT 0,
+    last_error           TEXT,
+    heartbeat_at         TIMESTAMP,
+    created_at           TIMESTAMP,
+    updated_at           TIMESTAMP,
+    finished_at          TIMESTAMP
+);
+
+CREATE INDEX idx_mail_merge_jobs_user_created ON mail_merge_jobs (user_id, created_at DESC);
+
+-- Recovery sweep looks only at running jobs
+CREATE INDEX idx_mail_merge_jobs_running_heartbeat ON mail_merge_jobs (heartbeat_at) WHERE status = 'RUNNING';
+
+-- One outcome per sheet row; document_id is null when the row failed
+CREATE TABLE mail_merge_rows (
+    job_id      BIGINT       NOT NULL REFERENCES mail_merge_jobs (id) ON DELETE CASCADE,
+    row_number  INTEGER      NOT NULL,
+    document_id VARCHAR(255),
+    title       TEXT,
+    error       TEXT,
+    updated_at  TIMESTAMP    NOT NULL DEFAULT now(),
+    PRIMARY KEY (job_id, row_number)
+);
@@ -0,0 +1,29 @@
+-- Durable queue of background document analyses. Workers on every instance lease QUEUED
+-- rows with FOR UPDATE SKIP LOCKED; a RUNNING row whose locked_until has passed is leased
+-- again (visibility timeout), and a job out of attempts ends as DEAD.
+CREATE TABLE analysis_jobs (
+    id           BIGSERIAL    PRIMARY KEY,
+    user_id      BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    file_id      VARCHAR(255) NOT NULL REFERENCES drive_files (id) ON DELETE CASCADE,
+    status       VARCHAR(16)  NOT NULL,
+    attempts     INTEGER      NOT NULL DEFAULT 0,
+    max_attempts INTEGER      NOT NULL,
+    run_after    TIMESTAMP    NOT NULL DEFAULT now(),
+    locked_by    VARCHAR(255),
+    locked_until TIMESTAMP,
+    last_error   TEXT,
+    created_at   TIMESTAMP    NOT NULL DEFAULT now(),
+    updated_at   TIMESTAMP    NOT NULL DEFAULT now(),
+    finished_at  TIMESTAMP
+);
+
+-- At most one pending job per file; enqueues use ON CONFLICT DO NOTHING against it
+CREATE UNIQUE INDEX idx_analysis_jobs_pending_file ON analysis_jobs (file_id) WHERE status IN ('QUEUED', 'RUNNING');
+
+-- Leasing scans due queued jobs and expired leases
+CREATE INDEX idx_analysis_jobs_queued_run_after ON analysis_jobs (run_after) WHERE status = 'QUEUED';
+CREATE INDEX idx_analysis_jobs_running_locked_until ON analysis_jobs (locked_until) WHERE status = 'RUNNING';
+
+-- Recently finished jobs are not enqueued again; per-user status counts
+CREATE INDEX idx_analysis_jobs_file_finished ON analysis_jobs (file_id, finished_at);
+CREATE INDEX idx_analysis_jobs_user_status ON analysis_jobs (user_id, status);
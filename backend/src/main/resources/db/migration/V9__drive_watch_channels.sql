@@ -0,0 +1,17 @@
+-- Drive changes.watch push channels, one per user. page_token is the position in the user's
+-- change log up to which notifications have been processed; it only moves forward with a
+-- conditional update, so any instance can handle any notification.
+CREATE TABLE drive_watch_channels (
+    id          VARCHAR(64)  PRIMARY KEY,
+    user_id     BIGINT       NOT NULL UNIQUE REFERENCES users (id) ON DELETE CASCADE,
+    resource_id VARCHAR(255) NOT NULL,
+    token       VARCHAR(64)  NOT NULL,
+    page_token  VARCHAR(255) NOT NULL,
+    expiration  TIMESTAMP    NOT NULL,
+    -- The renewal sweep claims a channel by moving this forward
+    renew_after TIMESTAMP    NOT NULL,
+    created_at  TIMESTAMP    NOT NULL DEFAULT now(),
+    updated_at  TIMESTAMP    NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_drive_watch_channels_renew_after ON drive_watch_channels (renew_after);
@@ -0,0 +1,285 @@
+package com.driveai.repository;
+
+import com.driveai.model.ChatSession;
+import com.driveai.model.User;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Checks that the hot repository queries are served by an index. Each test calls the
+ * repository method against a seeded PostgreSQL, captures the SQL Hibernate actually sent
+ * (through a datasource-proxy around the DataSource) and fails if the EXPLAIN of any of
+ * those statements, with the same parameters, has a sequential scan on the given tables.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+@Sql(scripts = "/hot-query-seed.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class HotQueryPlanTest {
+    
+    // Same major version as docker-compose.yml
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+    
+    private static final long USER_ID = 900042;
+    private static final long SESSION_ID = 900042;
+    
+    @Autowired
+    private SqlCapture sqlCapture;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DriveFileRepository driveFileRepository;
+    
+    @Autowired
+    private DriveFileContentRepository driveFileContentRepository;
+    
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+    
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+    
+    @Autowired
+    private DocumentTemplateRepository documentTemplateRepository;
+    
+    @Autowired
+    private MailMergeJobRepository mailMergeJobRepository;
+    
+    private User user;
+    private ChatSession session;
+    
+    @BeforeEach
+    void loadFixtures() {
+        user = userRepository.findById(USER_ID).orElseThrow();
+        session = chatSessionRepository.findById(SESSION_ID).orElseThrow();
+    }
+    
+    @Test
+    void userByGoogleId() {
+        assertIndexed(() -> userRepository.findByGoogleId("explain-42"), "users");
+    }
+    
+    @Test
+    void driveFilesByUser() {
+        assertIndexed(() -> driveFileRepository.findByUserOrderByModifiedTimeDesc(user), "drive_files");
+    }
+    
+    @Test
+    void driveFilesByUserAndMimeType() {
+        assertIndexed(() -> driveFileRepository.findByUserAndMimeType(user, "application/pdf"), "drive_files");
+    }
+    
+    @Test
+    void analyzedDriveFiles() {
+        assertIndexed(() -> driveFileRepository.findAnalyzedFilesByUser(user), "drive_files");
+    }
+    
+    @Test
+    void driveFilesNeedingAnalysis() {
+        assertIndexed(() -> driveFileRepository.findFilesNeedingAnalysis(user, LocalDateTime.now().minusDays(7)),
+                "drive_files");
+    }
+    
+    @Test
+    void driveFileByIdAndUser() {
+        assertIndexed(() -> driveFileRepository.findByIdAndUser("explain-file-41", user), "drive_files");
+    }
+    
+    @Test
+    void driveFilesByUserAndIds() {
+        assertIndexed(() -> driveFileRepository.findByUserAndIdIn(user,
+                List.of("explain-file-41", "explain-file-541", "explain-file-1041")), "drive_files");
+    }
+    
+    @Test
+    void driveFileContentsByIds() {
+        assertIndexed(() -> driveFileContentRepository.findByFileIdIn(
+                List.of("explain-file-41", "explain-file-541", "explain-file-1041")), "drive_file_contents");
+    }
+    
+    @Test
+    void sessionSummaries() {
+        assertIndexed(() -> chatSessionRepository.findSessionSummaries(user, Limit.of(50)),
+                "chat_sessions", "chat_messages");
+    }
+    
+    @Test
+    void sessionSummariesBeforeCursor() {
+        assertIndexed(() -> chatSessionRepository.findSessionSummariesBefore(user,
+                LocalDateTime.now().minusDays(10), 905000L, Limit.of(50)), "chat_sessions", "chat_messages");
+    }
+    
+    @Test
+    void idleSessions() {
+        assertIndexed(() -> chatSessionRepository.findIdleSessionIds(LocalDateTime.now().minusDays(190), Limit.of(100)),
+                "chat_sessions");
+    }
+    
+    @Test
+    void latestMessages() {
+        assertIndexed(() -> chatMessageRepository.findLatestMessages(session, Limit.of(50)), "chat_messages");
+    }
+    
+    @Test
+    void messagesBeforeCursor() {
+        LocalDateTime cursor = LocalDateTime.now().withDayOfMonth(1).toLocalDate().atStartOfDay().plusHours(5);
+        assertIndexed(() -> chatMessageRepository.findMessagesBefore(session, cursor, 1000L, Limit.of(50)),
+                "chat_messages");
+    }
+    
+    @Test
+    void messagesAfterCursor() {
+        LocalDateTime cursor = LocalDateTime.now().withDayOfMonth(1).toLocalDate().atStartOfDay().plusHours(5);
+        assertIndexed(() -> chatMessageRepository.findMessagesAfter(session, cursor, 1000L, Limit.of(50)),
+                "chat_messages");
+    }
+    
+    @Test
+    void messagesForArchive() {
+        assertIndexed(() -> chatMessageRepository.findAllMessagesForArchive(SESSION_ID), "chat_messages");
+    }
+    
+    @Test
+    void templatesByUser() {
+        assertIndexed(() -> documentTemplateRepository.findByUserOrderByUpdatedAtDesc(user), "document_templates");
+    }
+    
+    @Test
+    void mailMergeJobsByUser() {
+        assertIndexed(() -> mailMergeJobRepository.findTop50ByUserIdOrderByCreatedAtDesc(USER_ID), "mail_merge_jobs");
+    }
+    
+    @Test
+    void staleMailMergeJobs() {
+        assertIndexed(() -> mailMergeJobRepository.findStaleJobIds(LocalDateTime.now().minusMinutes(10)),
+                "mail_merge_jobs");
+    }
+    
+    private void assertIndexed(Runnable repositoryCall, String... tables) {
+        sqlCapture.clear();
+        repositoryCall.run();
+        List<QueryInfo> queries = sqlCapture.drain();
+        assertThat(queries).as("statements sent by the repository method").isNotEmpty();
+        
+        for (QueryInfo query : queries) {
+            String plan = explain(query);
+            for (String table : tables) {
+                // Partitions of chat_messages show up as chat_messages_pYYYY_MM and chat_messages_default
+                Pattern seqScan = Pattern.compile("Seq Scan on " + table + "(_p\\d{4}_\\d{2}|_default)?\\b");
+                if (seqScan.matcher(plan).find()) {
+                    fail("Sequential scan on %s for%n%s%n%s", table, query.getQuery(), plan);
+                }
+            }
+        }
+    }
+    
+    // EXPLAIN of the captured statement with the parameters it was sent with, so the plan is the one it got
+    private String explain(QueryInfo query) {
+        List<ParameterSetOperation> parameters = query.getParametersList().isEmpty()
+                ? List.of()
+                : query.getParametersList().get(0);
+        return jdbcTemplate.execute("EXPLAIN " + query.getQuery(), (PreparedStatement statement) -> {
+            for (ParameterSetOperation parameter : parameters) {
+                try {
+                    parameter.getMethod().invoke(statement, parameter.getArgs());
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Failed to bind " + parameter.getMethod().getName(), e);
+                }
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        });
+    }
+    
+    @TestConfiguration
+    static class CaptureConfig {
+        
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+        
+        // Wraps the DataSource Hibernate uses, so whatever it sends is seen as sent
+        @Bean
+        static BeanPostProcessor capturingDataSource(ObjectProvider<SqlCapture> capture) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder.create(dataSource)
+                                .name(beanName)
+                                .listener(capture.getObject())
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+    
+    static class SqlCapture implements QueryExecutionListener {
+        
+        private final List<QueryInfo> captured = new ArrayList<>();
+        
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+        
+        @Override
+        public synchronized void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            captured.addAll(queryInfoList);
+        }
+        
+        synchronized void clear() {
+            captured.clear();
+        }
+        
+        synchronized List<QueryInfo> drain() {
+            List<QueryInfo> queries = List.copyOf(captured);
+            captured.clear();
+            return queries;
+        }
+    }
+}
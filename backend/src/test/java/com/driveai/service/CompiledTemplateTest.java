@@ -0,0 +1,96 @@
+package com.driveai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledTemplateTest {
+    
+    @Test
+    void rendersLiteralsAndValues() {
+        CompiledTemplate template = CompiledTemplate.compile("Dear {{name}}, you owe {{amount}}.", null, null);
+        
+        assertThat(template.render(Map.of("name", "Ada", "amount", 42))).isEqualTo("Dear Ada, you owe 42.");
+    }
+    
+    @Test
+    void templateWithoutSlotsRendersAsIs() {
+        CompiledTemplate template = CompiledTemplate.compile("No variables here", null, null);
+        
+        assertThat(template.render(Map.of())).isEqualTo("No variables here");
+        assertThat(template.getVariableNames()).isEmpty();
+    }
+    
+    @Test
+    void slotNamesAreTrimmedAndMayContainDotsDashesAndUnderscores() {
+        CompiledTemplate template = CompiledTemplate.compile("{{ first_name }} {{customer.last-name}}", null, null);
+        
+        assertThat(template.getVariableNames()).containsExactly("first_name", "customer.last-name");
+        assertThat(template.render(Map.of("first_name", "Ada", "customer.last-name", "Lovelace")))
+                .isEqualTo("Ada Lovelace");
+    }
+    
+    @Test
+    void invalidSlotsAreKeptAsLiteralText() {
+        CompiledTemplate template = CompiledTemplate.compile("{{}} {{not valid!}} {{name}}", null, null);
+        
+        assertThat(template.getVariableNames()).containsExactly("name");
+        assertThat(template.render(Map.of("name", "Ada"))).isEqualTo("{{}} {{not valid!}} Ada");
+    }
+    
+    @Test
+    void unclosedBracesAreKeptAsLiteralText() {
+        CompiledTemplate template = CompiledTemplate.compile("Hello {{name}}, {{unclosed", null, null);
+        
+        assertThat(template.getVariableNames()).containsExactly("name");
+        assertThat(template.render(Map.of("name", "Ada"))).isEqualTo("Hello Ada, {{unclosed");
+    }
+    
+    @Test
+    void repeatedSlotsAreOneVariable() {
+        CompiledTemplate template = CompiledTemplate.compile("{{name}} and {{name}} again", null, null);
+        
+        assertThat(template.getVariableNames()).containsExactly("name");
+        assertThat(template.render(Map.of("name", "Ada"))).isEqualTo("Ada and Ada again");
+    }
+    
+    @Test
+    void missingAndNullValuesRenderAsEmpty() {
+        CompiledTemplate template = CompiledTemplate.compile("[{{a}}][{{b}}]", null, null);
+        Map<String, Object> values = new HashMap<>();
+        values.put("b", null);
+        
+        assertThat(template.render(values)).isEqualTo("[][]");
+    }
+    
+    @Test
+    void withoutSchemaEverySlotIsRequired() {
+        CompiledTemplate template = CompiledTemplate.compile("{{b}} {{a}} {{b}} {{c}}", null, null);
+        Map<String, Object> values = new HashMap<>();
+        values.put("a", "x");
+        values.put("c", null);
+        
+        assertThat(template.missingVariables(values)).containsExactly("b", "c");
+        assertThat(template.missingVariables(Map.of("a", 1, "b", 2, "c", 3))).isEmpty();
+    }
+    
+    @Test
+    void withSchemaOnlyDeclaredSlotsAreRequired() {
+        CompiledTemplate template = CompiledTemplate.compile("{{name}} {{note}}", List.of("name", "unused"), null);
+        
+        assertThat(template.missingVariables(Map.of())).containsExactly("name");
+        assertThat(template.missingVariables(Map.of("name", "Ada"))).isEmpty();
+        assertThat(template.render(Map.of("name", "Ada"))).isEqualTo("Ada ");
+    }
+    
+    @Test
+    void emptySchemaRequiresNothing() {
+        CompiledTemplate template = CompiledTemplate.compile("{{name}}", List.of(), null);
+        
+        assertThat(template.missingVariables(Map.of())).isEmpty();
+    }
+}
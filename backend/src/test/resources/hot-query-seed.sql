@@ -0,0 +1,56 @@
+-- Dataset for HotQueryPlanTest: enough rows per user, session and job that the planner
+-- prefers an index wherever one applies, so a sequential scan in a plan means a missing one.
+
+INSERT INTO users (id, google_id, email, name, created_at, updated_at)
+SELECT 900000 + u, 'explain-' || u, 'explain-' || u || '@example.com', 'Explain ' || u, now(), now()
+FROM generate_series(1, 500) AS u;
+
+INSERT INTO drive_files (id, user_id, name, mime_type, modified_time, summary_available, last_analyzed, created_at, updated_at)
+SELECT 'explain-file-' || f,
+       900000 + (f % 500) + 1,
+       'File ' || f,
+       CASE f % 3 WHEN 0 THEN 'application/vnd.google-apps.document'
+                  WHEN 1 THEN 'application/vnd.google-apps.spreadsheet'
+                  ELSE 'application/pdf' END,
+       now() - (f % 1000) * interval '1 hour',
+       f % 4 <> 0,
+       CASE WHEN f % 4 <> 0 THEN now() - (f % 30) * interval '1 day' END,
+       now(), now()
+FROM generate_series(1, 50000) AS f;
+
+-- Stored in CompressedTextConverter's raw format: a 0x00 header and UTF-8
+INSERT INTO drive_file_contents (file_id, content_text, updated_at)
+SELECT 'explain-file-' || f, '\x00'::bytea || convert_to('Text of file ' || f, 'UTF8'), now()
+FROM generate_series(1, 50000) AS f;
+
+INSERT INTO chat_sessions (id, user_id, title, created_at, updated_at)
+SELECT 900000 + s, 900000 + (s % 500) + 1, 'Session ' || s,
+       now() - (s % 200) * interval '1 day', now() - (s % 200) * interval '1 day'
+FROM generate_series(1, 10000) AS s;
+
+INSERT INTO chat_messages (session_id, role, content, created_at)
+SELECT 900000 + (m % 10000) + 1,
+       CASE WHEN m % 2 = 0 THEN 'USER' ELSE 'ASSISTANT' END,
+       'Message ' || m,
+       date_trunc('month', now()) + (m % 600) * interval '1 minute'
+FROM generate_series(1, 200000) AS m;
+
+INSERT INTO document_templates (user_id, name, template_content, created_at, updated_at)
+SELECT 900000 + (t % 500) + 1, 'Template ' || t, 'Hello {{name}}', now(), now() - t * interval '1 minute'
+FROM generate_series(1, 5000) AS t;
+
+-- Mostly finished jobs, as in production; one in a hundred is still active
+INSERT INTO mail_merge_jobs (user_id, template_id, spreadsheet_id, sheet_name, column_variables, status,
+                             heartbeat_at, created_at, updated_at)
+SELECT 900000 + (j % 500) + 1, t.id, 'sheet-' || j, 'Sheet1', '[]',
+       CASE WHEN j % 100 = 0 THEN 'RUNNING' ELSE 'COMPLETED' END,
+       now() - (j % 60) * interval '1 minute', now() - j * interval '1 minute', now()
+FROM generate_series(1, 20000) AS j, (SELECT min(id) AS id FROM document_templates) AS t;
+
+ANALYZE users;
+ANALYZE drive_files;
+ANALYZE drive_file_contents;
+ANALYZE chat_sessions;
+ANALYZE chat_messages;
+ANALYZE document_templates;
+ANALYZE mail_merge_jobs;
@@ -0,0 +1,5 @@
+#!/bin/bash
+# Runs once on first start of the primary: allow streaming-replication connections
+# so the optional postgres-replica service can take a base backup and follow.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
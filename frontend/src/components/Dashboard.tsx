@@ -30,7 +30,7 @@ const Dashboard: React.FC = () => {
         // Load recent files and chat sessions in parallel
         const [filesResponse, sessionsResponse] = await Promise.all([
           apiService.listFiles(5, 'trashed=false'),
-          apiService.getChatSessions()
+          apiService.getChatSessions(3)
         ]);
 
         setRecentFiles(filesResponse.files);
@@ -1,7 +1,7 @@
 import axios, { AxiosInstance, AxiosResponse } from 'axios';
 import { User, AuthResponse } from '../types/auth';
 import { DriveFileListResponse, DriveFile, DriveSearchResponse, DriveFolderResponse, FileContentResponse } from '../types/drive';
-import { ChatRequest, ChatResponse, ChatSessionResponse, ChatMessagesResponse } from '../types/chat';
+import { ChatRequest, ChatResponse, ChatSession, ChatSessionCursor, ChatSessionResponse, ChatMessageCursor, ChatMessagesResponse } from '../types/chat';
 
 class ApiService {
   private api: AxiosInstance;
@@ -99,13 +99,28 @@ class ApiService {
     return response.data;
   }
 
-  async getChatSessions(): Promise<ChatSessionResponse> {
-    const response: AxiosResponse<ChatSessionResponse> = await this.api.get('/chat/sessions');
+  async getChatSessions(limit: number = 50, cursor?: ChatSessionCursor | null): Promise<ChatSessionResponse> {
+    const params = new URLSearchParams();
+    params.append('limit', limit.toString());
+    if (cursor) {
+      params.append('beforeUpdatedAt', cursor.beforeUpdatedAt);
+      params.append('beforeId', cursor.beforeId.toString());
+    }
+
+    const response: AxiosResponse<ChatSessionResponse> = await this.api.get(`/chat/sessions?${params}`);
     return response.data;
   }
 
-  async getSessionMessages(sessionId: number): Promise<ChatMessagesResponse> {
-    const response: AxiosResponse<ChatMessagesResponse> = await this.api.get(`/chat/sessions/${sessionId}/messages`);
+  async getSessionMessages(sessionId: number, limit: number = 50, cursor?: ChatMessageCursor | null): Promise<ChatMessagesResponse> {
+    const params = new URLSearchParams();
+    params.append('limit', limit.toString());
+    if (cursor) {
+      Object.entries(cursor).forEach(([key, value]) => {
+        if (value !== undefined && value !== null) params.append(key, value.toString());
+      });
+    }
+
+    const response: AxiosResponse<ChatMessagesResponse> = await this.api.get(`/chat/sessions/${sessionId}/messages?${params}`);
     return response.data;
   }
 
@@ -13,6 +13,7 @@ export interface ChatSession {
   createdAt: string;
   updatedAt: string;
   messageCount?: number;
+  lastMessagePreview?: string | null;
 }
 
 export interface ChatRequest {
@@ -32,12 +33,27 @@ export interface ChatResponse {
   streaming?: boolean;
 }
 
+export interface ChatSessionCursor {
+  beforeUpdatedAt: string;
+  beforeId: number;
+}
+
 export interface ChatSessionResponse {
   sessions: ChatSession[];
   count: number;
+  nextCursor?: ChatSessionCursor | null;
+}
+
+export interface ChatMessageCursor {
+  beforeCreatedAt?: string;
+  beforeId?: number;
+  afterCreatedAt?: string;
+  afterId?: number;
 }
 
 export interface ChatMessagesResponse {
   messages: ChatMessage[];
   count: number;
+  olderCursor?: ChatMessageCursor | null;
+  newerCursor?: ChatMessageCursor | null;
 }
@@ -0,0 +1,58 @@
+#!/bin/bash
+
+# End-to-end load test without Google or OpenAI accounts.
+# Starts the stand-ins, the backend with the `loadtest` profile pointed at them, then the
+# load driver. Needs PostgreSQL running (e.g. `docker compose up -d postgres`) and Maven
+# dependencies already downloaded; pass MAVEN_OPTS_EXTRA=-o to stay fully offline.
+#
+#   ./loadtest.sh --users=50 --duration-seconds=120
+#   STANDIN_OPTS="-Dstandin.latency.openai=fixed:200 -Dstandin.ratelimit.drive.error-rate=0.02" ./loadtest.sh
+#
+# Driver options: app-url, management-url, users, duration-seconds, warmup-seconds, think-time-ms, drive-files,
+# mix, report-file. Stand-in options: backend/src/loadtest/resources/standin.properties.
+
+set -euo pipefail
+
+STANDIN_PORT=${STANDIN_PORT:-9090}
+APP_PORT=${APP_PORT:-8080}
+MANAGEMENT_PORT=${MANAGEMENT_PORT:-8081}
+MVN="mvn -q ${MAVEN_OPTS_EXTRA:-} -Ploadtest"
+LOG_DIR=target/loadtest
+
+cd "$(dirname "$0")/backend"
+mkdir -p "$LOG_DIR"
+
+pids=()
+cleanup() {
+    for pid in "${pids[@]}"; do
+        kill "$pid" 2>/dev/null || true
+    done
+}
+trap cleanup EXIT
+
+echo "🔨 Compiling backend and load-test harness..."
+$MVN test-compile
+
+echo "🧪 Starting stand-ins on port $STANDIN_PORT (log: backend/$LOG_DIR/standin.log)..."
+$MVN exec:java -Dexec.mainClass=com.driveai.loadtest.standin.StandInServer \
+    -Dstandin.port="$STANDIN_PORT" ${STANDIN_OPTS:-} > "$LOG_DIR/standin.log" 2>&1 &
+pids+=($!)
+
+echo "🚀 Starting backend on port $APP_PORT (log: backend/$LOG_DIR/backend.log)..."
+STANDIN_URL="http://localhost:$STANDIN_PORT" $MVN spring-boot:run \
+    -Dspring-boot.run.profiles=loadtest \
+    -Dspring-boot.run.arguments="--server.port=$APP_PORT --management.server.port=$MANAGEMENT_PORT" > "$LOG_DIR/backend.log" 2>&1 &
+pids+=($!)
+
+echo "⏳ Waiting for backend..."
+for _ in $(seq 1 120); do
+    if curl -sf "http://localhost:$APP_PORT/api/auth/status" > /dev/null; then
+        break
+    fi
+    sleep 1
+done
+curl -sf "http://localhost:$APP_PORT/api/auth/status" > /dev/null || { echo "❌ Backend did not start"; exit 1; }
+
+echo "📈 Running load driver..."
+$MVN exec:java -Dexec.mainClass=com.driveai.loadtest.driver.LoadDriver \
+    -Dexec.args="--app-url=http://localhost:$APP_PORT --management-url=http://localhost:$MANAGEMENT_PORT $*"
@@ -57,10 +57,10 @@ db_name=${db_name:-driveai}
 psql -U $db_user -c "CREATE DATABASE $db_name;" 2>/dev/null || echo "Database may already exist"
 psql -U $db_user -c "CREATE USER driveai_user WITH PASSWORD 'driveai_password';" 2>/dev/null || echo "User may already exist"
 psql -U $db_user -c "GRANT ALL PRIVILEGES ON DATABASE $db_name TO driveai_user;" 2>/dev/null || echo "Privileges may already be granted"
+# PostgreSQL 15+ no longer lets non-owners create tables in the public schema
+psql -U $db_user -c "ALTER DATABASE $db_name OWNER TO driveai_user;" 2>/dev/null || echo "Could not change database owner"
 
-# Run schema
-echo "📋 Running database schema..."
-psql -U driveai_user -d $db_name -f backend/src/main/resources/schema.sql
+# Schema is created by Flyway (backend/src/main/resources/db/migration) when the backend starts
 
 echo "✅ Database setup complete!"
 